@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.benchmark;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.codec.JsonBinder;
+import net.chococaker.jjason.codec.JsonCodec;
+import net.chococaker.jjason.codec.JsonCodecs;
+import net.chococaker.jjason.codec.JsonType;
+import net.chococaker.jjason.reader.JsonParser;
+import net.chococaker.jjason.reader.JsonReader;
+import net.chococaker.jjason.reader.JsonToken;
+import net.chococaker.jjason.writer.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading an array of small objects into Java objects with a {@link JsonBinder} codec, the codec
+ * generated for a {@link JsonType} class, a hand-written codec, or a tree whose members are copied,
+ * and writing them back with the bound and generated codecs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+    private static final int COUNT = 10000;
+    
+    private byte[] utf8;
+    private JsonCodec<List<Point>> bound;
+    private JsonCodec<List<GeneratedPoint>> generated;
+    private List<Point> points;
+    private List<GeneratedPoint> generatedPoints;
+    private StringBuilder builder;
+    private JsonCodec<List<Point>> handWritten;
+    
+    @Setup
+    public void setup() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < COUNT; i++) {
+            json.append(i == 0 ? "{" : ",{").append("\"name\":\"point ").append(i)
+                    .append("\",\"id\":").append(i).append(",\"x\":").append(i * 0.25)
+                    .append(",\"visible\":").append(i % 2 == 0).append('}');
+        }
+        utf8 = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        bound = JsonCodecs.list(JsonBinder.codec(Point.class));
+        generated = JsonCodecs.list(BindBenchmark_GeneratedPointCodec.INSTANCE);
+        points = bound.read(JsonParser.of(utf8));
+        generatedPoints = generated.read(JsonParser.of(utf8));
+        builder = new StringBuilder(utf8.length);
+        handWritten = JsonCodecs.list(new PointCodec());
+    }
+    
+    @Benchmark
+    public List<Point> bound() {
+        return bound.read(JsonParser.of(utf8));
+    }
+    
+    @Benchmark
+    public List<GeneratedPoint> generated() {
+        return generated.read(JsonParser.of(utf8));
+    }
+    
+    @Benchmark
+    public List<Point> handWritten() {
+        return handWritten.read(JsonParser.of(utf8));
+    }
+    
+    @Benchmark
+    public int boundWrite() throws IOException {
+        builder.setLength(0);
+        JsonWriter writer = JsonWriter.of(builder);
+        bound.write(writer, points);
+        writer.flush();
+        return builder.length();
+    }
+    
+    @Benchmark
+    public int generatedWrite() throws IOException {
+        builder.setLength(0);
+        JsonWriter writer = JsonWriter.of(builder);
+        generated.write(writer, generatedPoints);
+        writer.flush();
+        return builder.length();
+    }
+    
+    @Benchmark
+    public List<Point> tree() {
+        JsonArray array = JsonReader.arrayReader(JsonParser.of(utf8)).read();
+        List<Point> points = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            JsonObject object = element.getAsJsonObject();
+            Point point = new Point();
+            point.name = object.getAsJsonPrimitive("name").getAsString();
+            point.id = object.getAsJsonPrimitive("id").getAsInt();
+            point.x = object.getAsJsonPrimitive("x").getAsDouble();
+            point.visible = object.getAsJsonPrimitive("visible").getAsBoolean();
+            points.add(point);
+        }
+        return points;
+    }
+    
+    public static final class Point {
+        private String name;
+        private int id;
+        private double x;
+        private boolean visible;
+    }
+    
+    // the same members as Point, with fields the generated codec can access
+    @JsonType
+    public static final class GeneratedPoint {
+        String name;
+        int id;
+        double x;
+        boolean visible;
+    }
+    
+    private static final class PointCodec implements JsonCodec<Point> {
+        @Override
+        public Point read(JsonParser parser) {
+            JsonCodecs.require(parser, JsonCodecs.valueToken(parser), JsonToken.BEGIN_OBJECT);
+            Point point = new Point();
+            while (parser.next() != JsonToken.END_OBJECT) {
+                switch (parser.currentName()) {
+                    case "name":
+                        point.name = JsonCodecs.STRING.read(parser);
+                        break;
+                    case "id":
+                        point.id = JsonCodecs.readInt(parser);
+                        break;
+                    case "x":
+                        point.x = JsonCodecs.readDouble(parser);
+                        break;
+                    case "visible":
+                        point.visible = JsonCodecs.readBoolean(parser);
+                        break;
+                    default:
+                        parser.skipValue();
+                }
+            }
+            return point;
+        }
+        
+        @Override
+        public void write(JsonWriter writer, Point value) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
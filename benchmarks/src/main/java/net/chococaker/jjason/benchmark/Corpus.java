@@ -0,0 +1,407 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * The inputs of the benchmarks, which are generated from fixed seeds. The first three have the
+ * structure of the well-known files of the same names, which are read instead if they are put into
+ * the <code>corpus</code> resources.
+ */
+public enum Corpus {
+    /** Social media statuses: many short strings, non-ASCII text and repeated keys. */
+    TWITTER("twitter.json"),
+    /** A GeoJSON polygon: large arrays of coordinate pairs with many decimal places. */
+    CANADA("canada.json"),
+    /** An event catalog: wide objects keyed by numeric ids, integers and nulls. */
+    CITM_CATALOG("citm_catalog.json"),
+    /** Objects and arrays nested {@value #DEPTH} levels deep. */
+    DEEP(null),
+    /** A single object with {@value #WIDTH} members. */
+    WIDE(null),
+    /** Arrays of integers and decimals, with a few numbers that do not fit a long or a double. */
+    NUMBERS(null);
+    
+    Corpus(String resource) {
+        this.resource = resource;
+    }
+    
+    private static final int DEPTH = 500;
+    private static final int WIDTH = 20000;
+    
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "in", "is", "you", "that", "it", "he", "was", "for", "on",
+            "are", "as", "with", "his", "they", "at", "be", "this", "have", "from", "or", "one",
+            "had", "by", "word", "but", "not", "what", "all", "were", "we", "when", "your", "can",
+            "said", "there", "use", "each", "which", "she", "do", "how", "their", "if", "will",
+            "up", "other", "about", "out", "many", "then", "them", "these", "so", "some", "her",
+            "would", "make", "like", "him", "into", "time", "has", "look", "two", "more", "write",
+            "go", "see", "number", "no", "way", "could", "people", "my", "than", "first", "water",
+            "been", "call", "who", "oil", "its", "now", "find", "long", "down", "day", "did", "get",
+            "come", "made", "may", "part"
+    };
+    private static final String[] JAPANESE = {
+            "一", "日本", "東京", "今日", "明日", "天気", "ありがとう", "おはよう", "です", "ます",
+            "映画", "音楽", "友達", "写真", "時間"
+    };
+    private static final String[] PLACES = {"東京", "São Paulo", "Paris, France", "Tokyo", ""};
+    
+    private final String resource;
+    
+    /**
+     * @return The corpus as a JSON object
+     */
+    public String json() {
+        String json = resource != null ? read(resource) : null;
+        if (json != null)
+            return json;
+        
+        switch (this) {
+            case TWITTER:
+                return indent(twitter(), 1);
+            case CANADA:
+                return canada();
+            case CITM_CATALOG:
+                return indent(citmCatalog(), 4);
+            case DEEP:
+                return deep();
+            case WIDE:
+                return wide();
+            case NUMBERS:
+                return numbers();
+            default:
+                throw new AssertionError(this);
+        }
+    }
+    
+    // the resource of the given name, or null if there is none
+    private static String read(String resource) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + resource)) {
+            if (in == null)
+                return null;
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            for (int n; (n = in.read(buf)) != -1; ) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static String deep() {
+        StringBuilder sb = new StringBuilder("{\"root\":");
+        for (int i = 0; i < DEPTH; i++) {
+            sb.append(i % 2 == 0 ? "{\"level\":" + i + ",\"next\":" : "[\"level\"," + i + ",");
+        }
+        sb.append("null");
+        for (int i = DEPTH - 1; i >= 0; i--) {
+            sb.append(i % 2 == 0 ? '}' : ']');
+        }
+        return sb.append('}').toString();
+    }
+    
+    private static String wide() {
+        Random random = new Random(WIDTH);
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < WIDTH; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append("\"member").append(i).append("\":");
+            switch (i % 4) {
+                case 0:
+                    sb.append(random.nextInt());
+                    break;
+                case 1:
+                    sb.append("\"value ").append(random.nextLong()).append('"');
+                    break;
+                case 2:
+                    sb.append(random.nextBoolean());
+                    break;
+                default:
+                    sb.append("null");
+            }
+        }
+        return sb.append('}').toString();
+    }
+    
+    private static String numbers() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("{\"integers\":[");
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i > 0 ? "," : "").append(random.nextInt());
+        }
+        sb.append("],\"longs\":[");
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i > 0 ? "," : "").append(random.nextLong());
+        }
+        sb.append("],\"decimals\":[");
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i > 0 ? "," : "").append(random.nextGaussian() * 1000);
+        }
+        sb.append("],\"mixed\":[");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i > 0 ? "," : "").append(random.nextInt(1000)).append(",1.5e")
+                    .append(random.nextInt(600) - 300).append(",123456789012345678901234567890");
+        }
+        return sb.append("]}").toString();
+    }
+    
+    private static String twitter() {
+        Random random = new Random(505874924L);
+        StringBuilder sb = new StringBuilder("{\"statuses\":[");
+        long id = 505874924095815681L;
+        for (int i = 0; i < 100; i++) {
+            if (i > 0)
+                sb.append(',');
+            boolean japanese = random.nextInt(3) == 0;
+            int userId = 100000000 + random.nextInt(1000000);
+            sb.append("{\"metadata\":{\"result_type\":\"recent\",\"iso_language_code\":\"")
+                    .append(japanese ? "ja" : "en").append("\"},")
+                    .append("\"created_at\":\"Sun Aug 31 00:").append(10 + random.nextInt(50))
+                    .append(':').append(10 + random.nextInt(50)).append(" +0000 2014\",")
+                    .append("\"id\":").append(id + i).append(",\"id_str\":\"").append(id + i)
+                    .append("\",\"text\":\"")
+                    .append(japanese ? words(random, JAPANESE, 5 + random.nextInt(20), "")
+                            : words(random, WORDS, 3 + random.nextInt(15), " "))
+                    .append(random.nextBoolean() ? " http://t.co/" + Long.toString(
+                            random.nextLong() & Long.MAX_VALUE, 36).substring(0, 10) : "")
+                    .append("\",\"source\":\"<a href=\\\"http://twitter.com/download/iphone\\\"")
+                    .append(" rel=\\\"nofollow\\\">Twitter for iPhone</a>\",")
+                    .append("\"truncated\":false,\"in_reply_to_status_id\":null,")
+                    .append("\"in_reply_to_user_id\":null,")
+                    .append("\"user\":{\"id\":").append(userId)
+                    .append(",\"id_str\":\"").append(userId)
+                    .append("\",\"name\":\"").append(title(words(random, WORDS, 2, " ")))
+                    .append("\",\"screen_name\":\"").append(WORDS[random.nextInt(WORDS.length)])
+                    .append(i).append("\",\"location\":\"")
+                    .append(PLACES[random.nextInt(PLACES.length)])
+                    .append("\",\"description\":\"").append(words(random, WORDS, 10, " "))
+                    .append("\",\"url\":\"http://example.com/").append(WORDS[random.nextInt(10)])
+                    .append("\",\"entities\":{\"description\":{\"urls\":[]}},")
+                    .append("\"protected\":false,\"followers_count\":")
+                    .append(random.nextInt(50000))
+                    .append(",\"friends_count\":").append(random.nextInt(5000))
+                    .append(",\"listed_count\":").append(random.nextInt(500))
+                    .append(",\"created_at\":\"Sun Aug 31 00:29:15 +0000 2014\"")
+                    .append(",\"favourites_count\":").append(random.nextInt(20000))
+                    .append(",\"utc_offset\":").append(random.nextBoolean() ? "32400" : "null")
+                    .append(",\"time_zone\":\"Eastern Time (US & Canada)\"")
+                    .append(",\"geo_enabled\":").append(random.nextBoolean())
+                    .append(",\"verified\":false,\"statuses_count\":").append(random.nextInt(50000))
+                    .append(",\"lang\":\"ja\",\"profile_background_color\":\"C0DEED\"")
+                    .append(",\"profile_image_url\":\"http://pbs.twimg.com/profile_images/")
+                    .append(random.nextInt(1000000)).append("/x_normal.jpeg\"")
+                    .append(",\"profile_use_background_image\":true,\"default_profile\":")
+                    .append(random.nextBoolean())
+                    .append(",\"following\":false,\"notifications\":false},")
+                    .append("\"geo\":null,\"coordinates\":null,\"place\":null,")
+                    .append("\"contributors\":null,\"retweet_count\":").append(random.nextInt(100))
+                    .append(",\"favorite_count\":").append(random.nextInt(500))
+                    .append(",\"entities\":{\"hashtags\":[");
+            for (int j = random.nextInt(3); j > 0; j--) {
+                int start = random.nextInt(50);
+                sb.append("{\"text\":\"").append(WORDS[random.nextInt(WORDS.length)])
+                        .append("\",\"indices\":[").append(start).append(',').append(start + 6)
+                        .append("]}").append(j > 1 ? "," : "");
+            }
+            sb.append("],\"symbols\":[],\"urls\":[],\"user_mentions\":[");
+            for (int j = random.nextInt(3); j > 0; j--) {
+                sb.append("{\"screen_name\":\"").append(WORDS[random.nextInt(WORDS.length)])
+                        .append("\",\"name\":\"").append(words(random, WORDS, 2, " "))
+                        .append("\",\"id\":").append(random.nextInt(Integer.MAX_VALUE))
+                        .append(",\"indices\":[0,12]}").append(j > 1 ? "," : "");
+            }
+            sb.append("]},\"favorited\":false,\"retweeted\":false,\"lang\":\"")
+                    .append(japanese ? "ja" : "en").append("\"}");
+        }
+        return sb.append("],\"search_metadata\":{\"completed_in\":0.087,\"max_id\":")
+                .append(id).append(",\"query\":\"%E4%B8%80\",\"count\":100,\"since_id\":0}}")
+                .toString();
+    }
+    
+    private static String canada() {
+        Random random = new Random(54);
+        StringBuilder sb = new StringBuilder("{\"type\":\"FeatureCollection\",\"features\":[")
+                .append("{\"type\":\"Feature\",\"properties\":{\"name\":\"Canada\"},")
+                .append("\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[");
+        double longitude = -90.02803441439985;
+        double latitude = 54.145692336072806;
+        for (int ring = 0; ring < 10; ring++) {
+            sb.append(ring > 0 ? ",[" : "[");
+            for (int i = 400 + random.nextInt(1800); i > 0; i--) {
+                longitude += (random.nextDouble() - 0.5) / 100;
+                latitude += (random.nextDouble() - 0.5) / 100;
+                sb.append('[').append(longitude).append(',').append(latitude).append(']')
+                        .append(i > 1 ? "," : "");
+            }
+            sb.append(']');
+        }
+        return sb.append("]}}]}").toString();
+    }
+    
+    private static String citmCatalog() {
+        Random random = new Random(138586341);
+        StringBuilder sb = new StringBuilder("{\"areaNames\":{");
+        names(sb, random, 205705993, 40, 2, false);
+        sb.append("},\"audienceSubCategoryNames\":{\"337100890\":\"Abonné\"},")
+                .append("\"blockNames\":{},\"events\":{");
+        for (int i = 0; i < 900; i++) {
+            int id = 138586341 + 3 * i;
+            sb.append(i > 0 ? "," : "").append('"').append(id).append("\":{")
+                    .append("\"description\":null,\"id\":").append(id)
+                    .append(",\"logo\":null,\"name\":\"")
+                    .append(title(words(random, WORDS, 1 + random.nextInt(5), " ")))
+                    .append("\",\"subTopicIds\":[").append(ids(random, 337184269, 21, 1, 3))
+                    .append("],\"subjectCode\":null,\"subtitle\":null,\"topicIds\":[")
+                    .append(ids(random, 324846099, 11, 1, 3)).append("]}");
+        }
+        sb.append("},\"performances\":[");
+        for (int i = 0; i < 240; i++) {
+            sb.append(i > 0 ? "," : "").append("{\"eventId\":")
+                    .append(138586341 + 3 * random.nextInt(900))
+                    .append(",\"id\":").append(339887544 + i)
+                    .append(",\"logo\":null,\"name\":null,\"prices\":[");
+            int prices = 1 + random.nextInt(4);
+            for (int j = 0; j < prices; j++) {
+                sb.append(j > 0 ? "," : "").append("{\"amount\":")
+                        .append(9500 + 500 * random.nextInt(300))
+                        .append(",\"audienceSubCategoryId\":337100890,\"seatCategoryId\":")
+                        .append(338937295 + j).append('}');
+            }
+            sb.append("],\"seatCategories\":[");
+            for (int j = 0; j < prices; j++) {
+                sb.append(j > 0 ? "," : "").append("{\"areas\":[");
+                for (int k = 1 + random.nextInt(3); k > 0; k--) {
+                    sb.append("{\"areaId\":").append(205705993 + random.nextInt(40))
+                            .append(",\"blockIds\":[]}").append(k > 1 ? "," : "");
+                }
+                sb.append("],\"seatCategoryId\":").append(338937295 + j).append('}');
+            }
+            sb.append("],\"seatMapImage\":null,\"start\":")
+                    .append(1372608000000L + 86400000L * i)
+                    .append(",\"venueCode\":\"PLEYEL_PLEYEL\"}");
+        }
+        sb.append("],\"seatCategoryNames\":{");
+        names(sb, random, 338937295, 60, 2, false);
+        sb.append("},\"subTopicNames\":{");
+        names(sb, random, 337184269, 21, 1, true);
+        sb.append("},\"subjectNames\":{},\"topicNames\":{");
+        names(sb, random, 324846099, 11, 1, true);
+        sb.append("},\"topicSubTopics\":{");
+        for (int i = 0; i < 11; i++) {
+            sb.append(i > 0 ? "," : "").append('"').append(324846099 + i).append("\":[")
+                    .append(ids(random, 337184269, 21, 3, 3)).append(']');
+        }
+        return sb.append("},\"venueNames\":{\"PLEYEL_PLEYEL\":\"Salle Pleyel\"}}").toString();
+    }
+    
+    // members named by consecutive ids, whose values are a few words
+    private static void names(StringBuilder sb, Random random, int firstId, int count, int words,
+                              boolean title) {
+        for (int i = 0; i < count; i++) {
+            String name = words(random, WORDS, words, " ");
+            sb.append(i > 0 ? "," : "").append('"').append(firstId + i).append("\":\"")
+                    .append(title ? title(name) : name).append('"');
+        }
+    }
+    
+    // between min and max random ids out of the count ids from the first one
+    private static String ids(Random random, int firstId, int count, int min, int max) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = min + random.nextInt(max - min + 1); i > 0; i--) {
+            sb.append(firstId + random.nextInt(count)).append(i > 1 ? "," : "");
+        }
+        return sb.toString();
+    }
+    
+    private static String words(Random random, String[] words, int count, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i > 0 ? separator : "").append(words[random.nextInt(words.length)]);
+        }
+        return sb.toString();
+    }
+    
+    private static String title(String words) {
+        StringBuilder sb = new StringBuilder(words);
+        for (int i = 0; i < sb.length(); i++) {
+            if (i == 0 || sb.charAt(i - 1) == ' ')
+                sb.setCharAt(i, Character.toUpperCase(sb.charAt(i)));
+        }
+        return sb.toString();
+    }
+    
+    // pretty-prints compact JSON with the given indentation, like the original files are
+    private static String indent(String json, int width) {
+        StringBuilder sb = new StringBuilder(json.length() * 2);
+        int depth = 0;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            switch (c) {
+                case '"':
+                    int end = i + 1;
+                    while (json.charAt(end) != '"') {
+                        end += json.charAt(end) == '\\' ? 2 : 1;
+                    }
+                    sb.append(json, i, end + 1);
+                    i = end;
+                    break;
+                case '{':
+                case '[':
+                    char close = c == '{' ? '}' : ']';
+                    sb.append(c);
+                    if (json.charAt(i + 1) == close) {
+                        sb.append(close);
+                        i++;
+                    } else {
+                        newLine(sb, ++depth * width);
+                    }
+                    break;
+                case '}':
+                case ']':
+                    newLine(sb, --depth * width);
+                    sb.append(c);
+                    break;
+                case ',':
+                    sb.append(c);
+                    newLine(sb, depth * width);
+                    break;
+                case ':':
+                    sb.append(": ");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+    
+    private static void newLine(StringBuilder sb, int indent) {
+        sb.append('\n');
+        for (int i = 0; i < indent; i++) {
+            sb.append(' ');
+        }
+    }
+}
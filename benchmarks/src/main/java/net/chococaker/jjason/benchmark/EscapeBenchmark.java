@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.benchmark;
+
+import net.chococaker.jjason.util.JsonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonUtil#escape(String)} and {@link JsonUtil#unescape(String)} on strings with no, few
+ * and many characters that need escaping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeBenchmark {
+    @Param({"ascii", "sparse", "dense", "unicode"})
+    public String kind;
+    
+    @Param({"16", "1024"})
+    public int length;
+    
+    private String raw;
+    private String escaped;
+    
+    @Setup
+    public void setup() {
+        String pattern;
+        switch (kind) {
+            case "ascii":
+                pattern = "The quick brown fox jumps over the lazy dog. ";
+                break;
+            case "sparse":
+                pattern = "A line with a \"quote\" and a tab\t before the newline\n";
+                break;
+            case "dense":
+                pattern = "\"\\\n\t\r\b\f\u0001";
+                break;
+            default:
+                pattern = "Grüße, 日本語 and \uD83D\uDE00 too ";
+        }
+        
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(pattern);
+        }
+        raw = sb.substring(0, length);
+        escaped = JsonUtil.escape(raw);
+    }
+    
+    @Benchmark
+    public String escape() {
+        return JsonUtil.escape(raw);
+    }
+    
+    @Benchmark
+    public String unescape() {
+        return JsonUtil.unescape(escaped);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.benchmark;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.reader.JsonParser;
+import net.chococaker.jjason.reader.JsonPushParser;
+import net.chococaker.jjason.reader.JsonReader;
+import net.chococaker.jjason.reader.JsonValidator;
+import net.chococaker.jjason.reader.KeyCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading each corpus into a tree, from a {@link String}, from UTF-8 bytes, from a stream and from
+ * pushed chunks, and only validating it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    @Param
+    public Corpus corpus;
+    
+    private String json;
+    private byte[] utf8;
+    private KeyCache keyCache;
+    
+    @Setup
+    public void setup() {
+        json = corpus.json();
+        utf8 = json.getBytes(StandardCharsets.UTF_8);
+        keyCache = new KeyCache();
+    }
+    
+    @Benchmark
+    public JsonObject string() {
+        return JsonReader.objectReader(json).read();
+    }
+    
+    @Benchmark
+    public JsonObject utf8() {
+        return JsonReader.objectReader(JsonParser.of(utf8)).read();
+    }
+    
+    @Benchmark
+    public JsonObject indexed() {
+        return JsonReader.objectReader(JsonParser.indexed(utf8)).read();
+    }
+    
+    @Benchmark
+    public JsonObject stream() throws IOException {
+        try (JsonParser parser = JsonParser.of(new ByteArrayInputStream(utf8))) {
+            return JsonReader.objectReader(parser).read();
+        }
+    }
+    
+    // fed in chunks of the default buffer size, as a non-blocking server would receive it
+    @Benchmark
+    public JsonElement push() {
+        JsonElement[] root = new JsonElement[1];
+        JsonPushParser parser = JsonPushParser.of(0, element -> root[0] = element);
+        for (int i = 0; i < utf8.length; i += JsonParser.DEFAULT_BUFFER_SIZE) {
+            parser.feed(ByteBuffer.wrap(utf8, i,
+                    Math.min(JsonParser.DEFAULT_BUFFER_SIZE, utf8.length - i)));
+        }
+        parser.endOfInput();
+        return root[0];
+    }
+    
+    @Benchmark
+    public JsonObject keyCache() {
+        return JsonReader.objectReader(json).withKeyCache(keyCache).read();
+    }
+    
+    // reads the tape only, then builds the values of the root object
+    @Benchmark
+    public void lazy(Blackhole blackhole) {
+        JsonObject object = JsonReader.lazyObjectReader(json).read();
+        for (String key : object.keySet()) {
+            blackhole.consume(object.get(key));
+        }
+    }
+    
+    @Benchmark
+    public int validate() {
+        return JsonValidator.validate(utf8);
+    }
+}
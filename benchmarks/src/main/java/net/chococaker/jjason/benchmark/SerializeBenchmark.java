@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.benchmark;
+
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.reader.JsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing each corpus from a tree, into a {@link String}, a reused {@link StringBuilder} and a
+ * UTF-8 stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+    @Param
+    public Corpus corpus;
+    
+    private JsonObject object;
+    private StringBuilder builder;
+    private CountingStream stream;
+    
+    @Setup
+    public void setup() {
+        object = JsonReader.objectReader(corpus.json()).read();
+        builder = new StringBuilder();
+        stream = new CountingStream();
+    }
+    
+    @Benchmark
+    public String string() {
+        return object.toString();
+    }
+    
+    @Benchmark
+    public int builder() throws IOException {
+        builder.setLength(0);
+        object.writeTo(builder);
+        return builder.length();
+    }
+    
+    @Benchmark
+    public long utf8() throws IOException {
+        object.writeTo(stream);
+        return stream.count;
+    }
+    
+    @Benchmark
+    public StringWriter writer() throws IOException {
+        StringWriter writer = new StringWriter();
+        object.writeTo(writer);
+        return writer;
+    }
+    
+    // discards everything but the number of bytes written
+    private static final class CountingStream extends OutputStream {
+        long count;
+        
+        @Override
+        public void write(int b) {
+            count++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
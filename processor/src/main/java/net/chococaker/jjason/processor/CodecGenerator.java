@@ -0,0 +1,515 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// writes the source of the codec of one @JsonType class or record
+final class CodecGenerator {
+    CodecGenerator(ProcessingEnvironment env, TypeElement type) {
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.type = type;
+        this.packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        this.record = type.getKind().name().equals("RECORD");
+    }
+    
+    private static final String JSON_ELEMENT = "net.chococaker.jjason.JsonElement";
+    
+    private final Elements elements;
+    private final Types types;
+    private final TypeElement type;
+    private final String packageName;
+    private final boolean record;
+    
+    // the codecs of composite types, kept in static fields: expression -> field name
+    private final Map<String, String> codecFields = new LinkedHashMap<>();
+    private final List<String> codecTypes = new ArrayList<>();
+    
+    /**
+     * @return The qualified name of the generated codec
+     */
+    String codecName() {
+        return codecName(type);
+    }
+    
+    /**
+     * @return The source of the codec
+     * @throws UnsupportedException If the type or one of its fields cannot be read or written
+     */
+    String generate() throws UnsupportedException {
+        checkType();
+        List<Property> properties = record ? recordProperties() : classProperties();
+        
+        String typeName = type.getQualifiedName().toString();
+        String codecName = codecName();
+        String simpleName = codecName.substring(codecName.lastIndexOf('.') + 1);
+        
+        StringBuilder read = new StringBuilder();
+        read.append("    @Override\n")
+                .append("    public ").append(typeName).append(" read(JsonParser parser) {\n")
+                .append("        JsonToken token = JsonCodecs.valueToken(parser);\n")
+                .append("        if (token == JsonToken.NULL)\n")
+                .append("            return null;\n")
+                .append("        JsonCodecs.require(parser, token, JsonToken.BEGIN_OBJECT);\n")
+                .append("\n");
+        if (record) {
+            for (Property property : properties) {
+                read.append("        ").append(property.type).append(" $").append(property.name)
+                        .append(" = ").append(defaultValue(property.type)).append(";\n");
+            }
+        } else {
+            read.append("        ").append(typeName).append(" value = new ").append(typeName)
+                    .append("();\n");
+        }
+        read.append("        while (parser.next() != JsonToken.END_OBJECT) {\n")
+                .append("            switch (parser.currentName()) {\n");
+        for (Property property : properties) {
+            String value = readExpression(property);
+            read.append("                case ").append(literal(property.jsonName)).append(":\n");
+            if (record) {
+                read.append("                    $").append(property.name).append(" = ")
+                        .append(value).append(";\n");
+            } else if (property.setter == null) {
+                read.append("                    value.").append(property.name).append(" = ")
+                        .append(value).append(";\n");
+            } else {
+                read.append("                    value.").append(property.setter).append('(')
+                        .append(value).append(");\n");
+            }
+            read.append("                    break;\n");
+        }
+        read.append("                default:\n")
+                .append("                    parser.skipValue();\n")
+                .append("            }\n")
+                .append("        }\n");
+        if (record) {
+            read.append("        return new ").append(typeName).append('(');
+            for (int i = 0; i < properties.size(); i++) {
+                read.append(i == 0 ? "$" : ", $").append(properties.get(i).name);
+            }
+            read.append(");\n");
+        } else {
+            read.append("        return value;\n");
+        }
+        read.append("    }\n");
+        
+        StringBuilder write = new StringBuilder();
+        write.append("    @Override\n")
+                .append("    public void write(JsonWriter writer, ").append(typeName)
+                .append(" value) throws IOException {\n")
+                .append("        if (value == null) {\n")
+                .append("            writer.nullValue();\n")
+                .append("            return;\n")
+                .append("        }\n")
+                .append("\n")
+                .append("        writer.beginObject();\n");
+        for (Property property : properties) {
+            write.append("        ").append(writeStatement(property)).append('\n');
+        }
+        write.append("        writer.endObject();\n")
+                .append("    }\n");
+        
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by jjason-processor from ").append(typeName)
+                .append(", do not edit\n");
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+        source.append("import net.chococaker.jjason.codec.JsonCodec;\n")
+                .append("import net.chococaker.jjason.codec.JsonCodecs;\n")
+                .append("import net.chococaker.jjason.reader.JsonParser;\n")
+                .append("import net.chococaker.jjason.reader.JsonToken;\n")
+                .append("import net.chococaker.jjason.writer.JsonWriter;\n")
+                .append("\n")
+                .append("import java.io.IOException;\n")
+                .append("\n")
+                .append(type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "")
+                .append("final class ").append(simpleName).append(" implements JsonCodec<")
+                .append(typeName).append("> {\n")
+                .append("    public static final ").append(simpleName).append(" INSTANCE = new ")
+                .append(simpleName).append("();\n");
+        if (!codecFields.isEmpty())
+            source.append('\n');
+        int i = 0;
+        for (Map.Entry<String, String> field : codecFields.entrySet()) {
+            source.append("    private static final JsonCodec<").append(codecTypes.get(i++))
+                    .append("> ").append(field.getValue()).append(" =\n")
+                    .append("            ").append(field.getKey()).append(";\n");
+        }
+        source.append("\n")
+                .append("    private ").append(simpleName).append("() {\n")
+                .append("    }\n")
+                .append("\n")
+                .append(read)
+                .append("\n")
+                .append(write)
+                .append("}\n");
+        return source.toString();
+    }
+    
+    private void checkType() throws UnsupportedException {
+        if (!type.getTypeParameters().isEmpty())
+            throw new UnsupportedException("@JsonType classes cannot have type parameters", type);
+        if (!record && type.getModifiers().contains(Modifier.ABSTRACT))
+            throw new UnsupportedException("@JsonType classes cannot be abstract", type);
+        
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE))
+                throw new UnsupportedException("@JsonType classes cannot be private", e);
+            if (e.getEnclosingElement() instanceof TypeElement && e.getKind() == ElementKind.CLASS
+                    && !e.getModifiers().contains(Modifier.STATIC))
+                throw new UnsupportedException("Nested @JsonType classes must be static", e);
+        }
+        
+        if (!record) {
+            for (ExecutableElement constructor
+                    : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty()
+                        && !constructor.getModifiers().contains(Modifier.PRIVATE))
+                    return;
+            }
+            throw new UnsupportedException(
+                    "@JsonType classes need a constructor without parameters", type);
+        }
+    }
+    
+    // the components, in the order of the canonical constructor
+    private List<Property> recordProperties() throws UnsupportedException {
+        List<Property> properties = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC))
+                continue;
+            
+            String name = field.getSimpleName().toString();
+            Property property = new Property(field, name, jsonName(field, names), field.asType());
+            property.getter = name + "()";
+            properties.add(property);
+        }
+        return properties;
+    }
+    
+    // the fields of the class and its superclasses, superclasses first
+    private List<Property> classProperties() throws UnsupportedException {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement t = type; t != null; t = superclass(t)) {
+            if (t.getQualifiedName().contentEquals("java.lang.Object"))
+                break;
+            hierarchy.add(0, t);
+        }
+        
+        List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(type));
+        List<Property> properties = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TypeElement t : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT))
+                    continue;
+                
+                String name = field.getSimpleName().toString();
+                TypeMirror fieldType = types.asMemberOf((DeclaredType) type.asType(), field);
+                Property property = new Property(field, name, jsonName(field, names), fieldType);
+                
+                String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                boolean direct = isAccessible(field);
+                ExecutableElement getter = method(methods, "get" + capitalized, null);
+                if (getter == null && fieldType.getKind() == TypeKind.BOOLEAN)
+                    getter = method(methods, "is" + capitalized, null);
+                ExecutableElement setter = method(methods, "set" + capitalized, fieldType);
+                
+                if (direct) {
+                    property.getter = name;
+                } else if (getter != null) {
+                    property.getter = getter.getSimpleName() + "()";
+                }
+                if (direct && !modifiers.contains(Modifier.FINAL)) {
+                    property.setter = null;
+                } else if (setter != null) {
+                    property.setter = setter.getSimpleName().toString();
+                } else {
+                    property.getter = null;
+                }
+                
+                if (property.getter == null)
+                    throw new UnsupportedException("Field " + name + " must not be private or"
+                            + " final, or have a getter and a setter", field);
+                properties.add(property);
+            }
+        }
+        return properties;
+    }
+    
+    private TypeElement superclass(TypeElement t) {
+        TypeMirror superclass = t.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED
+                ? (TypeElement) types.asElement(superclass) : null;
+    }
+    
+    // a method of the class accessible from the codec, with one parameter of the given type or
+    // none if it is null
+    private ExecutableElement method(List<ExecutableElement> methods, String name,
+                                     TypeMirror parameter) {
+        for (ExecutableElement method : methods) {
+            if (!method.getSimpleName().contentEquals(name) || !isAccessible(method)
+                    || method.getModifiers().contains(Modifier.STATIC))
+                continue;
+            
+            List<? extends VariableElement> parameters = method.getParameters();
+            if (parameter == null ? parameters.isEmpty() : parameters.size() == 1
+                    && types.isSameType(parameters.get(0).asType(), parameter))
+                return method;
+        }
+        return null;
+    }
+    
+    // whether the codec, which is in the package of the type, can access the member
+    private boolean isAccessible(Element member) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE))
+            return false;
+        return modifiers.contains(Modifier.PUBLIC)
+                || elements.getPackageOf(member).getQualifiedName().contentEquals(packageName);
+    }
+    
+    private String jsonName(VariableElement field, Set<String> names)
+            throws UnsupportedException {
+        String name = field.getSimpleName().toString();
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(CodecProcessor.JSON_NAME))
+                continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+                    : annotation.getElementValues().entrySet()) {
+                name = (String) value.getValue().getValue();
+            }
+        }
+        
+        if (!names.add(name))
+            throw new UnsupportedException("Duplicate member name '" + name + "'", field);
+        return name;
+    }
+    
+    private String readExpression(Property property) throws UnsupportedException {
+        switch (property.type.getKind()) {
+            case BOOLEAN:
+                return "JsonCodecs.readBoolean(parser)";
+            case CHAR:
+                return "JsonCodecs.readChar(parser)";
+            case BYTE:
+                return "JsonCodecs.readByte(parser)";
+            case SHORT:
+                return "JsonCodecs.readShort(parser)";
+            case INT:
+                return "JsonCodecs.readInt(parser)";
+            case LONG:
+                return "JsonCodecs.readLong(parser)";
+            case FLOAT:
+                return "(float) JsonCodecs.readDouble(parser)";
+            case DOUBLE:
+                return "JsonCodecs.readDouble(parser)";
+            default:
+                return codec(property.type, property.field) + ".read(parser)";
+        }
+    }
+    
+    private String writeStatement(Property property) throws UnsupportedException {
+        String name = "writer.name(" + literal(property.jsonName) + ")";
+        String value = "value." + property.getter;
+        switch (property.type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case DOUBLE:
+                return name + ".value(" + value + ");";
+            case CHAR:
+                return name + ".value(String.valueOf(" + value + "));";
+            case FLOAT:
+                return name + ";\n        JsonCodecs.writeFloat(writer, " + value + ");";
+            default:
+                if (isType(property.type, "java.lang.String"))
+                    return name + ".value(" + value + ");";
+                return name + ";\n        " + codec(property.type, property.field)
+                        + ".write(writer, " + value + ");";
+        }
+    }
+    
+    // an expression for the codec of a reference type
+    private String codec(TypeMirror t, Element at) throws UnsupportedException {
+        if (t.getKind() != TypeKind.DECLARED)
+            throw new UnsupportedException("Unsupported type " + t, at);
+        
+        DeclaredType declared = (DeclaredType) t;
+        TypeElement element = (TypeElement) declared.asElement();
+        String name = element.getQualifiedName().toString();
+        List<? extends TypeMirror> arguments = declared.getTypeArguments();
+        switch (name) {
+            case "java.lang.String":
+                return "JsonCodecs.STRING";
+            case "java.lang.Boolean":
+                return "JsonCodecs.BOOLEAN";
+            case "java.lang.Character":
+                return "JsonCodecs.CHARACTER";
+            case "java.lang.Byte":
+                return "JsonCodecs.BYTE";
+            case "java.lang.Short":
+                return "JsonCodecs.SHORT";
+            case "java.lang.Integer":
+                return "JsonCodecs.INTEGER";
+            case "java.lang.Long":
+                return "JsonCodecs.LONG";
+            case "java.lang.Float":
+                return "JsonCodecs.FLOAT";
+            case "java.lang.Double":
+                return "JsonCodecs.DOUBLE";
+            case "java.math.BigInteger":
+                return "JsonCodecs.BIG_INTEGER";
+            case "java.math.BigDecimal":
+                return "JsonCodecs.BIG_DECIMAL";
+            case JSON_ELEMENT:
+                return "JsonCodecs.ELEMENT";
+            case "java.util.List":
+                if (arguments.size() == 1)
+                    return field("JsonCodecs.list(" + codec(arguments.get(0), at) + ")", t);
+                break;
+            case "java.util.Map":
+                if (arguments.size() == 2 && isType(arguments.get(0), "java.lang.String"))
+                    return field("JsonCodecs.map(" + codec(arguments.get(1), at) + ")", t);
+                break;
+            default:
+                if (element.getKind() == ElementKind.ENUM)
+                    return field("JsonCodecs.enumCodec(" + name + ".class)", t);
+                if (isJsonElement(t))
+                    return field("JsonCodecs.element(" + name + ".class)", t);
+                if (hasJsonType(element) && element.getTypeParameters().isEmpty())
+                    return codecName(element) + ".INSTANCE";
+        }
+        throw new UnsupportedException("Unsupported type " + t, at);
+    }
+    
+    // keeps the codec in a static field, so that it is only built once
+    private String field(String expression, TypeMirror t) {
+        String field = codecFields.get(expression);
+        if (field == null) {
+            field = "CODEC_" + codecFields.size();
+            codecFields.put(expression, field);
+            codecTypes.add(t.toString());
+        }
+        return field;
+    }
+    
+    private boolean isType(TypeMirror t, String name) {
+        return t.getKind() == TypeKind.DECLARED
+                && ((TypeElement) types.asElement(t)).getQualifiedName().contentEquals(name);
+    }
+    
+    private boolean isJsonElement(TypeMirror t) {
+        TypeElement jsonElement = elements.getTypeElement(JSON_ELEMENT);
+        return jsonElement != null && types.isAssignable(t, jsonElement.asType());
+    }
+    
+    private static boolean hasJsonType(TypeElement element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(CodecProcessor.JSON_TYPE))
+                return true;
+        }
+        return false;
+    }
+    
+    // Outer.Inner in a.b is read by a.b.Outer_InnerCodec
+    private String codecName(TypeElement t) {
+        StringBuilder name = new StringBuilder(t.getSimpleName()).append("Codec");
+        Element e = t.getEnclosingElement();
+        for (; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, e.getSimpleName());
+        }
+        
+        String packageName = elements.getPackageOf(t).getQualifiedName().toString();
+        return packageName.isEmpty() ? name.toString() : packageName + '.' + name;
+    }
+    
+    private String literal(String s) {
+        return elements.getConstantExpression(s);
+    }
+    
+    private static String defaultValue(TypeMirror t) {
+        switch (t.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "'\\0'";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return "0";
+            default:
+                return "null";
+        }
+    }
+    
+    private static final class Property {
+        Property(VariableElement field, String name, String jsonName, TypeMirror type) {
+            this.field = field;
+            this.name = name;
+            this.jsonName = jsonName;
+            this.type = type;
+        }
+        
+        final VariableElement field;
+        final String name;
+        final String jsonName;
+        final TypeMirror type;
+        String getter; // what follows "value." to get the value
+        String setter; // the setter's name, or null to assign the field directly
+    }
+    
+    static final class UnsupportedException extends Exception {
+        UnsupportedException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+        
+        private static final long serialVersionUID = 548123L;
+        
+        final transient Element element;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+/**
+ * Generates a <code>JsonCodec</code> for each class and record annotated with
+ * <code>net.chococaker.jjason.codec.JsonType</code>. The generated codecs read fields straight from
+ * a <code>JsonParser</code>, matching member names with a <code>switch</code>, and write them
+ * straight to a <code>JsonWriter</code>. They use no reflection, so they need no configuration for
+ * GraalVM native images.
+ *
+ * @since 1.1
+ */
+@SupportedAnnotationTypes(CodecProcessor.JSON_TYPE)
+public final class CodecProcessor extends AbstractProcessor {
+    static final String JSON_TYPE = "net.chococaker.jjason.codec.JsonType";
+    static final String JSON_NAME = "net.chococaker.jjason.codec.JsonName";
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                // records are matched by name, so the processor runs on Java 8
+                if (element.getKind() != ElementKind.CLASS
+                        && !element.getKind().name().equals("RECORD")) {
+                    error(element, "@JsonType can only be used on classes and records");
+                    continue;
+                }
+                
+                TypeElement type = (TypeElement) element;
+                try {
+                    CodecGenerator generator = new CodecGenerator(processingEnv, type);
+                    String source = generator.generate();
+                    try (Writer out = processingEnv.getFiler()
+                            .createSourceFile(generator.codecName(), type).openWriter()) {
+                        out.write(source);
+                    }
+                } catch (CodecGenerator.UnsupportedException e) {
+                    error(e.element, e.getMessage());
+                } catch (IOException e) {
+                    error(type, "Could not write the codec: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+    
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.processor;
+
+import net.chococaker.jjason.codec.JsonCodec;
+import net.chococaker.jjason.reader.JsonParser;
+import net.chococaker.jjason.writer.JsonWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// compiles the classes in src/test/resources/fixtures with the processor, then round-trips JSON
+// through the generated codecs
+class CodecProcessorTest {
+    private static final String CUSTOMER = "{\"name\":\"Ada\",\"vip\":true,\"score\":1.5,"
+            + "\"status\":\"SHIPPED\",\"history\":{\"2023\":[\"OPEN\",\"SHIPPED\"],\"2024\":[]},"
+            + "\"referrals\":[{\"name\":\"Bob\",\"vip\":false,\"score\":0.0,\"status\":null,"
+            + "\"history\":null,\"referrals\":null,\"referrer\":null}],\"referrer\":null}";
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void generatesCodecsForClasses() throws Exception {
+        try (URLClassLoader loader = compile("beans")) {
+            JsonCodec<Object> codec = codec(loader, "shop.CustomerCodec");
+            Object customer = codec.read(JsonParser.of(CUSTOMER));
+            Class<?> type = loader.loadClass("shop.Customer");
+            assertEquals("Ada", type.getField("name").get(customer));
+            assertEquals(true, type.getMethod("isImportant").invoke(customer));
+            assertEquals("SHIPPED", String.valueOf(type.getField("status").get(customer)));
+            assertEquals(CUSTOMER, write(codec, customer));
+            
+            // unknown members are skipped, and missing ones keep their default
+            Object other = codec.read(JsonParser.of("{\"unknown\":[{}],\"name\":\"Cy\"}"));
+            assertEquals("Cy", type.getField("name").get(other));
+            assertNull(type.getField("referrals").get(other));
+        }
+    }
+    
+    @Test
+    void generatesCodecsForRecords() throws Exception {
+        assumeTrue(Arrays.stream(SourceVersion.values())
+                .anyMatch(v -> v.name().equals("RELEASE_16")), "records need Java 16");
+        
+        String order = "{\"order-id\":7,\"status\":\"OPEN\",\"customers\":[" + CUSTOMER + "],"
+                + "\"counts\":{\"apples\":3,\"pears\":0},\"previous\":{\"order-id\":6,"
+                + "\"status\":\"SHIPPED\",\"customers\":[],\"counts\":{},\"previous\":null}}";
+        try (URLClassLoader loader = compile("beans", "records")) {
+            JsonCodec<Object> codec = codec(loader, "shop.OrderCodec");
+            Object read = codec.read(JsonParser.of(order));
+            Class<?> type = loader.loadClass("shop.Order");
+            assertEquals(7L, type.getMethod("id").invoke(read));
+            Object previous = type.getMethod("previous").invoke(read);
+            assertEquals(6L, type.getMethod("id").invoke(previous));
+            assertEquals(order, write(codec, read));
+            
+            // members can come in any order
+            Object reordered = codec.read(JsonParser.of(
+                    "{\"previous\":null,\"counts\":null,\"order-id\":8}"));
+            assertEquals(8L, type.getMethod("id").invoke(reordered));
+            assertNull(type.getMethod("status").invoke(reordered));
+        }
+    }
+    
+    @Test
+    void reportsUnsupportedClasses() throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(run(diagnostics, "invalid"));
+        List<String> errors = diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(d -> d.getMessage(null))
+                .collect(Collectors.toList());
+        assertEquals(Collections.singletonList(
+                "@JsonType classes need a constructor without parameters"), errors);
+    }
+    
+    // compiles the fixtures and loads them with the codecs generated for them
+    private URLClassLoader compile(String... fixtures) throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(run(diagnostics, fixtures), () -> diagnostics.getDiagnostics().toString());
+        return new URLClassLoader(new URL[]{dir.resolve("classes").toUri().toURL()},
+                getClass().getClassLoader());
+    }
+    
+    private boolean run(DiagnosticCollector<JavaFileObject> diagnostics, String... fixtures)
+            throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (String fixture : fixtures) {
+            try (Stream<Path> files = Files.walk(fixture(fixture))) {
+                files.filter(f -> f.toString().endsWith(".java")).forEach(sources::add);
+            }
+        }
+        Path classes = Files.createDirectories(dir.resolve("classes"));
+        Path generated = Files.createDirectories(dir.resolve("generated"));
+        
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "tests need a JDK");
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                    Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                            "-d", classes.toString(), "-s", generated.toString()),
+                    null, files.getJavaFileObjectsFromFiles(
+                            sources.stream().map(Path::toFile).collect(Collectors.toList())));
+            task.setProcessors(Collections.singletonList(new CodecProcessor()));
+            return task.call();
+        }
+    }
+    
+    private static Path fixture(String name) {
+        try {
+            return Paths.get(CodecProcessorTest.class.getResource("/fixtures/" + name).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static JsonCodec<Object> codec(ClassLoader loader, String name) throws Exception {
+        return (JsonCodec<Object>) loader.loadClass(name).getField("INSTANCE").get(null);
+    }
+    
+    private static String write(JsonCodec<Object> codec, Object value) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        JsonWriter writer = JsonWriter.of(sb);
+        codec.write(writer, value);
+        writer.flush();
+        return sb.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package shop;
+
+import net.chococaker.jjason.codec.JsonName;
+import net.chococaker.jjason.codec.JsonType;
+
+import java.util.List;
+import java.util.Map;
+
+@JsonType
+public class Customer {
+    public String name;
+    @JsonName("vip")
+    private boolean important;
+    float score;
+    public Status status;
+    public Map<String, List<Status>> history;
+    public List<Customer> referrals;
+    public Customer referrer;
+
+    public boolean isImportant() {
+        return important;
+    }
+
+    public void setImportant(boolean important) {
+        this.important = important;
+    }
+}
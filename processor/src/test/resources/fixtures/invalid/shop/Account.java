@@ -0,0 +1,12 @@
+package shop;
+
+import net.chococaker.jjason.codec.JsonType;
+
+@JsonType
+public class Account {
+    private String owner;
+
+    public Account(String owner) {
+        this.owner = owner;
+    }
+}
@@ -0,0 +1,12 @@
+package shop;
+
+import net.chococaker.jjason.codec.JsonName;
+import net.chococaker.jjason.codec.JsonType;
+
+import java.util.List;
+import java.util.Map;
+
+@JsonType
+public record Order(@JsonName("order-id") long id, Status status, List<Customer> customers,
+                    Map<String, Integer> counts, Order previous) {
+}
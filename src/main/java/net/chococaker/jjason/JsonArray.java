@@ -15,11 +15,13 @@
  */
 package net.chococaker.jjason;
 
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
 
 import static net.chococaker.jjason.util.JsonUtil.convertNull;
 
@@ -109,19 +111,31 @@ public final class JsonArray extends ArrayList<JsonElement> implements JsonEleme
      */
     @Override
     public String toString() {
-        StringBuilder result = new StringBuilder();
-        result.append('[');
-        String listified = this.stream()
-                .map(JsonElement::toString)
-                .collect(Collectors.joining(","));
-        result.append(listified);
-        result.append(']');
-        
-        return result.toString();
+        return JsonWriter.toString(this);
+    }
+    
+    /**
+     * @return An immutable deep copy of the array
+     * @see PersistentJsonArray#of(java.util.List)
+     * @since 1.1
+     */
+    @Override
+    public PersistentJsonArray freeze() {
+        return PersistentJsonArray.of(this);
+    }
+    
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (int i = 0, size = size(); i < size; i++) {
+            writer.write(get(i));
+        }
+        writer.endArray();
     }
     
+    // adding a copy of this array is fine, adding the array itself is not
     private void requireNotSelf(Collection<?> c) {
-        if (equals(c))
+        if (c == this)
             throw new IllegalArgumentException("Statement results in circular reference");
     }
     
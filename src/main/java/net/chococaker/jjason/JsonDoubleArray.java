@@ -0,0 +1,75 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * A {@link JsonNumberArray} of Doubles, backed by a <code>double[]</code>.
+ *
+ * @since 1.1
+ */
+public final class JsonDoubleArray extends JsonNumberArray {
+    /**
+     * @param values The numbers of the array. The array is not copied.
+     */
+    public JsonDoubleArray(double[] values) {
+        this.values = values;
+    }
+    
+    private static final long serialVersionUID = 548123L;
+    
+    private final double[] values;
+    
+    @Override
+    int length() {
+        return values.length;
+    }
+    
+    @Override
+    int intAt(int index) {
+        return JsonPrimitive.toInt(JsonPrimitive.toLong(values[index]));
+    }
+    
+    @Override
+    long longAt(int index) {
+        return JsonPrimitive.toLong(values[index]);
+    }
+    
+    @Override
+    double doubleAt(int index) {
+        return values[index];
+    }
+    
+    @Override
+    JsonPrimitive box(int index) {
+        return new JsonPrimitive(values[index]);
+    }
+    
+    @Override
+    JsonNumberArray copy() {
+        return new JsonDoubleArray(values.clone());
+    }
+    
+    @Override
+    void writeValues(JsonWriter writer) throws IOException {
+        for (double value : values) {
+            writer.value(value);
+        }
+    }
+}
@@ -15,6 +15,10 @@
  */
 package net.chococaker.jjason;
 
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 
 /**
@@ -75,6 +79,24 @@ public interface JsonElement extends Cloneable, Serializable {
         return (JsonArray) this;
     }
     
+    /**
+     * @return This object cast to a {@link PersistentJsonObject}
+     * @throws ClassCastException If the cast was not able to be performed.
+     * @since 1.1
+     */
+    default PersistentJsonObject getAsPersistentJsonObject() {
+        return (PersistentJsonObject) this;
+    }
+    
+    /**
+     * @return This object cast to a {@link PersistentJsonArray}
+     * @throws ClassCastException If the cast was not able to be performed.
+     * @since 1.1
+     */
+    default PersistentJsonArray getAsPersistentJsonArray() {
+        return (PersistentJsonArray) this;
+    }
+    
     /**
      * @return This object cast to a {@link JsonPrimitive}
      * @throws ClassCastException If the cast was not able to be performed.
@@ -83,6 +105,54 @@ public interface JsonElement extends Cloneable, Serializable {
         return (JsonPrimitive) this;
     }
     
+    /**
+     * Returns an immutable version of the element. {@link JsonObject JsonObjects} and
+     * {@link JsonArray JsonArrays} are copied deeply into a {@link PersistentJsonObject} or
+     * {@link PersistentJsonArray}, which cache their hash code and their first {@link #toString()}.
+     * Elements that are immutable already return themselves.
+     *
+     * @return An immutable element equal in content to this one
+     * @since 1.1
+     */
+    default JsonElement freeze() {
+        return PersistentJsonObject.persistent(this);
+    }
+    
+    /**
+     * Writes the element as the next value of a {@link JsonWriter}.
+     *
+     * @param writer The writer
+     * @throws IOException If the writer's destination could not be written to
+     * @throws StackOverflowError When the element contains a reference to itself
+     * @since 1.1
+     */
+    void writeTo(JsonWriter writer) throws IOException;
+    
+    /**
+     * Writes the element as compact JSON without building it as a {@link String} first.
+     *
+     * @param out The destination, such as a {@link java.io.Writer} or {@link StringBuilder}
+     * @throws IOException If the destination could not be written to
+     * @throws StackOverflowError When the element contains a reference to itself
+     * @since 1.1
+     */
+    default void writeTo(Appendable out) throws IOException {
+        JsonWriter.of(out).write(this).flush();
+    }
+    
+    /**
+     * Writes the element as compact UTF-8 encoded JSON without building it as a {@link String}
+     * first.
+     *
+     * @param out The destination
+     * @throws IOException If the destination could not be written to
+     * @throws StackOverflowError When the element contains a reference to itself
+     * @since 1.1
+     */
+    default void writeTo(OutputStream out) throws IOException {
+        JsonWriter.of(out).write(this).flush();
+    }
+    
     /**
      * @return a JSON value-safe {@link String} representation of the object. In other words, it is
      * safe to put this value after the key of a JSON datapoint: <code>"key":[toString]</code>
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * A {@link JsonNumberArray} of Longs, backed by a <code>long[]</code>.
+ *
+ * @since 1.1
+ */
+public final class JsonLongArray extends JsonNumberArray {
+    /**
+     * @param values The numbers of the array. The array is not copied.
+     */
+    public JsonLongArray(long[] values) {
+        this.values = values;
+    }
+    
+    private static final long serialVersionUID = 548123L;
+    
+    private final long[] values;
+    
+    @Override
+    int length() {
+        return values.length;
+    }
+    
+    @Override
+    int intAt(int index) {
+        return JsonPrimitive.toInt(values[index]);
+    }
+    
+    @Override
+    long longAt(int index) {
+        return values[index];
+    }
+    
+    @Override
+    double doubleAt(int index) {
+        return values[index];
+    }
+    
+    @Override
+    JsonPrimitive box(int index) {
+        long value = values[index];
+        // the narrowest type, like a number read into a JsonArray
+        return (int) value == value ? new JsonPrimitive((int) value) : new JsonPrimitive(value);
+    }
+    
+    @Override
+    JsonNumberArray copy() {
+        return new JsonLongArray(values.clone());
+    }
+    
+    @Override
+    void writeValues(JsonWriter writer) throws IOException {
+        for (long value : values) {
+            writer.value(value);
+        }
+    }
+}
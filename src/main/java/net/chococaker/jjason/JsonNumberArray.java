@@ -0,0 +1,209 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A JSON array of numbers which are all of one type, stored in a primitive array. Readers that
+ * were enabled with {@link net.chococaker.jjason.reader.JsonReader#withNumberArrays(boolean)}
+ * produce one instead of a {@link JsonArray} for nested arrays whose values are all
+ * {@link Integer Integers}, all {@link Long Longs} (or Integers) or all {@link Double Doubles}.
+ * <p>
+ * The numbers are only wrapped in {@link JsonPrimitive JsonPrimitives} when they are retrieved
+ * through {@link #get(int)}; the primitive getters read the array directly.
+ * <p>
+ * Numeric arrays behave like a {@link JsonArray} that can be compared with other lists:
+ * {@link #isJsonArray()} is true, and {@link #getAsJsonArray()} converts the array into a
+ * {@link JsonArray} once. From then on this array is a view of that {@link JsonArray}, so it can be
+ * changed through either of them. Modifications made through the {@link java.util.List} methods of
+ * this array do the same conversion first.
+ *
+ * @see JsonIntArray
+ * @see JsonLongArray
+ * @see JsonDoubleArray
+ * @since 1.1
+ */
+public abstract class JsonNumberArray extends AbstractList<JsonElement>
+        implements JsonElement, RandomAccess {
+    JsonNumberArray() {
+    }
+    
+    private static final long serialVersionUID = 548123L;
+    
+    // set once the array was converted, all operations go through it from then on
+    private JsonArray array;
+    
+    /**
+     * @param index The index of the number
+     * @return The number, converted like {@link JsonPrimitive#getAsInt()} does
+     * @throws IllegalStateException If the number is not a whole number within the range of
+     *                               an int
+     */
+    public int getInt(int index) {
+        return array != null ? array.getAsJsonPrimitive(index).getAsInt() : intAt(index);
+    }
+    
+    /**
+     * @param index The index of the number
+     * @return The number, converted like {@link JsonPrimitive#getAsLong()} does
+     * @throws IllegalStateException If the number is not a whole number within the range of
+     *                               a long
+     */
+    public long getLong(int index) {
+        return array != null ? array.getAsJsonPrimitive(index).getAsLong() : longAt(index);
+    }
+    
+    /**
+     * @param index The index of the number
+     * @return The number, converted like {@link JsonPrimitive#getAsDouble()} does
+     */
+    public double getDouble(int index) {
+        return array != null ? array.getAsJsonPrimitive(index).getAsDouble() : doubleAt(index);
+    }
+    
+    /**
+     * @return A copy of the numbers, converted like {@link #getInt(int)} does
+     */
+    public int[] toIntArray() {
+        int[] result = new int[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getInt(i);
+        }
+        return result;
+    }
+    
+    /**
+     * @return A copy of the numbers, converted like {@link #getLong(int)} does
+     */
+    public long[] toLongArray() {
+        long[] result = new long[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getLong(i);
+        }
+        return result;
+    }
+    
+    /**
+     * @return A copy of the numbers, converted like {@link #getDouble(int)} does
+     */
+    public double[] toDoubleArray() {
+        double[] result = new double[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getDouble(i);
+        }
+        return result;
+    }
+    
+    /**
+     * @param index The index of the number
+     * @return A new {@link JsonPrimitive} holding the number
+     */
+    @Override
+    public JsonElement get(int index) {
+        return array != null ? array.get(index) : box(index);
+    }
+    
+    @Override
+    public int size() {
+        return array != null ? array.size() : length();
+    }
+    
+    @Override
+    public JsonElement set(int index, JsonElement element) {
+        return getAsJsonArray().set(index, element);
+    }
+    
+    @Override
+    public void add(int index, JsonElement element) {
+        getAsJsonArray().add(index, element);
+    }
+    
+    @Override
+    public JsonElement remove(int index) {
+        return getAsJsonArray().remove(index);
+    }
+    
+    @Override
+    public boolean isJsonArray() {
+        return true;
+    }
+    
+    /**
+     * Converts this array into a {@link JsonArray}, which this array is a view of from then on.
+     *
+     * @return The {@link JsonArray} holding the numbers of this array
+     */
+    @Override
+    public JsonArray getAsJsonArray() {
+        if (array == null) {
+            array = new JsonArray(this);
+        }
+        return array;
+    }
+    
+    @Override
+    public JsonElement clone() {
+        return array != null ? array.clone() : copy();
+    }
+    
+    /**
+     * @return An immutable copy of the array
+     */
+    @Override
+    public PersistentJsonArray freeze() {
+        return PersistentJsonArray.of(this);
+    }
+    
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        if (array != null) {
+            array.writeTo(writer);
+            return;
+        }
+        
+        writer.beginArray();
+        writeValues(writer);
+        writer.endArray();
+    }
+    
+    /**
+     * @return a JSON value-safe {@link String} representation of the array. In other words, it is
+     * safe to put this value after the key of a JSON datapoint: <code>"key":[toString]</code>
+     */
+    @Override
+    public String toString() {
+        return JsonWriter.toString(this);
+    }
+    
+    abstract int length();
+    
+    abstract int intAt(int index);
+    
+    abstract long longAt(int index);
+    
+    abstract double doubleAt(int index);
+    
+    abstract JsonPrimitive box(int index);
+    
+    abstract JsonNumberArray copy();
+    
+    abstract void writeValues(JsonWriter writer) throws IOException;
+}
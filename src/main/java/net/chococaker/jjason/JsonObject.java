@@ -15,14 +15,18 @@
  */
 package net.chococaker.jjason;
 
+import net.chococaker.jjason.util.TreeAccess;
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static net.chococaker.jjason.util.JsonUtil.convertNull;
-import static net.chococaker.jjason.util.JsonUtil.escape;
 
 /**
- * Represents a tree of {@link JsonElement JsonElements}.
+ * Represents a tree of {@link JsonElement JsonElements}. Members are kept in the order they were
+ * added in, which for objects that were read is the order of the document.
  *
  * @since 1.0
  */
@@ -36,13 +40,32 @@ public final class JsonObject implements JsonElement, Iterable<Map.Entry<String,
     
     private static final long serialVersionUID = 548123L;
     
-    private final Map<String, JsonElement> values = new HashMap<>();
+    static {
+        TreeAccess.setObjectAccess(JsonObject::lazy);
+    }
+    
+    private Map<String, JsonElement> values = new MemberMap();
+    // members which have not been built yet, null once all of them are in values. Its get builds
+    // a single member, and the values of its entries are only built once they are asked for.
+    // Members are built under the lock of the object, so that reads from several threads are as
+    // safe as those of an object that was built at once, and values is published to the threads
+    // that see this null.
+    private transient volatile Map<String, JsonElement> source;
+    
+    // an object whose members are only built once they are used, single members by get and all
+    // others by any other operation that needs them. Not public as the reader is its only user,
+    // through TreeAccess
+    static JsonObject lazy(Map<String, JsonElement> source) {
+        JsonObject object = new JsonObject();
+        object.source = source;
+        return object;
+    }
     
     /**
      * @return A set of values associated with the {@link JsonObject}.
      */
     public Set<String> keySet() {
-        return values.keySet();
+        return materialize().keySet();
     }
     
     /**
@@ -50,7 +73,19 @@ public final class JsonObject implements JsonElement, Iterable<Map.Entry<String,
      * @return The {@link JsonElement} of the specified key
      */
     public JsonElement get(String key) {
-        return values.get(key);
+        return source != null ? getLazily(key) : values.get(key);
+    }
+    
+    private synchronized JsonElement getLazily(String key) {
+        JsonElement value = values.get(key);
+        Map<String, JsonElement> source = this.source;
+        if (value == null && source != null) {
+            value = source.get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return value;
     }
     
     /**
@@ -85,6 +120,9 @@ public final class JsonObject implements JsonElement, Iterable<Map.Entry<String,
      * @return TRUE if there was a value at that key before this operation.
      */
     public boolean set(String key, JsonElement value) {
+        if (source != null) {
+            get(key); // builds the replaced member, if any
+        }
         return values.put(key, convertNull(value)) == null;
     }
     
@@ -93,7 +131,7 @@ public final class JsonObject implements JsonElement, Iterable<Map.Entry<String,
      * @return TRUE if a value was removed.
      */
     public boolean remove(String key) {
-        return values.remove(key) != null;
+        return materialize().remove(key) != null;
     }
     
     /**
@@ -104,29 +142,38 @@ public final class JsonObject implements JsonElement, Iterable<Map.Entry<String,
      */
     @Override
     public String toString() {
-        StringBuilder json = new StringBuilder();
-        json.append('{');
-        
-        String stringified = values.entrySet().stream()
-                .map(e -> '"' + escape(e.getKey()) + "\":" + e.getValue())
-                .collect(Collectors.joining(","));
-        
-        json.append(stringified)
-                .append('}');
-        
-        return json.toString();
+        return JsonWriter.toString(this);
+    }
+    
+    /**
+     * @return An immutable deep copy of the object
+     * @see PersistentJsonObject#of(JsonObject)
+     * @since 1.1
+     */
+    @Override
+    public PersistentJsonObject freeze() {
+        return PersistentJsonObject.of(this);
+    }
+    
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<String, JsonElement> member : this) {
+            writer.name(member.getKey()).write(member.getValue());
+        }
+        writer.endObject();
     }
     
     @Override
     @SuppressWarnings({"CloneDoesntCallSuperClone", "RedundantSuppression"})
     public JsonObject clone() {
-        Map<String, JsonElement> cloneValues = new HashMap<>();
+        JsonObject clone = new JsonObject();
         
         for (Map.Entry<String, JsonElement> elem : this) {
-            cloneValues.put(elem.getKey(), elem.getValue().clone());
+            clone.values.put(elem.getKey(), elem.getValue().clone());
         }
         
-        return new JsonObject(cloneValues);
+        return clone;
     }
     
     /**
@@ -135,18 +182,48 @@ public final class JsonObject implements JsonElement, Iterable<Map.Entry<String,
      */
     @Override
     public Iterator<Map.Entry<String, JsonElement>> iterator() {
-        return values.entrySet().iterator();
+        return materialize().entrySet().iterator();
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(values);
+        return Objects.hash(materialize());
     }
     
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         JsonObject other = (JsonObject) o;
-        return Objects.equals(values, other.values);
+        return Objects.equals(materialize(), other.materialize());
+    }
+    
+    // builds the members that are still missing in the order of the source, members that were
+    // built or set in the meantime are kept rather than built again
+    private Map<String, JsonElement> materialize() {
+        if (source != null)
+            materializeLazily();
+        return values;
+    }
+    
+    private synchronized void materializeLazily() {
+        Map<String, JsonElement> source = this.source;
+        if (source != null) {
+            Map<String, JsonElement> built = values;
+            values = new MemberMap();
+            for (Map.Entry<String, JsonElement> member : source.entrySet()) {
+                String key = member.getKey();
+                if (!values.containsKey(key)) {
+                    JsonElement existing = built.remove(key);
+                    values.put(key, existing != null ? existing : member.getValue());
+                }
+            }
+            values.putAll(built);
+            this.source = null;
+        }
+    }
+    
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        materialize();
+        out.defaultWriteObject();
     }
 }
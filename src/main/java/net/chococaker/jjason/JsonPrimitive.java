@@ -16,7 +16,10 @@
 package net.chococaker.jjason;
 
 import net.chococaker.jjason.util.JsonUtil;
+import net.chococaker.jjason.util.NumberWriter;
+import net.chococaker.jjason.writer.JsonWriter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Objects;
@@ -36,48 +39,76 @@ import java.util.Objects;
 public final class JsonPrimitive implements JsonElement {
     public JsonPrimitive(int value) {
         this.object = value;
+        this.text = null;
     }
     
     public JsonPrimitive(long value) {
         this.object = value;
+        this.text = null;
     }
     
     public JsonPrimitive(double value) {
         this.object = value;
+        this.text = null;
     }
     
     public JsonPrimitive(boolean value) {
         this.object = value;
+        this.text = null;
     }
     
     public JsonPrimitive(String value) {
         this.object = value;
+        this.text = null;
     }
     
     public JsonPrimitive(BigDecimal bigDecimal) {
         this.object = bigDecimal;
+        this.text = null;
     }
     
     public JsonPrimitive(BigInteger bigInteger) {
         this.object = bigInteger;
+        this.text = null;
+    }
+    
+    private JsonPrimitive(Object object, String text) {
+        this.object = object;
+        this.text = text;
     }
     
     private static final long serialVersionUID = 548123L;
     
     public static final JsonPrimitive NULL = new JsonPrimitive((BigInteger) null);
     
-    private final Object object;
+    // null until a lazily parsed number is first used. Decoding always produces the same
+    // immutable value, so it is safe to race on.
+    private Object object;
+    // the original text of a lazily parsed number, null otherwise
+    private final String text;
+    
+    /**
+     * Creates a number which keeps its text and is only parsed when its value is first used,
+     * using {@link JsonUtil#parseNumber(CharSequence)}. The text is written back as is when
+     * serialised.
+     *
+     * @param text A number, as specified by RFC 8259
+     * @return A lazily parsed numeric {@link JsonPrimitive}
+     */
+    public static JsonPrimitive lazyNumber(String text) {
+        return new JsonPrimitive(null, text);
+    }
     
     @Override
     public int hashCode() {
-        return Objects.hash(object);
+        return 31 + Objects.hashCode(get()); // Objects.hash without the varargs array
     }
     
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         JsonPrimitive jsonPrimitive = (JsonPrimitive) o;
-        return Objects.equals(object, jsonPrimitive.object);
+        return Objects.equals(get(), jsonPrimitive.get());
     }
     
     @Override
@@ -101,12 +132,43 @@ public final class JsonPrimitive implements JsonElement {
         }
     }
     
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        Object object = this.object;
+        if (object instanceof String) {
+            writer.value((String) object);
+        } else if (text != null) {
+            writer.rawValue(text);
+        } else if (object instanceof Integer || object instanceof Long) {
+            writer.value(((Number) object).longValue());
+        } else if (object instanceof Double) {
+            writer.value((double) (Double) object);
+        } else {
+            writer.rawValue(String.valueOf(object));
+        }
+    }
+    
     /**
      * @return A string that has not gone the escaping process to turn into valid JSON. The only
      * difference would be if the element held by the {@link JsonPrimitive} is a {@link String}.
      */
     public String toNonEscapedString() {
-        return "" + object;
+        if (text != null) {
+            return text;
+        }
+        
+        if (object instanceof Integer) {
+            char[] buf = new char[NumberWriter.MAX_INT_LENGTH];
+            return new String(buf, 0, NumberWriter.writeInt((Integer) object, buf, 0));
+        } else if (object instanceof Long) {
+            char[] buf = new char[NumberWriter.MAX_LONG_LENGTH];
+            return new String(buf, 0, NumberWriter.writeLong((Long) object, buf, 0));
+        } else if (object instanceof Double) {
+            char[] buf = new char[NumberWriter.MAX_DOUBLE_LENGTH];
+            return new String(buf, 0, NumberWriter.writeDouble((Double) object, buf, 0));
+        }
+        
+        return String.valueOf(object);
     }
     
     /**
@@ -114,10 +176,19 @@ public final class JsonPrimitive implements JsonElement {
      * or {@link BigDecimal}), a {@link String}, or null.
      */
     public Object get() {
-        return object;
+        Object o = object;
+        if (o == null && text != null) {
+            object = o = JsonUtil.parseNumber(text);
+        }
+        return o;
     }
     
     public boolean isNumeric() {
+        if (text != null) {
+            return true;
+        }
+        
+        Object object = get();
         return object instanceof Integer
                 || object instanceof Double
                 || object instanceof Long
@@ -126,6 +197,7 @@ public final class JsonPrimitive implements JsonElement {
     }
     
     public boolean isJavaPrimitive() {
+        Object object = get();
         return object instanceof Integer
                 || object instanceof Double
                 || object instanceof Long
@@ -133,26 +205,51 @@ public final class JsonPrimitive implements JsonElement {
     }
     
     public boolean getAsBoolean() {
-        return getAs(boolean.class);
+        return getAs(Boolean.class);
     }
     
+    // numbers are parsed into the narrowest type that holds them, so the numeric getters convert
+    // between number types. Whole numbers convert exactly, anything that would be truncated or
+    // wrapped throws.
+    
+    /**
+     * @throws IllegalStateException If the value is not a whole number within the range of an int
+     */
     public int getAsInt() {
-        return getAs(Integer.class);
+        Object object = get();
+        if (object instanceof Integer)
+            return (Integer) object;
+        return toInt(exactLong(object, "an int"));
     }
     
     public double getAsDouble() {
-        return getAs(Double.class);
+        return getAs(Number.class).doubleValue();
     }
     
+    /**
+     * @throws IllegalStateException If the value is not a whole number within the range of a long
+     */
     public long getAsLong() {
-        return getAs(Long.class);
+        return exactLong(get(), "a long");
     }
     
     public BigDecimal getAsBigDecimal() {
+        Object object = get();
+        if (object instanceof BigDecimal) {
+            return (BigDecimal) object;
+        }
+        
+        if (object instanceof Number) {
+            return new BigDecimal(toNonEscapedString());
+        }
         return getAs(BigDecimal.class);
     }
     
     public BigInteger getAsBigInteger() {
+        Object object = get();
+        if (object instanceof Integer || object instanceof Long) {
+            return BigInteger.valueOf(((Number) object).longValue());
+        }
         return getAs(BigInteger.class);
     }
     
@@ -160,6 +257,41 @@ public final class JsonPrimitive implements JsonElement {
         return getAs(String.class);
     }
     
+    // the value of a whole number within the range of a long
+    private long exactLong(Object object, String expected) {
+        if (object instanceof Integer || object instanceof Long)
+            return ((Number) object).longValue();
+        
+        Number number = getAs(Number.class);
+        try {
+            if (number instanceof BigDecimal)
+                return ((BigDecimal) number).longValueExact();
+            if (number instanceof BigInteger)
+                return new BigDecimal((BigInteger) number).longValueExact();
+            return toLong(number.doubleValue());
+        } catch (ArithmeticException e) {
+            throw notA(toNonEscapedString(), expected);
+        }
+    }
+    
+    // conversions of the number arrays, which throw like the getters do
+    
+    static int toInt(long value) {
+        if ((int) value != value)
+            throw notA(String.valueOf(value), "an int");
+        return (int) value;
+    }
+    
+    static long toLong(double value) {
+        if (!(value >= -0x1p63 && value < 0x1p63) || (long) value != value)
+            throw notA(String.valueOf(value), "a long");
+        return (long) value;
+    }
+    
+    private static IllegalStateException notA(String number, String expected) {
+        return new IllegalStateException("Number " + number + " is not " + expected);
+    }
+    
     /**
      * Retrieves the wrapped object as type {@link T}.
      *
@@ -167,7 +299,7 @@ public final class JsonPrimitive implements JsonElement {
      */
     public <T> T getAs(Class<T> type) {
         try {
-            return type.cast(object);
+            return type.cast(get());
         } catch (ClassCastException e) {
             e.printStackTrace();
             throw new IllegalStateException("Wrapped object is not instance of " + type.getName());
@@ -179,6 +311,6 @@ public final class JsonPrimitive implements JsonElement {
      * @return Whether the wrapped object is of a certain type.
      */
     public boolean holdsType(Class<?> clazz) {
-        return clazz.isInstance(object);
+        return clazz.isInstance(get());
     }
 }
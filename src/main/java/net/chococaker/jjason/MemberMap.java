@@ -0,0 +1,253 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+// The members of a JsonObject, in insertion order. Small objects keep them in two parallel arrays
+// which are searched linearly; objects with more than MAX_COMPACT_SIZE members move them into a
+// LinkedHashMap.
+final class MemberMap extends AbstractMap<String, JsonElement> implements Serializable {
+    private static final long serialVersionUID = 548123L;
+    
+    static final int MAX_COMPACT_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 4;
+    
+    private String[] keys;
+    private JsonElement[] values;
+    private int size;
+    private LinkedHashMap<String, JsonElement> map; // null while the object is small
+    private transient int modCount; // counts members added to or removed from the arrays
+    
+    @Override
+    public int size() {
+        return map != null ? map.size() : size;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return map != null ? map.containsKey(key) : indexOf(key) != -1;
+    }
+    
+    @Override
+    public JsonElement get(Object key) {
+        if (map != null)
+            return map.get(key);
+        int i = indexOf(key);
+        return i == -1 ? null : values[i];
+    }
+    
+    @Override
+    public JsonElement put(String key, JsonElement value) {
+        if (map != null)
+            return map.put(key, value);
+        
+        int i = indexOf(key);
+        if (i != -1) {
+            JsonElement old = values[i];
+            values[i] = value;
+            return old;
+        }
+        
+        modCount++;
+        if (size == MAX_COMPACT_SIZE) {
+            map = new LinkedHashMap<>(MAX_COMPACT_SIZE * 4);
+            for (int j = 0; j < size; j++)
+                map.put(keys[j], values[j]);
+            keys = null;
+            values = null;
+            size = 0;
+            return map.put(key, value);
+        }
+        
+        if (keys == null) {
+            keys = new String[INITIAL_CAPACITY];
+            values = new JsonElement[INITIAL_CAPACITY];
+        } else if (size == keys.length) {
+            keys = Arrays.copyOf(keys, MAX_COMPACT_SIZE);
+            values = Arrays.copyOf(values, MAX_COMPACT_SIZE);
+        }
+        keys[size] = key;
+        values[size++] = value;
+        return null;
+    }
+    
+    @Override
+    public JsonElement remove(Object key) {
+        if (map != null)
+            return map.remove(key);
+        
+        int i = indexOf(key);
+        if (i == -1)
+            return null;
+        JsonElement old = values[i];
+        removeAt(i);
+        return old;
+    }
+    
+    @Override
+    public void clear() {
+        if (map != null) {
+            map.clear();
+        } else if (size > 0) {
+            modCount++;
+            Arrays.fill(keys, 0, size, null);
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+    }
+    
+    @Override
+    public Set<Entry<String, JsonElement>> entrySet() {
+        return map != null ? map.entrySet() : new CompactEntries();
+    }
+    
+    // whether the members are still kept in the arrays
+    boolean isCompact() {
+        return map == null;
+    }
+    
+    // keys are compared by identity first, so keys shared through a KeyCache are found quickly
+    private int indexOf(Object key) {
+        String[] keys = this.keys;
+        for (int i = 0; i < size; i++) {
+            String k = keys[i];
+            if (k == key || key != null && key.equals(k))
+                return i;
+        }
+        return -1;
+    }
+    
+    private void removeAt(int i) {
+        modCount++;
+        int moved = size - i - 1;
+        System.arraycopy(keys, i + 1, keys, i, moved);
+        System.arraycopy(values, i + 1, values, i, moved);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+    }
+    
+    // a view of the members while they are in the arrays
+    private final class CompactEntries extends AbstractSet<Entry<String, JsonElement>> {
+        @Override
+        public int size() {
+            return MemberMap.this.size();
+        }
+        
+        @Override
+        public Iterator<Entry<String, JsonElement>> iterator() {
+            return new Iterator<Entry<String, JsonElement>>() {
+                private int next;
+                private int last = -1;
+                private int expectedModCount = modCount;
+                
+                // true after a modification, so that next() reports it like other iterators do
+                @Override
+                public boolean hasNext() {
+                    return next < size || modCount != expectedModCount;
+                }
+                
+                @Override
+                public Entry<String, JsonElement> next() {
+                    checkForComodification();
+                    if (next >= size)
+                        throw new NoSuchElementException();
+                    last = next++;
+                    return new CompactEntry(last);
+                }
+                
+                @Override
+                public void remove() {
+                    if (last == -1)
+                        throw new IllegalStateException();
+                    checkForComodification();
+                    removeAt(last);
+                    next = last;
+                    last = -1;
+                    expectedModCount = modCount;
+                }
+                
+                private void checkForComodification() {
+                    if (modCount != expectedModCount)
+                        throw new ConcurrentModificationException();
+                }
+            };
+        }
+    }
+    
+    private final class CompactEntry implements Map.Entry<String, JsonElement> {
+        CompactEntry(int index) {
+            this.key = keys[index];
+            this.index = index;
+        }
+        
+        private final String key;
+        private final int index;
+        
+        @Override
+        public String getKey() {
+            return key;
+        }
+        
+        @Override
+        public JsonElement getValue() {
+            return isCurrent() ? values[index] : get(key);
+        }
+        
+        @Override
+        public JsonElement setValue(JsonElement value) {
+            if (!isCurrent())
+                return put(key, value);
+            JsonElement old = values[index];
+            values[index] = value;
+            return old;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return key.equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+        
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+        
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+        
+        // whether the member is still at the index it was iterated at
+        private boolean isCurrent() {
+            return map == null && index < size && keys[index] == key;
+        }
+    }
+}
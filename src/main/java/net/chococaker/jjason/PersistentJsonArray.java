@@ -0,0 +1,363 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static net.chococaker.jjason.PersistentJsonObject.mutable;
+import static net.chococaker.jjason.PersistentJsonObject.persistent;
+import static net.chococaker.jjason.util.JsonUtil.convertNull;
+
+/**
+ * An immutable JSON array, stored in a 32-way trie with the last elements kept in a separate tail.
+ * {@link #with(int, JsonElement)} returns a new array in O(log n) and {@link #append(JsonElement)}
+ * in amortized constant time, both sharing everything but the changed path with this array.
+ * {@link #clone()} returns the array itself.
+ * <p>
+ * Every element of the array is immutable as well: {@link JsonObject JsonObjects} and
+ * {@link JsonArray JsonArrays} are converted to persistent ones when they are added.
+ * <p>
+ * {@link #isJsonArray()} is true, and {@link #getAsJsonArray()} returns a mutable copy. Use
+ * {@link #getAsPersistentJsonArray()} and the persistent getters to navigate without copying.
+ *
+ * @see PersistentJsonObject
+ * @since 1.1
+ */
+public final class PersistentJsonArray implements JsonElement, Iterable<JsonElement> {
+    private PersistentJsonArray(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+    
+    private static final long serialVersionUID = 548123L;
+    
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    
+    private static final PersistentJsonArray EMPTY =
+            new PersistentJsonArray(0, BITS, new Object[WIDTH], new Object[0]);
+    
+    private final int size;
+    private final int shift; // the number of bits below the root level
+    // inner nodes hold WIDTH child nodes, leaves hold WIDTH elements
+    private final Object[] root;
+    private final Object[] tail; // the last 1 to WIDTH elements, not yet in the trie
+    
+    // all computed once on first use, racing threads compute the same values. hashIsZero tells a
+    // hash code of 0 apart from one that was not computed yet
+    private transient int hash;
+    private transient boolean hashIsZero;
+    private transient String json;
+    
+    /**
+     * @return The empty array
+     */
+    public static PersistentJsonArray empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Converts a list of elements and all of their values into persistent elements.
+     *
+     * @param elements The elements, such as a {@link JsonArray}
+     * @return A persistent array with the same elements
+     */
+    public static PersistentJsonArray of(List<? extends JsonElement> elements) {
+        PersistentJsonArray result = EMPTY;
+        for (JsonElement element : elements) {
+            result = result.append(element);
+        }
+        return result;
+    }
+    
+    /**
+     * @return A mutable deep copy of this array
+     */
+    public JsonArray toJsonArray() {
+        JsonArray result = new JsonArray();
+        result.ensureCapacity(size);
+        for (JsonElement element : this) {
+            result.add(mutable(element));
+        }
+        return result;
+    }
+    
+    /**
+     * @param index The index of the element
+     * @return The element at the index
+     * @throws IndexOutOfBoundsException If the index is out of range
+     */
+    public JsonElement get(int index) {
+        return (JsonElement) leafFor(index)[index & MASK];
+    }
+    
+    /**
+     * @param index The index of the element
+     * @return The {@link JsonPrimitive} at the index
+     */
+    public JsonPrimitive getAsJsonPrimitive(int index) {
+        return get(index).getAsJsonPrimitive();
+    }
+    
+    /**
+     * @param index The index of the element
+     * @return The {@link PersistentJsonObject} at the index
+     */
+    public PersistentJsonObject getAsPersistentJsonObject(int index) {
+        return get(index).getAsPersistentJsonObject();
+    }
+    
+    /**
+     * @param index The index of the element
+     * @return The {@link PersistentJsonArray} at the index
+     */
+    public PersistentJsonArray getAsPersistentJsonArray(int index) {
+        return get(index).getAsPersistentJsonArray();
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * @param index The index of the element to replace
+     * @param value The new element, which is converted into a persistent element if it is mutable
+     * @return An array with the element replaced, which shares all other elements with this array
+     * @throws IndexOutOfBoundsException If the index is out of range
+     */
+    public PersistentJsonArray with(int index, JsonElement value) {
+        Object[] leaf = leafFor(index);
+        value = persistent(convertNull(value));
+        if (leaf[index & MASK] == value)
+            return this;
+        
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = value;
+            return new PersistentJsonArray(size, shift, root, newTail);
+        }
+        return new PersistentJsonArray(size, shift, with(shift, root, index, value), tail);
+    }
+    
+    /**
+     * @param value The element to add, which is converted into a persistent element if it is
+     *              mutable
+     * @return An array with the element added to its end, which shares all other elements with
+     * this array
+     */
+    public PersistentJsonArray append(JsonElement value) {
+        value = persistent(convertNull(value));
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = value;
+            return new PersistentJsonArray(size + 1, shift, root, newTail);
+        }
+        
+        // the tail is full and moves into the trie
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = path(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root);
+        }
+        return new PersistentJsonArray(size + 1, newShift, newRoot, new Object[]{value});
+    }
+    
+    @Override
+    public Iterator<JsonElement> iterator() {
+        return new Iterator<JsonElement>() {
+            private int index;
+            private Object[] leaf;
+            
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+            
+            @Override
+            public JsonElement next() {
+                if (index >= size)
+                    throw new NoSuchElementException();
+                if ((index & MASK) == 0)
+                    leaf = leafFor(index);
+                return (JsonElement) leaf[index++ & MASK];
+            }
+        };
+    }
+    
+    /**
+     * @return True, as this is a JSON array
+     */
+    @Override
+    public boolean isJsonArray() {
+        return true;
+    }
+    
+    /**
+     * Converts this array into a {@link JsonArray}, like {@link #toJsonArray()} does. Changes to
+     * the returned array do not affect this one.
+     *
+     * @return A mutable deep copy of this array
+     * @see #getAsPersistentJsonArray()
+     */
+    @Override
+    public JsonArray getAsJsonArray() {
+        return toJsonArray();
+    }
+    
+    /**
+     * @return This array, as it cannot be changed
+     */
+    @Override
+    @SuppressWarnings({"CloneDoesntCallSuperClone", "RedundantSuppression"})
+    public PersistentJsonArray clone() {
+        return this;
+    }
+    
+    /**
+     * @return This array, as it cannot be changed
+     */
+    @Override
+    public PersistentJsonArray freeze() {
+        return this;
+    }
+    
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        if (json != null) {
+            writer.rawValue(json);
+            return;
+        }
+        
+        writer.beginArray();
+        for (JsonElement element : this) {
+            writer.write(element);
+        }
+        writer.endArray();
+    }
+    
+    /**
+     * @return a JSON value-safe {@link String} representation of the array. In other words, it is
+     * safe to put this value after the key of a JSON datapoint: <code>"key":[toString]</code>.
+     * It is built once and reused by later calls and writes of this array.
+     */
+    @Override
+    public String toString() {
+        String json = this.json;
+        if (json == null) {
+            this.json = json = JsonWriter.toString(this);
+        }
+        return json;
+    }
+    
+    // the same as the hash code of a List with the same elements, computed once
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0 && !hashIsZero) {
+            hash = 1;
+            for (JsonElement element : this) {
+                hash = 31 * hash + element.hashCode();
+            }
+            if (hash == 0)
+                hashIsZero = true;
+            else
+                this.hash = hash;
+        }
+        return hash;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PersistentJsonArray other = (PersistentJsonArray) o;
+        if (size != other.size || hashCode() != other.hashCode()) return false;
+        Iterator<JsonElement> it = other.iterator();
+        for (JsonElement element : this) {
+            if (!element.equals(it.next())) return false;
+        }
+        return true;
+    }
+    
+    // the index of the first element in the tail
+    private int tailOffset() {
+        return size < WIDTH ? 0 : (size - 1) >>> BITS << BITS;
+    }
+    
+    private Object[] leafFor(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (index >= tailOffset())
+            return tail;
+        
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[index >>> level & MASK];
+        }
+        return node;
+    }
+    
+    private static Object[] with(int level, Object[] node, int index, JsonElement value) {
+        Object[] result = node.clone();
+        if (level == 0) {
+            result[index & MASK] = value;
+        } else {
+            int i = index >>> level & MASK;
+            result[i] = with(level - BITS, (Object[]) node[i], index, value);
+        }
+        return result;
+    }
+    
+    // copies the path to the last leaf, adding the tail as that leaf
+    private Object[] pushTail(int level, Object[] parent) {
+        int i = (size - 1) >>> level & MASK;
+        Object[] result = parent.clone();
+        if (level == BITS) {
+            result[i] = tail;
+        } else {
+            Object[] child = (Object[]) parent[i];
+            result[i] = child != null ? pushTail(level - BITS, child) : path(level - BITS, tail);
+        }
+        return result;
+    }
+    
+    // a new branch down to the given leaf
+    private static Object[] path(int level, Object[] leaf) {
+        if (level == 0)
+            return leaf;
+        Object[] result = new Object[WIDTH];
+        result[0] = path(level - BITS, leaf);
+        return result;
+    }
+}
@@ -0,0 +1,587 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static net.chococaker.jjason.util.JsonUtil.convertNull;
+
+/**
+ * An immutable JSON object, stored in a hash array mapped trie. {@link #with(String, JsonElement)}
+ * and {@link #without(String)} return a new object in O(log n), which shares everything but the
+ * changed path with this one, and {@link #clone()} returns the object itself.
+ * <p>
+ * Every value of the object is immutable as well: {@link JsonObject JsonObjects} and
+ * {@link JsonArray JsonArrays} are converted to persistent ones when they are added. Members are
+ * iterated and written in the order they were added in, and keep their place when their value is
+ * replaced.
+ * <p>
+ * {@link #isJsonObject()} is true, and {@link #getAsJsonObject()} returns a mutable copy. Use
+ * {@link #getAsPersistentJsonObject()} and the persistent getters to navigate without copying.
+ *
+ * @see PersistentJsonArray
+ * @since 1.1
+ */
+public final class PersistentJsonObject
+        implements JsonElement, Iterable<Map.Entry<String, JsonElement>> {
+    private PersistentJsonObject(Node root, int size, long nextOrder) {
+        this.root = root;
+        this.size = size;
+        this.nextOrder = nextOrder;
+    }
+    
+    private static final long serialVersionUID = 548123L;
+    
+    private static final PersistentJsonObject EMPTY = new PersistentJsonObject(null, 0, 0);
+    
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    
+    private static final Comparator<Member> INSERTION_ORDER =
+            Comparator.comparingLong(member -> member.order);
+    
+    private final Node root; // null if the object is empty
+    private final int size;
+    private final long nextOrder; // the order of the next member that is added
+    
+    // all computed once on first use, racing threads compute the same values. hashIsZero tells a
+    // hash code of 0 apart from one that was not computed yet
+    private transient int hash;
+    private transient boolean hashIsZero;
+    private transient String json;
+    
+    /**
+     * @return The empty object
+     */
+    public static PersistentJsonObject empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Converts an object and all of its values into persistent elements.
+     *
+     * @param object The object to convert
+     * @return A persistent object with the same members, in the same order
+     */
+    public static PersistentJsonObject of(JsonObject object) {
+        PersistentJsonObject result = EMPTY;
+        for (Map.Entry<String, JsonElement> member : object) {
+            result = result.with(member.getKey(), member.getValue());
+        }
+        return result;
+    }
+    
+    /**
+     * @return A mutable deep copy of this object
+     */
+    public JsonObject toJsonObject() {
+        JsonObject result = new JsonObject();
+        forEach((key, value) -> result.set(key, mutable(value)));
+        return result;
+    }
+    
+    /**
+     * @param key The key for the desired value
+     * @return The {@link JsonElement} of the specified key, or null if there is none
+     */
+    public JsonElement get(String key) {
+        return root == null ? null : root.find(0, hash(key), key);
+    }
+    
+    /**
+     * @param key The key for the desired value
+     * @return The {@link JsonPrimitive} of the specified key
+     */
+    public JsonPrimitive getAsJsonPrimitive(String key) {
+        return get(key).getAsJsonPrimitive();
+    }
+    
+    /**
+     * @param key The key for the desired value
+     * @return The {@link PersistentJsonObject} of the specified key
+     */
+    public PersistentJsonObject getAsPersistentJsonObject(String key) {
+        return get(key).getAsPersistentJsonObject();
+    }
+    
+    /**
+     * @param key The key for the desired value
+     * @return The {@link PersistentJsonArray} of the specified key
+     */
+    public PersistentJsonArray getAsPersistentJsonArray(String key) {
+        return get(key).getAsPersistentJsonArray();
+    }
+    
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * @param key   The key
+     * @param value The value, which is converted into a persistent element if it is mutable
+     * @return An object with the value set at the key, which shares all other members with this
+     * object. This object itself if it already has the value at the key.
+     */
+    public PersistentJsonObject with(String key, JsonElement value) {
+        Member member = new Member(key, persistent(convertNull(value)), nextOrder);
+        boolean[] added = new boolean[1];
+        Node node = root == null ? BitmapNode.EMPTY : root;
+        Node newRoot = node.with(0, hash(key), member, added);
+        if (newRoot == root)
+            return this;
+        if (added[0])
+            return new PersistentJsonObject(newRoot, size + 1, nextOrder + 1);
+        return new PersistentJsonObject(newRoot, size, nextOrder);
+    }
+    
+    /**
+     * @param key The key
+     * @return An object without the key, which shares all other members with this object. This
+     * object itself if it does not have the key.
+     */
+    public PersistentJsonObject without(String key) {
+        if (root == null)
+            return this;
+        Node newRoot = root.without(0, hash(key), key);
+        if (newRoot == root)
+            return this;
+        return newRoot == null ? EMPTY : new PersistentJsonObject(newRoot, size - 1, nextOrder);
+    }
+    
+    /**
+     * Calls the action for every member of the object, in the order they were added in.
+     *
+     * @param action Called with the key and value of each member
+     */
+    public void forEach(BiConsumer<String, JsonElement> action) {
+        for (Member member : orderedMembers()) {
+            action.accept(member.key, member.value);
+        }
+    }
+    
+    /**
+     * @return An {@link Iterator} for the members of the object, in the order they were added in
+     */
+    @Override
+    public Iterator<Map.Entry<String, JsonElement>> iterator() {
+        return Arrays.<Map.Entry<String, JsonElement>>asList(orderedMembers()).iterator();
+    }
+    
+    /**
+     * @return True, as this is a JSON object
+     */
+    @Override
+    public boolean isJsonObject() {
+        return true;
+    }
+    
+    /**
+     * Converts this object into a {@link JsonObject}, like {@link #toJsonObject()} does. Changes to
+     * the returned object do not affect this one.
+     *
+     * @return A mutable deep copy of this object
+     * @see #getAsPersistentJsonObject()
+     */
+    @Override
+    public JsonObject getAsJsonObject() {
+        return toJsonObject();
+    }
+    
+    /**
+     * @return This object, as it cannot be changed
+     */
+    @Override
+    @SuppressWarnings({"CloneDoesntCallSuperClone", "RedundantSuppression"})
+    public PersistentJsonObject clone() {
+        return this;
+    }
+    
+    /**
+     * @return This object, as it cannot be changed
+     */
+    @Override
+    public PersistentJsonObject freeze() {
+        return this;
+    }
+    
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        if (json != null) {
+            writer.rawValue(json);
+            return;
+        }
+        
+        writer.beginObject();
+        for (Member member : orderedMembers()) {
+            writer.name(member.key).write(member.value);
+        }
+        writer.endObject();
+    }
+    
+    /**
+     * @return a JSON value-safe {@link String} representation of the object. In other words, it is
+     * safe to put this value after the key of a JSON datapoint: <code>"key":[toString]</code>.
+     * It is built once and reused by later calls and writes of this object.
+     */
+    @Override
+    public String toString() {
+        String json = this.json;
+        if (json == null) {
+            this.json = json = JsonWriter.toString(this);
+        }
+        return json;
+    }
+    
+    // the same as the hash code of a Map with the same members, computed once
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0 && !hashIsZero) {
+            for (Member member : members()) {
+                hash += member.hashCode();
+            }
+            if (hash == 0)
+                hashIsZero = true;
+            else
+                this.hash = hash;
+        }
+        return hash;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PersistentJsonObject other = (PersistentJsonObject) o;
+        if (size != other.size || hashCode() != other.hashCode()) return false;
+        for (Member member : members()) {
+            if (!member.value.equals(other.get(member.key))) return false;
+        }
+        return true;
+    }
+    
+    // converts mutable containers into persistent ones
+    static JsonElement persistent(JsonElement element) {
+        if (element instanceof JsonObject)
+            return of((JsonObject) element);
+        if (element instanceof JsonArray)
+            return PersistentJsonArray.of((JsonArray) element);
+        if (element instanceof JsonNumberArray)
+            return PersistentJsonArray.of((JsonNumberArray) element);
+        return element;
+    }
+    
+    // converts persistent containers into mutable ones
+    static JsonElement mutable(JsonElement element) {
+        if (element instanceof PersistentJsonObject)
+            return ((PersistentJsonObject) element).toJsonObject();
+        if (element instanceof PersistentJsonArray)
+            return ((PersistentJsonArray) element).toJsonArray();
+        return element;
+    }
+    
+    // the members in the order of the trie
+    private Member[] members() {
+        Member[] members = new Member[size];
+        if (root != null)
+            root.collect(members, 0);
+        return members;
+    }
+    
+    // the members in the order they were added in
+    private Member[] orderedMembers() {
+        Member[] members = members();
+        Arrays.sort(members, INSERTION_ORDER);
+        return members;
+    }
+    
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ h >>> 16;
+    }
+    
+    private static int bit(int hash, int shift) {
+        return 1 << (hash >>> shift & MASK);
+    }
+    
+    // a member of the object, and its place in the order they were added in
+    private static final class Member implements Map.Entry<String, JsonElement>, Serializable {
+        Member(String key, JsonElement value, long order) {
+            this.key = key;
+            this.value = value;
+            this.order = order;
+        }
+        
+        private static final long serialVersionUID = 548123L;
+        
+        final String key;
+        final JsonElement value;
+        final long order;
+        
+        // the member with another value, in the same place
+        Member replace(JsonElement value) {
+            return new Member(key, value, order);
+        }
+        
+        @Override
+        public String getKey() {
+            return key;
+        }
+        
+        @Override
+        public JsonElement getValue() {
+            return value;
+        }
+        
+        @Override
+        public JsonElement setValue(JsonElement value) {
+            throw new UnsupportedOperationException();
+        }
+        
+        // as specified by Map.Entry
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) return false;
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return key.equals(other.getKey()) && value.equals(other.getValue());
+        }
+        
+        @Override
+        public String toString() {
+            return key + '=' + value;
+        }
+    }
+    
+    private abstract static class Node implements Serializable {
+        private static final long serialVersionUID = 548123L;
+        
+        abstract JsonElement find(int shift, int hash, String key);
+        
+        // sets added[0] if the key is new, a member that is replaced keeps its order
+        abstract Node with(int shift, int hash, Member member, boolean[] added);
+        
+        // returns null if the node becomes empty
+        abstract Node without(int shift, int hash, String key);
+        
+        // copies the members into the array from the index on, returning the index after them
+        abstract int collect(Member[] members, int index);
+    }
+    
+    // up to 32 members or subtries, selected by 5 bits of the hash. The array holds a Member or a
+    // subtrie Node for each set bit of the bitmap.
+    private static final class BitmapNode extends Node {
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+        
+        private static final long serialVersionUID = 548123L;
+        
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+        
+        final int bitmap;
+        final Object[] array;
+        
+        @Override
+        JsonElement find(int shift, int hash, String key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0)
+                return null;
+            
+            Object entry = array[index(bit)];
+            if (entry instanceof Node)
+                return ((Node) entry).find(shift + BITS, hash, key);
+            Member member = (Member) entry;
+            return key.equals(member.key) ? member.value : null;
+        }
+        
+        @Override
+        Node with(int shift, int hash, Member member, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] result = new Object[array.length + 1];
+                System.arraycopy(array, 0, result, 0, i);
+                result[i] = member;
+                System.arraycopy(array, i, result, i + 1, array.length - i);
+                return new BitmapNode(bitmap | bit, result);
+            }
+            
+            Object entry = array[i];
+            if (entry instanceof Node) {
+                Node child = ((Node) entry).with(shift + BITS, hash, member, added);
+                return child == entry ? this : set(i, child);
+            }
+            Member existing = (Member) entry;
+            if (existing.key.equals(member.key)) {
+                if (existing.value == member.value)
+                    return this;
+                return set(i, existing.replace(member.value));
+            }
+            
+            added[0] = true;
+            return set(i, pair(shift + BITS, existing, hash, member));
+        }
+        
+        @Override
+        Node without(int shift, int hash, String key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0)
+                return this;
+            
+            int i = index(bit);
+            Object entry = array[i];
+            if (entry instanceof Node) {
+                Node child = ((Node) entry).without(shift + BITS, hash, key);
+                if (child == entry)
+                    return this;
+                if (child != null)
+                    return set(i, child);
+            } else if (!key.equals(((Member) entry).key)) {
+                return this;
+            }
+            
+            if (bitmap == bit)
+                return null;
+            Object[] result = new Object[array.length - 1];
+            System.arraycopy(array, 0, result, 0, i);
+            System.arraycopy(array, i + 1, result, i, result.length - i);
+            return new BitmapNode(bitmap & ~bit, result);
+        }
+        
+        @Override
+        int collect(Member[] members, int index) {
+            for (Object entry : array) {
+                if (entry instanceof Node)
+                    index = ((Node) entry).collect(members, index);
+                else
+                    members[index++] = (Member) entry;
+            }
+            return index;
+        }
+        
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & bit - 1);
+        }
+        
+        private BitmapNode set(int i, Object entry) {
+            Object[] result = array.clone();
+            result[i] = entry;
+            return new BitmapNode(bitmap, result);
+        }
+        
+        // a subtrie holding two members
+        private static Node pair(int shift, Member member1, int hash2, Member member2) {
+            int hash1 = hash(member1.key);
+            if (hash1 == hash2)
+                return new CollisionNode(hash1, new Member[]{member1, member2});
+            
+            boolean[] added = new boolean[1];
+            return EMPTY.with(shift, hash1, member1, added).with(shift, hash2, member2, added);
+        }
+    }
+    
+    // members whose keys have the same hash
+    private static final class CollisionNode extends Node {
+        CollisionNode(int hash, Member[] members) {
+            this.hash = hash;
+            this.members = members;
+        }
+        
+        private static final long serialVersionUID = 548123L;
+        
+        final int hash;
+        final Member[] members;
+        
+        @Override
+        JsonElement find(int shift, int hash, String key) {
+            int i = indexOf(key);
+            return i == -1 ? null : members[i].value;
+        }
+        
+        @Override
+        Node with(int shift, int hash, Member member, boolean[] added) {
+            if (hash != this.hash) {
+                return new BitmapNode(bit(this.hash, shift), new Object[]{this})
+                        .with(shift, hash, member, added);
+            }
+            
+            int i = indexOf(member.key);
+            if (i != -1) {
+                if (members[i].value == member.value)
+                    return this;
+                Member[] newMembers = members.clone();
+                newMembers[i] = members[i].replace(member.value);
+                return new CollisionNode(hash, newMembers);
+            }
+            
+            added[0] = true;
+            Member[] newMembers = Arrays.copyOf(members, members.length + 1);
+            newMembers[members.length] = member;
+            return new CollisionNode(hash, newMembers);
+        }
+        
+        @Override
+        Node without(int shift, int hash, String key) {
+            int i = indexOf(key);
+            if (i == -1)
+                return this;
+            if (members.length == 1)
+                return null;
+            
+            Member[] newMembers = new Member[members.length - 1];
+            System.arraycopy(members, 0, newMembers, 0, i);
+            System.arraycopy(members, i + 1, newMembers, i, newMembers.length - i);
+            return new CollisionNode(hash, newMembers);
+        }
+        
+        @Override
+        int collect(Member[] members, int index) {
+            System.arraycopy(this.members, 0, members, index, this.members.length);
+            return index + this.members.length;
+        }
+        
+        private int indexOf(String key) {
+            for (int i = 0; i < members.length; i++) {
+                if (members[i].key.equals(key))
+                    return i;
+            }
+            return -1;
+        }
+    }
+}
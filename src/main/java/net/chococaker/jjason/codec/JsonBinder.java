@@ -0,0 +1,580 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.codec;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.reader.JsonParser;
+import net.chococaker.jjason.reader.JsonToken;
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link JsonCodec}s at runtime, for classes that cannot be annotated with {@link JsonType}.
+ * A class is introspected once, when its codec is first requested, and its fields are then read and
+ * written through cached {@link MethodHandle}s, straight from the parser and to the writer.
+ * <p>
+ * Classes are bound like {@link JsonType} classes, except that private and final fields are
+ * accessed directly instead of through getters and setters. Classes annotated with
+ * {@link JsonType} use their generated codec if it is on the class path.
+ *
+ * @since 1.1
+ */
+public final class JsonBinder {
+    private JsonBinder() {
+    }
+    
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    
+    // Class.getRecordComponents() and RecordComponent.getName(), which are new in Java 16 and
+    // looked up reflectively, so that this runs on Java 8. Both are null without records.
+    private static final Method RECORD_COMPONENTS;
+    private static final Method COMPONENT_NAME;
+    
+    static {
+        Method components;
+        Method name;
+        try {
+            components = Class.class.getMethod("getRecordComponents");
+            name = components.getReturnType().getComponentType().getMethod("getName");
+        } catch (NoSuchMethodException e) {
+            components = null;
+            name = null;
+        }
+        RECORD_COMPONENTS = components;
+        COMPONENT_NAME = name;
+    }
+    
+    private static final ClassValue<JsonCodec<?>> CODECS = new ClassValue<JsonCodec<?>>() {
+        @Override
+        protected JsonCodec<?> computeValue(Class<?> type) {
+            JsonCodec<?> codec = builtIn(type);
+            if (codec == null)
+                codec = generated(type);
+            return codec != null ? codec : new BoundCodec(type);
+        }
+    };
+    
+    /**
+     * @param type The class to read and write
+     * @return The codec of the class, which is built on the first call and cached afterwards
+     * @throws IllegalArgumentException If the class or one of its fields cannot be bound
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonCodec<T> codec(Class<T> type) {
+        return (JsonCodec<T>) CODECS.get(type);
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static JsonCodec<?> builtIn(Class<?> type) {
+        if (type == String.class)
+            return JsonCodecs.STRING;
+        if (type == Boolean.class || type == boolean.class)
+            return JsonCodecs.BOOLEAN;
+        if (type == Character.class || type == char.class)
+            return JsonCodecs.CHARACTER;
+        if (type == Byte.class || type == byte.class)
+            return JsonCodecs.BYTE;
+        if (type == Short.class || type == short.class)
+            return JsonCodecs.SHORT;
+        if (type == Integer.class || type == int.class)
+            return JsonCodecs.INTEGER;
+        if (type == Long.class || type == long.class)
+            return JsonCodecs.LONG;
+        if (type == Float.class || type == float.class)
+            return JsonCodecs.FLOAT;
+        if (type == Double.class || type == double.class)
+            return JsonCodecs.DOUBLE;
+        if (type == BigInteger.class)
+            return JsonCodecs.BIG_INTEGER;
+        if (type == BigDecimal.class)
+            return JsonCodecs.BIG_DECIMAL;
+        if (type.isEnum())
+            return JsonCodecs.enumCodec((Class<Enum>) type);
+        if (JsonElement.class.isAssignableFrom(type))
+            return JsonCodecs.element((Class<JsonElement>) type);
+        return null;
+    }
+    
+    // the INSTANCE of the codec generated for a @JsonType class, named as described there
+    private static JsonCodec<?> generated(Class<?> type) {
+        if (!type.isAnnotationPresent(JsonType.class))
+            return null;
+        
+        String name = type.getName();
+        int dot = name.lastIndexOf('.');
+        String codecName = name.substring(0, dot + 1)
+                + name.substring(dot + 1).replace('$', '_') + "Codec";
+        try {
+            Class<?> codec = Class.forName(codecName, true, type.getClassLoader());
+            return (JsonCodec<?>) codec.getField("INSTANCE").get(null);
+        } catch (ReflectiveOperationException e) {
+            return null; // the processor did not run, so the class is bound like any other
+        }
+    }
+    
+    // the codec of the generic type of a field
+    private static JsonCodec<?> codec(Type type, Field field) {
+        if (type instanceof Class) {
+            Class<?> c = (Class<?>) type;
+            JsonCodec<?> codec = builtIn(c);
+            // bound classes are looked up on first use, as they may refer back to this one
+            return codec != null ? codec : new DeferredCodec(c);
+        }
+        
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type[] arguments = parameterized.getActualTypeArguments();
+            if (parameterized.getRawType() == List.class)
+                return JsonCodecs.list(codec(arguments[0], field));
+            if (parameterized.getRawType() == Map.class && arguments[0] == String.class)
+                return JsonCodecs.map(codec(arguments[1], field));
+        }
+        throw new IllegalArgumentException("Unsupported type " + type.getTypeName() + " of field "
+                + field.getName() + " in " + field.getDeclaringClass().getName());
+    }
+    
+    // the fields of a record, in the order of its components, which getDeclaredFields() does not
+    // guarantee
+    private static List<Field> recordFields(Class<?> type) {
+        try {
+            Object[] components = (Object[]) RECORD_COMPONENTS.invoke(type);
+            List<Field> fields = new ArrayList<>(components.length);
+            for (Object component : components) {
+                fields.add(type.getDeclaredField((String) COMPONENT_NAME.invoke(component)));
+            }
+            return fields;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot bind " + type.getName(), e);
+        }
+    }
+    
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException)
+            return (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+        return new UndeclaredThrowableException(t);
+    }
+    
+    // reads and writes the fields of a class or record
+    private static final class BoundCodec implements JsonCodec<Object> {
+        BoundCodec(Class<?> type) {
+            if (type.isPrimitive() || type.isArray() || type.isInterface()
+                    || Modifier.isAbstract(type.getModifiers()))
+                throw new IllegalArgumentException("Cannot bind " + type.getName());
+            
+            // records are matched by name, so that this runs on Java 8
+            Class<?> superclass = type.getSuperclass();
+            this.record = superclass != null && superclass.getName().equals("java.lang.Record");
+            
+            List<Field> fields = record ? recordFields(type) : fields(type);
+            List<Property> properties = new ArrayList<>();
+            for (Field field : fields) {
+                Property property = Property.of(field, properties.size(), record);
+                if (byName.put(property.name, property) != null)
+                    throw new IllegalArgumentException("Duplicate member name '"
+                            + property.name + "' in " + type.getName());
+                properties.add(property);
+            }
+            this.properties = properties.toArray(new Property[0]);
+            
+            try {
+                // the parameters of the canonical constructor of a record are its components
+                Class<?>[] parameters = new Class<?>[record ? this.properties.length : 0];
+                for (int i = 0; i < parameters.length; i++) {
+                    parameters[i] = this.properties[i].type;
+                }
+                
+                Constructor<?> constructor = type.getDeclaredConstructor(parameters);
+                constructor.setAccessible(true);
+                MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+                if (record)
+                    handle = handle.asSpreader(Object[].class, parameters.length);
+                this.constructor = handle.asType(handle.type().changeReturnType(Object.class));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(type.getName()
+                        + " needs a constructor without parameters");
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException("Cannot bind " + type.getName(), e);
+            }
+        }
+        
+        // the fields of the class and its superclasses, superclasses first
+        private static List<Field> fields(Class<?> type) {
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                hierarchy.add(0, c);
+            }
+            
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c : hierarchy) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)
+                            && !field.isSynthetic())
+                        fields.add(field);
+                }
+            }
+            return fields;
+        }
+        
+        private final boolean record;
+        private final Property[] properties;
+        private final Map<String, Property> byName = new HashMap<>();
+        private final MethodHandle constructor; // ()Object, or (Object[])Object for records
+        
+        @Override
+        public Object read(JsonParser parser) {
+            JsonToken token = JsonCodecs.valueToken(parser);
+            if (token == JsonToken.NULL)
+                return null;
+            JsonCodecs.require(parser, token, JsonToken.BEGIN_OBJECT);
+            
+            try {
+                Object[] components = record ? defaults() : null;
+                Object value = record ? null : (Object) constructor.invokeExact();
+                int next = 0;
+                while (parser.next() != JsonToken.END_OBJECT) {
+                    Property property = property(parser.currentName(), next);
+                    if (property == null) {
+                        parser.skipValue();
+                        continue;
+                    }
+                    
+                    if (record) {
+                        components[property.index] = property.read(parser);
+                    } else {
+                        property.read(parser, value);
+                    }
+                    next = property.index + 1;
+                }
+                return record ? (Object) constructor.invokeExact(components) : value;
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+        
+        @Override
+        public void write(JsonWriter writer, Object value) throws IOException {
+            if (value == null) {
+                writer.nullValue();
+                return;
+            }
+            
+            writer.beginObject();
+            try {
+                for (Property property : properties) {
+                    property.write(writer.name(property.name), value);
+                }
+            } catch (IOException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            writer.endObject();
+        }
+        
+        // members usually come in the order of the fields, which is tried before the map
+        private Property property(String name, int next) {
+            if (next < properties.length && properties[next].name.equals(name))
+                return properties[next];
+            return byName.get(name);
+        }
+        
+        // the values of components missing from the input
+        private Object[] defaults() {
+            Object[] components = new Object[properties.length];
+            for (int i = 0; i < components.length; i++) {
+                components[i] = properties[i].defaultValue;
+            }
+            return components;
+        }
+    }
+    
+    // a field, with handles typed (Object)T and (Object, T)void for its type T, or Object if it is
+    // not primitive. Each type has its own subclass, which invokes the handles with their exact
+    // type instead of testing the type of every value it reads or writes.
+    private abstract static class Property {
+        static Property of(Field field, int index, boolean record) {
+            Class<?> type = field.getType();
+            if (type == int.class)
+                return new IntProperty(field, index, record);
+            if (type == long.class)
+                return new LongProperty(field, index, record);
+            if (type == double.class)
+                return new DoubleProperty(field, index, record);
+            if (type == boolean.class)
+                return new BooleanProperty(field, index, record);
+            if (type == float.class)
+                return new FloatProperty(field, index, record);
+            if (type == short.class)
+                return new ShortProperty(field, index, record);
+            if (type == byte.class)
+                return new ByteProperty(field, index, record);
+            if (type == char.class)
+                return new CharProperty(field, index, record);
+            return new ObjectProperty(field, index, record);
+        }
+        
+        Property(Field field, int index, boolean record) {
+            JsonName jsonName = field.getAnnotation(JsonName.class);
+            this.name = jsonName != null ? jsonName.value() : field.getName();
+            this.index = index;
+            this.type = field.getType();
+            
+            Class<?> handleType = type.isPrimitive() ? type : Object.class;
+            try {
+                field.setAccessible(true);
+                MethodHandle getter = LOOKUP.unreflectGetter(field);
+                this.getter = getter.asType(MethodType.methodType(handleType, Object.class));
+                if (record) {
+                    this.setter = null;
+                } else {
+                    MethodHandle setter = LOOKUP.unreflectSetter(field);
+                    this.setter = setter.asType(
+                            MethodType.methodType(void.class, Object.class, handleType));
+                }
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException("Cannot access field " + field.getName()
+                        + " in " + field.getDeclaringClass().getName(), e);
+            }
+            
+            if (type.isPrimitive()) {
+                this.codec = builtIn(type);
+                this.defaultValue = Array.get(Array.newInstance(type, 1), 0);
+            } else {
+                this.codec = JsonBinder.codec(field.getGenericType(), field);
+                this.defaultValue = null;
+            }
+        }
+        
+        final String name;
+        final int index;
+        final Class<?> type;
+        final Object defaultValue; // of a missing record component
+        final MethodHandle getter;
+        final MethodHandle setter;
+        private final JsonCodec<?> codec;
+        
+        @SuppressWarnings("unchecked")
+        JsonCodec<Object> codec() {
+            return (JsonCodec<Object>) codec;
+        }
+        
+        // the value of a record component
+        Object read(JsonParser parser) {
+            Object value = codec().read(parser);
+            if (value == null && type.isPrimitive())
+                throw JsonCodecs.unexpected(parser, JsonToken.NULL, type.getName());
+            return value;
+        }
+        
+        // reads the field of a class
+        abstract void read(JsonParser parser, Object value) throws Throwable;
+        
+        abstract void write(JsonWriter writer, Object value) throws Throwable;
+    }
+    
+    private static final class IntProperty extends Property {
+        IntProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, JsonCodecs.readInt(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            writer.value((long) (int) getter.invokeExact(value));
+        }
+    }
+    
+    private static final class LongProperty extends Property {
+        LongProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, JsonCodecs.readLong(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            writer.value((long) getter.invokeExact(value));
+        }
+    }
+    
+    private static final class DoubleProperty extends Property {
+        DoubleProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, JsonCodecs.readDouble(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            writer.value((double) getter.invokeExact(value));
+        }
+    }
+    
+    private static final class BooleanProperty extends Property {
+        BooleanProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, JsonCodecs.readBoolean(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            writer.value((boolean) getter.invokeExact(value));
+        }
+    }
+    
+    private static final class FloatProperty extends Property {
+        FloatProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, (float) JsonCodecs.readDouble(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            JsonCodecs.writeFloat(writer, (float) getter.invokeExact(value));
+        }
+    }
+    
+    private static final class ShortProperty extends Property {
+        ShortProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, JsonCodecs.readShort(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            writer.value((long) (short) getter.invokeExact(value));
+        }
+    }
+    
+    private static final class ByteProperty extends Property {
+        ByteProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, JsonCodecs.readByte(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            writer.value((long) (byte) getter.invokeExact(value));
+        }
+    }
+    
+    private static final class CharProperty extends Property {
+        CharProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, JsonCodecs.readChar(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            writer.value(String.valueOf((char) getter.invokeExact(value)));
+        }
+    }
+    
+    private static final class ObjectProperty extends Property {
+        ObjectProperty(Field field, int index, boolean record) {
+            super(field, index, record);
+        }
+        
+        @Override
+        void read(JsonParser parser, Object value) throws Throwable {
+            setter.invokeExact(value, codec().read(parser));
+        }
+        
+        @Override
+        void write(JsonWriter writer, Object value) throws Throwable {
+            codec().write(writer, (Object) getter.invokeExact(value));
+        }
+    }
+    
+    // the codec of a bound class, looked up when it is first used
+    private static final class DeferredCodec implements JsonCodec<Object> {
+        DeferredCodec(Class<?> type) {
+            this.type = type;
+        }
+        
+        private final Class<?> type;
+        private JsonCodec<Object> codec;
+        
+        @Override
+        public Object read(JsonParser parser) {
+            return codec().read(parser);
+        }
+        
+        @Override
+        public void write(JsonWriter writer, Object value) throws IOException {
+            codec().write(writer, value);
+        }
+        
+        @SuppressWarnings("unchecked")
+        private JsonCodec<Object> codec() {
+            JsonCodec<Object> codec = this.codec;
+            if (codec == null)
+                this.codec = codec = (JsonCodec<Object>) CODECS.get(type);
+            return codec;
+        }
+    }
+}
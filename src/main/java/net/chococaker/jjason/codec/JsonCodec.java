@@ -0,0 +1,55 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.codec;
+
+import net.chococaker.jjason.exception.MalformedJsonException;
+import net.chococaker.jjason.reader.JsonParser;
+import net.chococaker.jjason.reader.JsonToken;
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads values of a Java type directly from a {@link JsonParser} and writes them directly to a
+ * {@link JsonWriter}, without building {@link net.chococaker.jjason.JsonElement}s in between.
+ * <p>
+ * Codecs for classes annotated with {@link JsonType} are generated at compile time by the
+ * <code>jjason-processor</code> annotation processor, codecs for other classes are built at runtime
+ * by {@link JsonBinder}, and codecs for common types are found in {@link JsonCodecs}.
+ *
+ * @param <T> The type of the values
+ * @since 1.1
+ */
+public interface JsonCodec<T> {
+    /**
+     * Reads a value, starting at the current token of the parser. If nothing has been read yet or
+     * the current token is a {@link JsonToken#NAME}, the next token is read first. Afterwards, the
+     * parser is at the last token of the value.
+     *
+     * @param parser The parser to read from
+     * @return The value, which is null for JSON null unless the type has its own null value
+     * @throws MalformedJsonException If the input is not valid JSON, or the value does not have the
+     *                                expected type
+     */
+    T read(JsonParser parser);
+    
+    /**
+     * @param writer The writer to write the value to
+     * @param value  The value, or null
+     * @throws IOException If the destination could not be written to
+     */
+    void write(JsonWriter writer, T value) throws IOException;
+}
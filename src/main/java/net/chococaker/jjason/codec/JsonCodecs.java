@@ -0,0 +1,484 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.codec;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import net.chococaker.jjason.reader.JsonParser;
+import net.chococaker.jjason.reader.JsonReader;
+import net.chococaker.jjason.reader.JsonToken;
+import net.chococaker.jjason.writer.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link JsonCodec}s for common types, and the methods generated codecs are built from.
+ *
+ * @since 1.1
+ */
+public final class JsonCodecs {
+    private JsonCodecs() {
+    }
+    
+    public static final JsonCodec<String> STRING = new ValueCodec<String>() {
+        @Override
+        String readValue(JsonParser parser, JsonToken token) {
+            require(parser, token, JsonToken.STRING);
+            return parser.currentValue().getAsString();
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, String value) throws IOException {
+            writer.value(value);
+        }
+    };
+    
+    public static final JsonCodec<Boolean> BOOLEAN = new ValueCodec<Boolean>() {
+        @Override
+        Boolean readValue(JsonParser parser, JsonToken token) {
+            require(parser, token, JsonToken.BOOLEAN);
+            return parser.currentValue().getAsBoolean();
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, Boolean value) throws IOException {
+            writer.value((boolean) value);
+        }
+    };
+    
+    public static final JsonCodec<Character> CHARACTER = new ValueCodec<Character>() {
+        @Override
+        Character readValue(JsonParser parser, JsonToken token) {
+            return readChar(parser, token);
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, Character value) throws IOException {
+            writer.value(String.valueOf(value));
+        }
+    };
+    
+    public static final JsonCodec<Byte> BYTE = new ValueCodec<Byte>() {
+        @Override
+        Byte readValue(JsonParser parser, JsonToken token) {
+            return (byte) integral(parser, token, Byte.MIN_VALUE, Byte.MAX_VALUE, "a byte");
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, Byte value) throws IOException {
+            writer.value((long) value);
+        }
+    };
+    
+    public static final JsonCodec<Short> SHORT = new ValueCodec<Short>() {
+        @Override
+        Short readValue(JsonParser parser, JsonToken token) {
+            return (short) integral(parser, token, Short.MIN_VALUE, Short.MAX_VALUE, "a short");
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, Short value) throws IOException {
+            writer.value((long) value);
+        }
+    };
+    
+    public static final JsonCodec<Integer> INTEGER = new ValueCodec<Integer>() {
+        @Override
+        Integer readValue(JsonParser parser, JsonToken token) {
+            return readInt(parser, token);
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, Integer value) throws IOException {
+            writer.value((long) value);
+        }
+    };
+    
+    public static final JsonCodec<Long> LONG = new ValueCodec<Long>() {
+        @Override
+        Long readValue(JsonParser parser, JsonToken token) {
+            return integral(parser, token, Long.MIN_VALUE, Long.MAX_VALUE, "a long");
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, Long value) throws IOException {
+            writer.value((long) value);
+        }
+    };
+    
+    public static final JsonCodec<Float> FLOAT = new ValueCodec<Float>() {
+        @Override
+        Float readValue(JsonParser parser, JsonToken token) {
+            return number(parser, token).floatValue();
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, Float value) throws IOException {
+            writeFloat(writer, value);
+        }
+    };
+    
+    public static final JsonCodec<Double> DOUBLE = new ValueCodec<Double>() {
+        @Override
+        Double readValue(JsonParser parser, JsonToken token) {
+            return number(parser, token).doubleValue();
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, Double value) throws IOException {
+            writer.value((double) value);
+        }
+    };
+    
+    public static final JsonCodec<BigInteger> BIG_INTEGER = new ValueCodec<BigInteger>() {
+        @Override
+        BigInteger readValue(JsonParser parser, JsonToken token) {
+            Number number = number(parser, token);
+            if (number instanceof BigInteger)
+                return (BigInteger) number;
+            if (number instanceof Integer || number instanceof Long)
+                return BigInteger.valueOf(number.longValue());
+            try {
+                return decimal(number).toBigIntegerExact();
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw notA(parser, number, "an integer");
+            }
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, BigInteger value) throws IOException {
+            writer.rawValue(value.toString());
+        }
+    };
+    
+    public static final JsonCodec<BigDecimal> BIG_DECIMAL = new ValueCodec<BigDecimal>() {
+        @Override
+        BigDecimal readValue(JsonParser parser, JsonToken token) {
+            require(parser, token, JsonToken.NUMBER);
+            return parser.currentValue().getAsBigDecimal();
+        }
+        
+        @Override
+        void writeValue(JsonWriter writer, BigDecimal value) throws IOException {
+            writer.rawValue(value.toString());
+        }
+    };
+    
+    /**
+     * Reads any value as a tree. JSON null is read as {@link JsonPrimitive#NULL}.
+     */
+    public static final JsonCodec<JsonElement> ELEMENT = element(JsonElement.class);
+    
+    /**
+     * @param type The type of element to read, whose subtypes are accepted as well
+     * @return A codec which reads values of the given type as a tree. JSON null is read as
+     * {@link JsonPrimitive#NULL} if it has the type, and as null otherwise.
+     */
+    public static <E extends JsonElement> JsonCodec<E> element(Class<E> type) {
+        return new JsonCodec<E>() {
+            @Override
+            public E read(JsonParser parser) {
+                JsonToken token = valueToken(parser);
+                JsonElement element;
+                switch (token) {
+                    case BEGIN_OBJECT:
+                        element = JsonReader.objectReader(parser).read();
+                        break;
+                    case BEGIN_ARRAY:
+                        element = JsonReader.arrayReader(parser).read();
+                        break;
+                    case NULL:
+                        if (!type.isInstance(JsonPrimitive.NULL))
+                            return null;
+                        element = JsonPrimitive.NULL;
+                        break;
+                    default:
+                        element = parser.currentValue();
+                }
+                
+                if (!type.isInstance(element))
+                    throw unexpected(parser, token, type.getSimpleName());
+                return type.cast(element);
+            }
+            
+            @Override
+            public void write(JsonWriter writer, E value) throws IOException {
+                if (value == null) {
+                    writer.nullValue();
+                } else {
+                    writer.write(value);
+                }
+            }
+        };
+    }
+    
+    /**
+     * @param type The enum class
+     * @return A codec for the constants of the enum, which are written as their names
+     */
+    public static <E extends Enum<E>> JsonCodec<E> enumCodec(Class<E> type) {
+        Map<String, E> constants = new HashMap<>();
+        for (E constant : type.getEnumConstants()) {
+            constants.put(constant.name(), constant);
+        }
+        
+        return new ValueCodec<E>() {
+            @Override
+            E readValue(JsonParser parser, JsonToken token) {
+                require(parser, token, JsonToken.STRING);
+                String name = parser.currentValue().getAsString();
+                E constant = constants.get(name);
+                if (constant == null)
+                    throw new MalformedJsonException(null, "Unknown constant '" + name + "' of "
+                            + type.getSimpleName() + " at col " + (parser.getPosition() - 1));
+                return constant;
+            }
+            
+            @Override
+            void writeValue(JsonWriter writer, E value) throws IOException {
+                writer.value(value.name());
+            }
+        };
+    }
+    
+    /**
+     * @param elements The codec of the elements
+     * @return A codec for arrays, which are read into {@link ArrayList}s
+     */
+    public static <E> JsonCodec<List<E>> list(JsonCodec<E> elements) {
+        return new ValueCodec<List<E>>() {
+            @Override
+            List<E> readValue(JsonParser parser, JsonToken token) {
+                require(parser, token, JsonToken.BEGIN_ARRAY);
+                List<E> list = new ArrayList<>();
+                while (parser.next() != JsonToken.END_ARRAY) {
+                    list.add(elements.read(parser));
+                }
+                return list;
+            }
+            
+            @Override
+            void writeValue(JsonWriter writer, List<E> value) throws IOException {
+                writer.beginArray();
+                for (E element : value) {
+                    elements.write(writer, element);
+                }
+                writer.endArray();
+            }
+        };
+    }
+    
+    /**
+     * @param values The codec of the member values
+     * @return A codec for objects, which are read into {@link LinkedHashMap}s
+     */
+    public static <V> JsonCodec<Map<String, V>> map(JsonCodec<V> values) {
+        return new ValueCodec<Map<String, V>>() {
+            @Override
+            Map<String, V> readValue(JsonParser parser, JsonToken token) {
+                require(parser, token, JsonToken.BEGIN_OBJECT);
+                Map<String, V> map = new LinkedHashMap<>();
+                while (parser.next() != JsonToken.END_OBJECT) {
+                    String key = parser.currentName();
+                    map.put(key, values.read(parser));
+                }
+                return map;
+            }
+            
+            @Override
+            void writeValue(JsonWriter writer, Map<String, V> value) throws IOException {
+                writer.beginObject();
+                for (Map.Entry<String, V> entry : value.entrySet()) {
+                    writer.name(entry.getKey());
+                    values.write(writer, entry.getValue());
+                }
+                writer.endObject();
+            }
+        };
+    }
+    
+    /**
+     * Moves the parser to the first token of the next value, as described by
+     * {@link JsonCodec#read(JsonParser)}.
+     *
+     * @return The first token of the value
+     */
+    public static JsonToken valueToken(JsonParser parser) {
+        JsonToken token = parser.current();
+        return token == null || token == JsonToken.NAME ? parser.next() : token;
+    }
+    
+    /**
+     * @throws MalformedJsonException If the token is not the expected one
+     */
+    public static void require(JsonParser parser, JsonToken token, JsonToken expected) {
+        if (token != expected)
+            throw unexpected(parser, token, expected.toString());
+    }
+    
+    public static MalformedJsonException unexpected(JsonParser parser, JsonToken token,
+                                                    String expected) {
+        return new MalformedJsonException(null, "Unexpected " + token + ", expected " + expected
+                + " at col " + (parser.getPosition() - 1));
+    }
+    
+    // readers of primitive values, which do not accept null
+    
+    public static boolean readBoolean(JsonParser parser) {
+        require(parser, valueToken(parser), JsonToken.BOOLEAN);
+        return parser.currentValue().getAsBoolean();
+    }
+    
+    public static char readChar(JsonParser parser) {
+        return readChar(parser, valueToken(parser));
+    }
+    
+    /**
+     * @throws MalformedJsonException If the value is not a whole number within the range of a
+     * byte
+     * @since 1.1
+     */
+    public static byte readByte(JsonParser parser) {
+        return (byte) integral(parser, valueToken(parser), Byte.MIN_VALUE, Byte.MAX_VALUE,
+                "a byte");
+    }
+    
+    /**
+     * @throws MalformedJsonException If the value is not a whole number within the range of a
+     * short
+     * @since 1.1
+     */
+    public static short readShort(JsonParser parser) {
+        return (short) integral(parser, valueToken(parser), Short.MIN_VALUE, Short.MAX_VALUE,
+                "a short");
+    }
+    
+    /**
+     * @throws MalformedJsonException If the value is not a whole number within the range of an
+     * int
+     */
+    public static int readInt(JsonParser parser) {
+        return readInt(parser, valueToken(parser));
+    }
+    
+    /**
+     * @throws MalformedJsonException If the value is not a whole number within the range of a
+     * long
+     */
+    public static long readLong(JsonParser parser) {
+        return integral(parser, valueToken(parser), Long.MIN_VALUE, Long.MAX_VALUE, "a long");
+    }
+    
+    public static double readDouble(JsonParser parser) {
+        return number(parser, valueToken(parser)).doubleValue();
+    }
+    
+    /**
+     * Writes a float in the form of {@link Float#toString(float)}, so that it does not gain the
+     * digits of its double value.
+     */
+    public static void writeFloat(JsonWriter writer, float value) throws IOException {
+        writer.rawValue(Float.toString(value));
+    }
+    
+    private static Number number(JsonParser parser, JsonToken token) {
+        require(parser, token, JsonToken.NUMBER);
+        return parser.currentNumber();
+    }
+    
+    private static int readInt(JsonParser parser, JsonToken token) {
+        Number number = number(parser, token);
+        if (number instanceof Integer)
+            return (Integer) number;
+        return (int) integral(parser, number, Integer.MIN_VALUE, Integer.MAX_VALUE, "an int");
+    }
+    
+    private static long integral(JsonParser parser, JsonToken token, long min, long max,
+                                 String expected) {
+        return integral(parser, number(parser, token), min, max, expected);
+    }
+    
+    // the value of a number which is whole and within [min, max], without rounding or wrapping
+    private static long integral(JsonParser parser, Number number, long min, long max,
+                                 String expected) {
+        long value;
+        if (number instanceof Integer || number instanceof Long) {
+            value = number.longValue();
+        } else {
+            try {
+                value = decimal(number).longValueExact();
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw notA(parser, number, expected);
+            }
+        }
+        if (value < min || value > max)
+            throw notA(parser, number, expected);
+        return value;
+    }
+    
+    // the exact value of a number which is not an Integer or Long, throwing NumberFormatException
+    // for an infinite double
+    private static BigDecimal decimal(Number number) {
+        if (number instanceof BigDecimal)
+            return (BigDecimal) number;
+        if (number instanceof BigInteger)
+            return new BigDecimal((BigInteger) number);
+        return new BigDecimal(number.doubleValue());
+    }
+    
+    private static MalformedJsonException notA(JsonParser parser, Number number, String expected) {
+        return new MalformedJsonException(null, "Number " + number + " is not " + expected
+                + " at col " + (parser.getPosition() - 1));
+    }
+    
+    private static char readChar(JsonParser parser, JsonToken token) {
+        require(parser, token, JsonToken.STRING);
+        String s = parser.currentValue().getAsString();
+        if (s.length() != 1)
+            throw unexpected(parser, token, "a single char");
+        return s.charAt(0);
+    }
+    
+    // reads and writes null itself
+    private abstract static class ValueCodec<T> implements JsonCodec<T> {
+        @Override
+        public final T read(JsonParser parser) {
+            JsonToken token = valueToken(parser);
+            return token == JsonToken.NULL ? null : readValue(parser, token);
+        }
+        
+        @Override
+        public final void write(JsonWriter writer, T value) throws IOException {
+            if (value == null) {
+                writer.nullValue();
+            } else {
+                writeValue(writer, value);
+            }
+        }
+        
+        abstract T readValue(JsonParser parser, JsonToken token);
+        
+        abstract void writeValue(JsonWriter writer, T value) throws IOException;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class or record for which the <code>jjason-processor</code> annotation processor
+ * generates a {@link JsonCodec}. The codec is named after the class with a <code>Codec</code>
+ * suffix, nested classes being joined with underscores (<code>Outer_InnerCodec</code>), and is
+ * placed in the same package. Its instance is held in a static <code>INSTANCE</code> field.
+ * <p>
+ * Records are read and written through their components. Other classes need a constructor without
+ * parameters, and every field that is not static or transient is read and written, directly if it
+ * is not private and through its getter and setter otherwise.
+ * <p>
+ * Fields can have primitive types and their wrappers, {@link String}, {@link java.math.BigInteger},
+ * {@link java.math.BigDecimal}, enums, {@link net.chococaker.jjason.JsonElement}s, other
+ * {@link JsonType} classes, and {@link java.util.List}s and {@link java.util.Map}s with
+ * {@link String} keys of any of these.
+ *
+ * @see JsonName
+ * @since 1.1
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface JsonType {
+}
@@ -27,29 +27,45 @@ public class MalformedJsonException extends IllegalArgumentException {
         super(reason);
         this.col = -1;
         this.json = json;
+        this.line = -1;
     }
     
     public MalformedJsonException(String json, char unexpectedChar, int col) {
         super("Unexpected character '" + unexpectedChar + "' at col " + col);
         this.col = col;
         this.json = json;
+        this.line = -1;
     }
     
     public MalformedJsonException(String json, char unexpectedChar, char expectedChar, int col) {
         super("Unexpected character '" + unexpectedChar + "', expected '" + expectedChar + "' at col " + col);
         this.col = col;
         this.json = json;
+        this.line = -1;
+    }
+    
+    /**
+     * @param line  The line of a multi-line input the error was found in, starting at 1
+     * @param cause The error found in the line, whose column is relative to the line's start
+     * @since 1.1
+     */
+    public MalformedJsonException(long line, MalformedJsonException cause) {
+        super("Line " + line + ": " + cause.getMessage(), cause);
+        this.col = cause.col;
+        this.json = cause.json;
+        this.line = line;
     }
     
     /**
      * @return A new end-of-file exception
      */
     public static MalformedJsonException eof(String json) {
-        return new MalformedJsonException("Reached end-of-file", json);
+        return new MalformedJsonException(json, "Reached end-of-file");
     }
     
     private final int col;
     private final String json;
+    private final long line;
     
     public String getJson() {
         return json;
@@ -61,4 +77,12 @@ public class MalformedJsonException extends IllegalArgumentException {
     public int getCol() {
         return col;
     }
+    
+    /**
+     * @return The error's line if the input was read line by line, -1 otherwise
+     * @since 1.1
+     */
+    public long getLine() {
+        return line;
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import java.nio.ByteBuffer;
+
+// Classifies the bytes of a 64-byte block into bitmasks, bit i standing for byte i. Bytes are
+// compared eight at a time within a long (SWAR). On JDK 17+ with the jdk.incubator.vector module,
+// the VectorBlockClassifier of the multi-release JAR is used instead.
+class BlockClassifier {
+    BlockClassifier() {
+    }
+    
+    static final int BLOCK_SIZE = 64;
+    
+    // indices of the masks filled in by classify
+    static final int QUOTES = 0;
+    static final int BACKSLASHES = 1;
+    static final int OPERATORS = 2; // {}[]:,
+    static final int WHITESPACE = 3;
+    
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    
+    /**
+     * @return The classifier using the vector API if it is available, or a SWAR one
+     */
+    static BlockClassifier create() {
+        try {
+            Class<?> type = Class.forName("net.chococaker.jjason.reader.VectorBlockClassifier");
+            return (BlockClassifier) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new BlockClassifier(); // before JDK 17, or without the module
+        }
+    }
+    
+    /**
+     * @param buf The input, in little-endian order
+     * @param p   The position of the block, which must have 64 bytes left
+     */
+    void classify(ByteBuffer buf, int p, long[] masks) {
+        long quotes = 0;
+        long backslashes = 0;
+        long operators = 0;
+        long whitespace = 0;
+        for (int i = 0; i < BLOCK_SIZE; i += 8) {
+            long x = buf.getLong(p + i);
+            long lower = x | ONES * 0x20; // folds '[' into '{' and ']' into '}'
+            quotes |= bits(eq(x, '"')) << i;
+            backslashes |= bits(eq(x, '\\')) << i;
+            operators |= bits(eq(lower, '{') | eq(lower, '}') | eq(x, ':') | eq(x, ',')) << i;
+            whitespace |= bits(eq(x, ' ') | eq(x, '\t') | eq(x, '\n') | eq(x, '\r')) << i;
+        }
+        
+        masks[QUOTES] = quotes;
+        masks[BACKSLASHES] = backslashes;
+        masks[OPERATORS] = operators;
+        masks[WHITESPACE] = whitespace;
+    }
+    
+    // sets the top bit of each byte of x that equals c, without carries between bytes
+    private static long eq(long x, char c) {
+        long t = x ^ ONES * c;
+        return ~((t & LOW_BITS) + LOW_BITS | t | LOW_BITS);
+    }
+    
+    // gathers the top bits of the eight bytes into the low eight bits
+    private static long bits(long topBits) {
+        return (topBits >>> 7) * 0x0102040810204080L >>> 56;
+    }
+}
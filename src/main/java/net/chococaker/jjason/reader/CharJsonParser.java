@@ -0,0 +1,194 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+// a JsonParser reading chars from a Reader
+final class CharJsonParser extends JsonParser {
+    CharJsonParser(String json) {
+        super(json);
+        this.reader = new StringReader(json);
+        this.buf = new char[DEFAULT_BUFFER_SIZE];
+    }
+    
+    CharJsonParser(Reader reader, int bufferSize) {
+        super(null);
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Buffer size must be positive");
+        this.reader = reader;
+        this.buf = new char[bufferSize];
+    }
+    
+    private final Reader reader;
+    private final char[] buf;
+    private int pos;
+    private int limit;
+    private long bufOffset; // position of buf[0] in the input
+    
+    @Override
+    public long getPosition() {
+        return bufOffset + pos;
+    }
+    
+    @Override
+    int read() {
+        if (pos == limit && !fill())
+            return -1;
+        return buf[pos++];
+    }
+    
+    @Override
+    int peek() {
+        if (pos == limit && !fill())
+            return -1;
+        return buf[pos];
+    }
+    
+    @Override
+    void skip() {
+        pos++;
+    }
+    
+    @Override
+    int nextNonWhitespace() {
+        do {
+            char[] buf = this.buf;
+            for (int p = pos, l = limit; p < l; p++) {
+                char c = buf[p];
+                if (c >= 256 || (CHAR_FLAGS[c] & WHITESPACE) == 0) {
+                    pos = p + 1;
+                    return c;
+                }
+            }
+            pos = limit;
+        } while (fill());
+        
+        return -1;
+    }
+    
+    // strings without escapes that end within the buffer are copied from it directly, others are
+    // copied in runs without quotes, escapes or control chars
+    @Override
+    String readString(KeyCache cache) {
+        char[] buf = this.buf;
+        int p = pos;
+        int l = limit;
+        while (p < l) {
+            char c = buf[p];
+            if (c < 256 && (CHAR_FLAGS[c] & STRING_SPECIAL) != 0)
+                break;
+            p++;
+        }
+        if (p < l && buf[p] == '"') {
+            String s = cache == null ? new String(buf, pos, p - pos) : cache.get(buf, pos, p);
+            pos = p + 1;
+            return s;
+        }
+        
+        sb.setLength(0);
+        sb.append(buf, pos, p - pos);
+        pos = p;
+        while (true) {
+            // a special char was found or the buffer ended
+            int c = read();
+            if (c == '"')
+                break;
+            if (c == '\\') {
+                readEscape();
+            } else if (c < 0x20) { // also catches -1
+                throw unexpected(c);
+            } else {
+                sb.append((char) c);
+            }
+            
+            buf = this.buf;
+            p = pos;
+            l = limit;
+            while (p < l) {
+                char d = buf[p];
+                if (d < 256 && (CHAR_FLAGS[d] & STRING_SPECIAL) != 0)
+                    break;
+                p++;
+            }
+            sb.append(buf, pos, p - pos);
+            pos = p;
+        }
+        
+        return cache == null ? sb.toString() : cache.get(sb, 0, sb.length());
+    }
+    
+    @Override
+    void skipNested(int depth, boolean inString) {
+        boolean escaped = false;
+        do {
+            char[] buf = this.buf;
+            for (int p = pos, l = limit; p < l; p++) {
+                char c = buf[p];
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                        if (depth == 0) {
+                            pos = p + 1;
+                            return;
+                        }
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    pos = p + 1;
+                    return;
+                }
+            }
+            pos = limit;
+        } while (fill());
+        
+        throw unexpected(-1);
+    }
+    
+    @Override
+    void closeInput() throws IOException {
+        reader.close();
+    }
+    
+    private boolean fill() {
+        try {
+            int n;
+            do {
+                n = reader.read(buf, 0, buf.length);
+            } while (n == 0);
+            
+            if (n == -1)
+                return false;
+            
+            bufOffset += limit;
+            pos = 0;
+            limit = n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
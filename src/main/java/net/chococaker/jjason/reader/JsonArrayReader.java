@@ -16,21 +16,21 @@
 package net.chococaker.jjason.reader;
 
 import net.chococaker.jjason.JsonArray;
-import net.chococaker.jjason.exception.MalformedJsonException;
 
 final class JsonArrayReader extends JsonReader<JsonArray> {
     public JsonArrayReader(CharSequence json) {
-        super(json);
+        this(JsonParser.of(json));
+    }
+    
+    public JsonArrayReader(JsonParser parser) {
+        super(parser);
     }
     
     @Override
     public JsonArray read() {
-        if (iter.current() != ARRAY_OPEN) {
-            next();
-            if (iter.current() != ARRAY_OPEN)
-                throw new MalformedJsonException(json, iter.current(), ARRAY_OPEN, iter.getIndex());
-        }
-        
-        return readArray();
+        require(JsonToken.BEGIN_ARRAY);
+        JsonArray array = readArray();
+        requireEnd();
+        return array;
     }
 }
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads only the values at a set of paths out of a document. The paths are
+ * <a href="https://www.rfc-editor.org/rfc/rfc6901">JSON Pointers</a> such as
+ * <code>/user/id</code>, in which a <code>*</code> matches every member of an object or element of
+ * an array, like in <code>/items/*&#47;price</code>. Numeric segments match array indices as well as
+ * member names, and the empty path matches the whole document.
+ * <p>
+ * The values at the paths are built as usual. Everything else is skipped with
+ * {@link JsonParser#skipValue()}, which only balances brackets and quotes, so that no elements are
+ * built for it and it is not validated. Once every path without a wildcard has been found, and
+ * there are no paths with wildcards, the rest of the input is not read at all.
+ * <p>
+ * An extractor can be shared between threads.
+ *
+ * @since 1.1
+ */
+public final class JsonExtractor {
+    private JsonExtractor(List<String> paths, Node root, int fixedPaths, boolean wildcards) {
+        this.paths = paths;
+        this.root = root;
+        this.fixedPaths = fixedPaths;
+        this.wildcards = wildcards;
+    }
+    
+    private final List<String> paths; // without duplicates
+    private final Node root;
+    private final int fixedPaths; // paths without wildcards, which match at most once
+    private final boolean wildcards;
+    
+    /**
+     * @param paths The JSON Pointers of the values to extract
+     * @return An extractor for the paths
+     * @throws IllegalArgumentException If a path is neither empty nor starts with '/'
+     */
+    public static JsonExtractor of(String... paths) {
+        List<String> distinct = new ArrayList<>(paths.length);
+        Node root = new Node();
+        int fixedPaths = 0;
+        boolean wildcards = false;
+        for (String path : paths) {
+            if (!path.isEmpty() && path.charAt(0) != '/')
+                throw new IllegalArgumentException("Path must start with '/': " + path);
+            
+            Node node = root;
+            boolean wildcard = false;
+            int start = 1;
+            while (start <= path.length()) {
+                int end = path.indexOf('/', start);
+                if (end == -1)
+                    end = path.length();
+                String segment = path.substring(start, end);
+                if (segment.equals("*")) {
+                    if (node.any == null)
+                        node.any = new Node();
+                    node = node.any;
+                    wildcard = true;
+                } else {
+                    node = node.children.computeIfAbsent(unescape(segment), k -> new Node());
+                }
+                start = end + 1;
+            }
+            
+            if (!node.paths.contains(path)) {
+                distinct.add(path);
+                node.paths.add(path);
+                if (wildcard)
+                    wildcards = true;
+                else
+                    fixedPaths++;
+            }
+        }
+        return new JsonExtractor(distinct, root, fixedPaths, wildcards);
+    }
+    
+    /**
+     * Reads the next value of the parser, calling the action for every value at one of the paths
+     * in the order of the input. The parser is left after the last value that had to be read.
+     *
+     * @param parser The parser, positioned before the document or a value
+     * @param action Called with the path and the value of each match
+     * @throws net.chococaker.jjason.exception.MalformedJsonException If the parts of the input that
+     *                                                               were read are not valid JSON
+     */
+    public void extract(JsonParser parser, BiConsumer<String, JsonElement> action) {
+        Extraction extraction = new Extraction(parser, action);
+        parser.next();
+        extraction.extract(new Node[]{root}, 1);
+    }
+    
+    /**
+     * @param json A JSON document
+     * @return The values at each path, in the order of the paths and of the input. Paths which
+     * were not found have no values.
+     * @see #extract(JsonParser, BiConsumer)
+     */
+    public Map<String, List<JsonElement>> extract(String json) {
+        Map<String, List<JsonElement>> result = new LinkedHashMap<>();
+        for (String path : paths) {
+            result.put(path, new ArrayList<>(1));
+        }
+        extract(JsonParser.of(json), (path, value) -> result.get(path).add(value));
+        return result;
+    }
+    
+    // the ~1 and ~0 escapes of a segment
+    private static String unescape(String segment) {
+        if (segment.indexOf('~') == -1)
+            return segment;
+        return segment.replace("~1", "/").replace("~0", "~");
+    }
+    
+    // the segments that can follow a path
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        Node any; // the child for '*'
+        final List<String> paths = new ArrayList<>(1); // the paths that end here
+    }
+    
+    // the state of one extract call, whose reader builds the matching values
+    private final class Extraction extends JsonReader<JsonElement> {
+        Extraction(JsonParser parser, BiConsumer<String, JsonElement> action) {
+            super(parser);
+            this.action = action;
+        }
+        
+        private final BiConsumer<String, JsonElement> action;
+        private int found; // fixed paths that were found
+        
+        @Override
+        public JsonElement read() {
+            return readValue();
+        }
+        
+        // the parser is at the first token of a value that the nodes match
+        void extract(Node[] nodes, int count) {
+            for (int i = 0; i < count; i++) {
+                if (!nodes[i].paths.isEmpty()) {
+                    JsonElement value = readValue();
+                    for (int j = 0; j < count; j++) {
+                        found(nodes[j], value);
+                    }
+                    return;
+                }
+            }
+            
+            JsonToken token = parser.current();
+            if (token == JsonToken.BEGIN_OBJECT) {
+                Node[] matches = new Node[count * 2];
+                while (!isDone() && parser.next() == JsonToken.NAME) {
+                    int matched = match(nodes, count, parser.currentName(), matches);
+                    if (matched == 0) {
+                        parser.skipValue();
+                    } else {
+                        parser.next();
+                        extract(matches, matched);
+                    }
+                }
+            } else if (token == JsonToken.BEGIN_ARRAY) {
+                boolean indices = false;
+                boolean any = false;
+                for (int i = 0; i < count; i++) {
+                    indices |= !nodes[i].children.isEmpty();
+                    any |= nodes[i].any != null;
+                }
+                if (!indices && !any) {
+                    parser.skipChildrenUnchecked();
+                    return;
+                }
+                
+                // skipped nested arrays end in an END_ARRAY too, but only the end of this array
+                // closes a scope
+                int depth = parser.depth();
+                Node[] matches = new Node[count * 2];
+                for (int index = 0; !isDone(); index++) {
+                    String key = indices ? Integer.toString(index) : null;
+                    int matched = match(nodes, count, key, matches);
+                    if (matched == 0) {
+                        parser.skipValue();
+                        if (parser.depth() < depth)
+                            break;
+                    } else {
+                        if (parser.next() == JsonToken.END_ARRAY)
+                            break;
+                        extract(matches, matched);
+                    }
+                }
+            }
+        }
+        
+        private boolean isDone() {
+            return !wildcards && found >= fixedPaths;
+        }
+        
+        // reports a value and the values of the paths below it
+        private void found(Node node, JsonElement value) {
+            for (String path : node.paths) {
+                action.accept(path, value);
+                found++;
+            }
+            
+            if (value instanceof JsonObject) {
+                for (Map.Entry<String, JsonElement> member : (JsonObject) value) {
+                    Node child = node.children.get(member.getKey());
+                    if (child != null)
+                        found(child, member.getValue());
+                    if (node.any != null)
+                        found(node.any, member.getValue());
+                }
+            } else if (value instanceof List && (!node.children.isEmpty() || node.any != null)) {
+                @SuppressWarnings("unchecked") // a JsonArray or a JsonNumberArray
+                List<JsonElement> array = (List<JsonElement>) value;
+                for (int i = 0; i < array.size(); i++) {
+                    Node child = node.children.get(Integer.toString(i));
+                    if (child != null)
+                        found(child, array.get(i));
+                    if (node.any != null)
+                        found(node.any, array.get(i));
+                }
+            }
+        }
+    }
+    
+    // collects the children of the nodes which match the key, which is null if only wildcards can
+    private static int match(Node[] nodes, int count, String key, Node[] matches) {
+        int matched = 0;
+        for (int i = 0; i < count; i++) {
+            Node child = key == null ? null : nodes[i].children.get(key);
+            if (child != null)
+                matches[matched++] = child;
+            if (nodes[i].any != null)
+                matches[matched++] = nodes[i].any;
+        }
+        return matched;
+    }
+}
@@ -16,21 +16,21 @@
 package net.chococaker.jjason.reader;
 
 import net.chococaker.jjason.JsonObject;
-import net.chococaker.jjason.exception.MalformedJsonException;
 
 final class JsonObjectReader extends JsonReader<JsonObject> {
     public JsonObjectReader(CharSequence json) {
-        super(json);
+        this(JsonParser.of(json));
+    }
+    
+    public JsonObjectReader(JsonParser parser) {
+        super(parser);
     }
     
     @Override
     public JsonObject read() {
-        if (iter.current() != BLOCK_OPEN) {
-            next();
-            if (iter.current() != BLOCK_OPEN)
-                throw new MalformedJsonException(json, iter.current(), BLOCK_OPEN, iter.getIndex());
-        }
-        
-        return readObject();
+        require(JsonToken.BEGIN_OBJECT);
+        JsonObject object = readObject();
+        requireEnd();
+        return object;
     }
 }
@@ -0,0 +1,646 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import net.chococaker.jjason.util.JsonUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A pull parser which reads a JSON document one {@link JsonToken} at a time. The input is read
+ * through a fixed-size buffer, so the document never has to be held in memory as a whole.
+ * <p>
+ * Byte input is tokenized as UTF-8 without being decoded first; only the contents of strings are
+ * decoded.
+ * <p>
+ * Trees can be built from any position of the parser using
+ * {@link JsonReader#objectReader(JsonParser)} and {@link JsonReader#arrayReader(JsonParser)}.
+ *
+ * @see JsonToken
+ * @since 1.1
+ */
+public abstract class JsonParser implements Closeable {
+    JsonParser(String json) {
+        this.json = json;
+    }
+    
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+    
+    // scopes kept on the stack
+    private static final byte EMPTY_DOCUMENT = 0;
+    private static final byte NONEMPTY_DOCUMENT = 1;
+    private static final byte EMPTY_OBJECT = 2;
+    private static final byte DANGLING_NAME = 3;
+    private static final byte NONEMPTY_OBJECT = 4;
+    private static final byte EMPTY_ARRAY = 5;
+    private static final byte NONEMPTY_ARRAY = 6;
+    private static final byte CLOSED = 7;
+    
+    // flags of the chars and bytes below 256, looked up instead of comparing against each char
+    static final byte WHITESPACE = 1;
+    static final byte STRING_SPECIAL = 2; // quotes, backslashes and control chars
+    static final byte NON_ASCII = 4;
+    static final byte[] CHAR_FLAGS = new byte[256];
+    
+    static {
+        CHAR_FLAGS[' '] = CHAR_FLAGS['\t'] = CHAR_FLAGS['\n'] = CHAR_FLAGS['\r'] = WHITESPACE;
+        for (int c = 0; c < 0x20; c++)
+            CHAR_FLAGS[c] |= STRING_SPECIAL;
+        CHAR_FLAGS['"'] = CHAR_FLAGS['\\'] = STRING_SPECIAL;
+        for (int c = 0x80; c < 0x100; c++)
+            CHAR_FLAGS[c] = NON_ASCII;
+    }
+    
+    private final String json; // only known for string input, used in exceptions
+    
+    private byte[] stack = new byte[32];
+    private int depth = 1;
+    
+    private KeyCache keyCache;
+    
+    // booleans are immutable, so every parsed true and false shares one
+    private static final JsonPrimitive TRUE = new JsonPrimitive(true);
+    private static final JsonPrimitive FALSE = new JsonPrimitive(false);
+    
+    private JsonToken token;
+    private String name;
+    private JsonPrimitive value;
+    private boolean skipping; // set while skipValue() reads a value
+    
+    final StringBuilder sb = new StringBuilder();
+    
+    /**
+     * @return A {@link JsonParser} reading from the given {@link Reader}
+     */
+    public static JsonParser of(Reader reader) {
+        return of(reader, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * @param bufferSize The amount of chars read from the {@link Reader} at once
+     * @return A {@link JsonParser} reading from the given {@link Reader}
+     */
+    public static JsonParser of(Reader reader, int bufferSize) {
+        return new CharJsonParser(reader, bufferSize);
+    }
+    
+    /**
+     * @return A {@link JsonParser} reading the given {@link CharSequence}
+     */
+    public static JsonParser of(CharSequence json) {
+        return new CharJsonParser(json.toString());
+    }
+    
+    /**
+     * @return A {@link JsonParser} reading UTF-8 content from the given {@link InputStream}
+     */
+    public static JsonParser of(InputStream in) {
+        return new Utf8JsonParser(in, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * @return A {@link JsonParser} reading the given UTF-8 bytes. The array is not copied.
+     */
+    public static JsonParser of(byte[] json) {
+        return of(ByteBuffer.wrap(json));
+    }
+    
+    /**
+     * @return A {@link JsonParser} reading the UTF-8 bytes between the buffer's position and limit.
+     * The buffer's content is not copied, and its position is left untouched.
+     */
+    public static JsonParser of(ByteBuffer json) {
+        return new Utf8JsonParser(json.duplicate(), false);
+    }
+    
+    /**
+     * Creates a parser which first finds the positions of all tokens of the input, 64 bytes at a
+     * time, and then jumps from one to the next instead of looking at every byte between them.
+     * Skipped values are passed without looking at their content at all. The index takes a few
+     * bytes of memory per token, so this pays off for documents with much whitespace or many
+     * skipped values.
+     * <p>
+     * On JDK 17+, the bytes are compared with the incubating vector API when the
+     * <code>jdk.incubator.vector</code> module is added, and eight at a time within a long
+     * otherwise.
+     *
+     * @return A {@link JsonParser} reading the given UTF-8 bytes. The array is not copied.
+     * @since 1.1
+     */
+    public static JsonParser indexed(byte[] json) {
+        return indexed(ByteBuffer.wrap(json));
+    }
+    
+    /**
+     * @return A {@link JsonParser} reading the UTF-8 bytes between the buffer's position and limit
+     * through an index
+     * @see #indexed(byte[])
+     */
+    public static JsonParser indexed(ByteBuffer json) {
+        return new Utf8JsonParser(json.duplicate(), true);
+    }
+    
+    /**
+     * Parses a UTF-8 file through memory-mapped windows of {@link #DEFAULT_WINDOW_SIZE} bytes, so
+     * that no copy of it is made on the heap.
+     *
+     * @return A {@link JsonParser} reading the given file
+     * @throws IOException If the file could not be opened
+     */
+    public static JsonParser of(Path file) throws IOException {
+        return of(file, DEFAULT_WINDOW_SIZE);
+    }
+    
+    /**
+     * @param windowSize The amount of bytes mapped at once
+     * @return A {@link JsonParser} reading the given file through memory-mapped windows
+     * @throws IOException If the file could not be opened
+     * @see #of(Path)
+     */
+    public static JsonParser of(Path file, int windowSize) throws IOException {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("Window size must be positive");
+        return new Utf8JsonParser(FileChannel.open(file, StandardOpenOption.READ), windowSize);
+    }
+    
+    /**
+     * Advances to the next token of the input.
+     *
+     * @return The token that was read
+     * @throws MalformedJsonException If the input is not valid JSON
+     * @throws UncheckedIOException   If the underlying input could not be read
+     */
+    public JsonToken next() {
+        int c;
+        switch (stack[depth - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return readValue(nextNonWhitespace());
+            case NONEMPTY_DOCUMENT:
+                c = nextNonWhitespace();
+                if (c != -1)
+                    throw unexpected(c);
+                return token = JsonToken.END_DOCUMENT;
+            case EMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}')
+                    return pop(JsonToken.END_OBJECT);
+                return readName(c);
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}')
+                    return pop(JsonToken.END_OBJECT);
+                if (c != ',')
+                    throw unexpected(c);
+                return readName(nextNonWhitespace());
+            case DANGLING_NAME:
+                c = nextNonWhitespace();
+                if (c != ':')
+                    throw unexpected(c, ':');
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                return readValue(nextNonWhitespace());
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']')
+                    return pop(JsonToken.END_ARRAY);
+                return readValue(c);
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']')
+                    return pop(JsonToken.END_ARRAY);
+                if (c != ',')
+                    throw unexpected(c);
+                return readValue(nextNonWhitespace());
+            default:
+                throw new IllegalStateException("Parser is closed");
+        }
+    }
+    
+    /**
+     * Makes the parser take object keys from a {@link KeyCache}, so that keys which repeat share
+     * one {@link String}.
+     *
+     * @param cache The cache, or null to stop using one
+     * @return This parser
+     */
+    public JsonParser withKeyCache(KeyCache cache) {
+        this.keyCache = cache;
+        return this;
+    }
+    
+    /**
+     * @return The last token read by {@link #next()}, or null if nothing has been read yet
+     */
+    public JsonToken current() {
+        return token;
+    }
+    
+    /**
+     * @return The name of the last object member that was read
+     */
+    public String currentName() {
+        return name;
+    }
+    
+    /**
+     * @return The value of the current {@link JsonToken#STRING}, {@link JsonToken#NUMBER},
+     * {@link JsonToken#BOOLEAN} or {@link JsonToken#NULL} token
+     * @throws IllegalStateException If the current token is not a value
+     */
+    public JsonPrimitive currentValue() {
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER
+                && token != JsonToken.BOOLEAN && token != JsonToken.NULL)
+            throw new IllegalStateException("Current token " + token + " is not a value");
+        if (value == null) {
+            if (token != JsonToken.NUMBER || sb.length() == 0)
+                throw new IllegalStateException("The value was skipped");
+            value = JsonPrimitive.lazyNumber(sb.toString());
+        }
+        return value;
+    }
+    
+    /**
+     * Decodes the current {@link JsonToken#NUMBER} like {@link JsonPrimitive#get()} does, without
+     * building a {@link JsonPrimitive} for it.
+     *
+     * @return An {@link Integer}, {@link Long}, {@link Double}, {@link java.math.BigInteger} or
+     * {@link java.math.BigDecimal}
+     * @throws IllegalStateException If the current token is not a number
+     * @since 1.1
+     */
+    public Number currentNumber() {
+        if (token != JsonToken.NUMBER)
+            throw new IllegalStateException("Current token " + token + " is not a number");
+        if (value == null && sb.length() == 0)
+            throw new IllegalStateException("The value was skipped");
+        return value != null ? (Number) value.get() : JsonUtil.parseNumber(sb);
+    }
+    
+    // whether the current token is not inside an object or array
+    boolean isAtDocumentLevel() {
+        return depth == 1;
+    }
+    
+    // the text of the current NUMBER token, valid until the next token is read
+    CharSequence numberText() {
+        return sb;
+    }
+    
+    /**
+     * Skips all tokens of the current object or array, stopping at its {@link JsonToken#END_OBJECT}
+     * or {@link JsonToken#END_ARRAY}. Does nothing if the current token does not open a container.
+     */
+    public void skipChildren() {
+        if (token != JsonToken.BEGIN_OBJECT && token != JsonToken.BEGIN_ARRAY)
+            return;
+        
+        int target = depth - 1;
+        do {
+            next();
+        } while (depth > target);
+    }
+    
+    // skips the rest of the current object or array like skipChildren(), but like skipValue()
+    // only balances brackets and quotes, without validating what it skips
+    void skipChildrenUnchecked() {
+        if (token != JsonToken.BEGIN_OBJECT && token != JsonToken.BEGIN_ARRAY)
+            return;
+        
+        skipNested(1, false);
+        pop(token == JsonToken.BEGIN_OBJECT ? JsonToken.END_OBJECT : JsonToken.END_ARRAY);
+    }
+    
+    // one more than the number of objects and arrays that are open
+    int depth() {
+        return depth;
+    }
+    
+    /**
+     * Skips the next value without building it. Objects, arrays and strings are skipped by only
+     * balancing brackets and quotes, without validating their content. Afterwards, the current
+     * token is the {@link JsonToken#END_OBJECT} or {@link JsonToken#END_ARRAY} of a skipped
+     * container, or the token of a skipped primitive, whose value is only available for booleans
+     * and null. If the current array has no more values, its end is read instead.
+     *
+     * @throws IllegalStateException If the parser is positioned before a member name
+     * @since 1.1
+     */
+    public void skipValue() {
+        byte scope = stack[depth - 1];
+        if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT)
+            throw new IllegalStateException("Expected a member name, not a value");
+        
+        skipping = true;
+        try {
+            next();
+        } finally {
+            skipping = false;
+        }
+    }
+    
+    /**
+     * @return The amount of chars consumed from the input, or bytes for UTF-8 input
+     */
+    public abstract long getPosition();
+    
+    @Override
+    public void close() {
+        stack[0] = CLOSED;
+        depth = 1;
+        try {
+            closeInput();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // returns the next char or byte, or -1 at the end of the input
+    abstract int read();
+    
+    // returns the next char or byte that is not JSON whitespace, or -1 at the end of the input
+    abstract int nextNonWhitespace();
+    
+    // returns the next char or byte without consuming it, or -1 at the end of the input
+    abstract int peek();
+    
+    // consumes the char or byte returned by peek()
+    abstract void skip();
+    
+    // reads the rest of a string whose opening quote has been read, taking it from the cache if
+    // one is given
+    abstract String readString(KeyCache cache);
+    
+    // skips input until the given amount of brackets is closed and, if the input is inside a
+    // string, that string has ended. Only quotes, escapes and brackets are looked at.
+    abstract void skipNested(int depth, boolean inString);
+    
+    abstract void closeInput() throws IOException;
+    
+    // decodes the escape after a backslash into sb
+    final void readEscape() {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                sb.append((char) c);
+                break;
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = read();
+                    int digit = hexDigit(h);
+                    if (digit == -1)
+                        throw unexpected(h);
+                    value = value << 4 | digit;
+                }
+                sb.append((char) value);
+                break;
+            default:
+                throw unexpected(c);
+        }
+    }
+    
+    private JsonToken readName(int c) {
+        if (c != '"')
+            throw unexpected(c, '"');
+        name = readString(keyCache);
+        stack[depth - 1] = DANGLING_NAME;
+        return token = JsonToken.NAME;
+    }
+    
+    private JsonToken readValue(int c) {
+        switch (c) {
+            case '{':
+                if (skipping) {
+                    skipNested(1, false);
+                    return token = JsonToken.END_OBJECT;
+                }
+                push(EMPTY_OBJECT);
+                return token = JsonToken.BEGIN_OBJECT;
+            case '[':
+                if (skipping) {
+                    skipNested(1, false);
+                    return token = JsonToken.END_ARRAY;
+                }
+                push(EMPTY_ARRAY);
+                return token = JsonToken.BEGIN_ARRAY;
+            case '"':
+                if (skipping) {
+                    skipNested(0, true);
+                    value = null;
+                } else {
+                    value = new JsonPrimitive(readString(null));
+                }
+                return token = JsonToken.STRING;
+            case 't':
+                readLiteral("true");
+                value = TRUE;
+                return token = JsonToken.BOOLEAN;
+            case 'f':
+                readLiteral("false");
+                value = FALSE;
+                return token = JsonToken.BOOLEAN;
+            case 'n':
+                readLiteral("null");
+                value = JsonPrimitive.NULL;
+                return token = JsonToken.NULL;
+            default:
+                if (skipping) {
+                    skipNumber(c);
+                } else {
+                    readNumber(c);
+                }
+                value = null; // built from sb once it is asked for
+                return token = JsonToken.NUMBER;
+        }
+    }
+    
+    private void readLiteral(String literal) {
+        for (int i = 1; i < literal.length(); i++) {
+            int c = read();
+            if (c != literal.charAt(i))
+                throw unexpected(c, literal.charAt(i));
+        }
+    }
+    
+    // validates a number while reading its text into sb, it is only decoded once its value is used
+    private void readNumber(int c) {
+        sb.setLength(0);
+        if (c == '-') {
+            sb.append('-');
+            c = read();
+        }
+        
+        if (c == '0') {
+            sb.append('0');
+        } else if (isDigit(c)) {
+            sb.append((char) c);
+            readDigits();
+        } else {
+            throw unexpected(c);
+        }
+        
+        if (peek() == '.') {
+            skip();
+            sb.append('.');
+            requireDigits();
+        }
+        
+        c = peek();
+        if (c == 'e' || c == 'E') {
+            skip();
+            sb.append((char) c);
+            c = peek();
+            if (c == '+' || c == '-') {
+                skip();
+                sb.append((char) c);
+            }
+            requireDigits();
+        }
+    }
+    
+    // validates a number like readNumber does, but leaves sb empty to mark the value as skipped
+    private void skipNumber(int c) {
+        sb.setLength(0);
+        if (c == '-')
+            c = read();
+        
+        if (c != '0') {
+            if (!isDigit(c))
+                throw unexpected(c);
+            skipDigits();
+        }
+        
+        if (peek() == '.') {
+            skip();
+            skipRequiredDigits();
+        }
+        
+        c = peek();
+        if (c == 'e' || c == 'E') {
+            skip();
+            c = peek();
+            if (c == '+' || c == '-')
+                skip();
+            skipRequiredDigits();
+        }
+    }
+    
+    private void skipRequiredDigits() {
+        int c = read();
+        if (!isDigit(c))
+            throw unexpected(c);
+        skipDigits();
+    }
+    
+    private void skipDigits() {
+        while (isDigit(peek())) {
+            skip();
+        }
+    }
+    
+    private void requireDigits() {
+        int c = read();
+        if (!isDigit(c))
+            throw unexpected(c);
+        sb.append((char) c);
+        readDigits();
+    }
+    
+    private void readDigits() {
+        int c;
+        while (isDigit(c = peek())) {
+            sb.append((char) c);
+            skip();
+        }
+    }
+    
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    // the value of an ASCII hex digit, -1 for anything else
+    static int hexDigit(int c) {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        c |= 0x20; // lower case
+        if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        return -1;
+    }
+    
+    private JsonToken pop(JsonToken token) {
+        depth--;
+        return this.token = token;
+    }
+    
+    private void push(byte scope) {
+        if (depth == stack.length)
+            stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = scope;
+    }
+    
+    // used for errors found by readers built on top of the parser
+    MalformedJsonException malformed(String reason) {
+        return new MalformedJsonException(json, reason);
+    }
+    
+    MalformedJsonException unexpected(int c) {
+        if (c == -1)
+            return MalformedJsonException.eof(json);
+        return new MalformedJsonException(json, (char) c, col());
+    }
+    
+    MalformedJsonException unexpected(int c, char expected) {
+        if (c == -1)
+            return MalformedJsonException.eof(json);
+        return new MalformedJsonException(json, (char) c, expected, col());
+    }
+    
+    // index of the last char or byte that was read
+    int col() {
+        return (int) Math.min(getPosition() - 1, Integer.MAX_VALUE);
+    }
+}
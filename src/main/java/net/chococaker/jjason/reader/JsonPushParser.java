@@ -0,0 +1,690 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static net.chococaker.jjason.reader.JsonParser.CHAR_FLAGS;
+import static net.chococaker.jjason.reader.JsonParser.NON_ASCII;
+import static net.chococaker.jjason.reader.JsonParser.STRING_SPECIAL;
+import static net.chococaker.jjason.reader.JsonParser.WHITESPACE;
+
+/**
+ * A non-blocking parser for UTF-8 input that arrives in chunks, such as the body of a request read
+ * by an I/O thread. Each chunk is handed over with {@link #feed(ByteBuffer)}, which parses it
+ * completely and returns, reporting every {@link JsonToken} to a {@link Listener} as soon as it is
+ * complete. Tokens may be split between chunks anywhere, even within a UTF-8 sequence or an escape.
+ * <p>
+ * Between chunks, the parser only keeps its stack of open containers and the token it is in the
+ * middle of, so the document is never held in memory as a whole. Once the input has ended,
+ * {@link #endOfInput()} checks that the document is complete.
+ *
+ * <pre>{@code
+ * JsonPushParser parser = JsonPushParser.of(1, element -> handle(element));
+ * // for each chunk received
+ * parser.feed(chunk);
+ * // once the request has ended
+ * parser.endOfInput();
+ * }</pre>
+ *
+ * @since 1.1
+ */
+public final class JsonPushParser {
+    private JsonPushParser(Listener listener) {
+        this.listener = listener;
+    }
+    
+    // scopes kept on the stack, with separate states after commas and colons, as the next token
+    // may be in the next chunk
+    private static final byte EMPTY_DOCUMENT = 0;
+    private static final byte NONEMPTY_DOCUMENT = 1;
+    private static final byte EMPTY_OBJECT = 2;
+    private static final byte DANGLING_NAME = 3;
+    private static final byte MEMBER_VALUE = 4; // after a colon
+    private static final byte NONEMPTY_OBJECT = 5;
+    private static final byte NEXT_NAME = 6; // after a comma in an object
+    private static final byte EMPTY_ARRAY = 7;
+    private static final byte NONEMPTY_ARRAY = 8;
+    private static final byte NEXT_ELEMENT = 9; // after a comma in an array
+    private static final byte CLOSED = 10;
+    
+    // the token being read when a chunk ends
+    private static final byte NONE = 0;
+    private static final byte STRING = 1;
+    private static final byte ESCAPE = 2; // after a backslash
+    private static final byte UNICODE = 3; // within the hex digits of an escaped char
+    private static final byte UTF8 = 4; // within a multi-byte UTF-8 sequence
+    private static final byte LITERAL = 5;
+    private static final byte NUMBER = 6;
+    
+    // the part of a number that was read last
+    private static final byte MINUS = 0;
+    private static final byte ZERO = 1;
+    private static final byte INTEGER = 2;
+    private static final byte POINT = 3;
+    private static final byte FRACTION = 4;
+    private static final byte EXPONENT = 5;
+    private static final byte EXPONENT_SIGN = 6;
+    private static final byte EXPONENT_DIGITS = 7;
+    
+    private final Listener listener;
+    private KeyCache keyCache;
+    
+    private byte[] stack = new byte[32];
+    private int depth = 1;
+    private long position;
+    
+    private byte partial = NONE;
+    private final StringBuilder sb = new StringBuilder();
+    private boolean name; // whether the string being read is a member name
+    private byte numberPart;
+    private String literal;
+    private int read; // chars of the literal or hex digits read
+    private int codePoint; // of the escape or UTF-8 sequence being read
+    private int remaining; // continuation bytes of the UTF-8 sequence
+    private int min; // smallest code point of the sequence's length
+    
+    private JsonToken token;
+    private String currentName;
+    private JsonPrimitive value;
+    
+    /**
+     * Receives the tokens of a {@link JsonPushParser} as they are completed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param parser The parser, whose {@link JsonPushParser#currentName()} and
+         *               {@link JsonPushParser#currentValue()} describe the token
+         * @param token  The token that was read
+         */
+        void onToken(JsonPushParser parser, JsonToken token);
+    }
+    
+    /**
+     * @param listener The listener receiving every token
+     * @return A {@link JsonPushParser} which reports each token to the listener
+     */
+    public static JsonPushParser of(Listener listener) {
+        return new JsonPushParser(listener);
+    }
+    
+    /**
+     * Creates a parser which builds trees of the values found at the given depth and passes each
+     * one on as soon as it is complete. Values above the depth are not built, so a large top-level
+     * array can be processed element by element with a depth of 1.
+     *
+     * @param depth    The depth of the values, 0 being the document itself, 1 the elements or
+     *                 member values of the top-level container, and so on
+     * @param consumer The consumer receiving the values
+     * @return A {@link JsonPushParser} passing the values at the depth to the consumer
+     */
+    public static JsonPushParser of(int depth, Consumer<? super JsonElement> consumer) {
+        if (depth < 0)
+            throw new IllegalArgumentException("Depth must not be negative");
+        return new JsonPushParser(new TreeBuilder(depth, consumer));
+    }
+    
+    /**
+     * Makes the parser take object keys from a {@link KeyCache}, so that keys which repeat share
+     * one {@link String}.
+     *
+     * @param cache The cache, or null to stop using one
+     * @return This parser
+     */
+    public JsonPushParser withKeyCache(KeyCache cache) {
+        this.keyCache = cache;
+        return this;
+    }
+    
+    /**
+     * Parses the bytes between the buffer's position and limit, and moves its position to its
+     * limit. Nothing is kept of the buffer afterwards, so it can be reused right away.
+     *
+     * @param chunk The next part of the UTF-8 input
+     * @throws MalformedJsonException If the input is not valid JSON, after which the parser is
+     *                                closed
+     * @throws IllegalStateException  If the parser is closed
+     */
+    public void feed(ByteBuffer chunk) {
+        if (stack[0] == CLOSED)
+            throw new IllegalStateException("Parser is closed");
+        
+        try {
+            int p = chunk.position();
+            int l = chunk.limit();
+            while (p < l) {
+                if (partial == STRING) {
+                    // copies the bytes that need no decoding at once
+                    int end = p;
+                    while (end < l && (CHAR_FLAGS[chunk.get(end) & 0xFF]
+                            & (STRING_SPECIAL | NON_ASCII)) == 0) {
+                        end++;
+                    }
+                    position += end - p;
+                    for (; p < end; p++) {
+                        sb.append((char) chunk.get(p));
+                    }
+                    if (p == l)
+                        break;
+                } else if (partial == NONE) {
+                    int end = p;
+                    while (end < l && (CHAR_FLAGS[chunk.get(end) & 0xFF] & WHITESPACE) != 0) {
+                        end++;
+                    }
+                    position += end - p;
+                    p = end;
+                    if (p == l)
+                        break;
+                }
+                
+                position++;
+                accept(chunk.get(p++) & 0xFF);
+            }
+            ((Buffer) chunk).position(l); // Buffer's, as ByteBuffer's is new in Java 9
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Ends the input, which completes a top-level number and reports the
+     * {@link JsonToken#END_DOCUMENT}. The parser is closed afterwards.
+     *
+     * @throws MalformedJsonException If the document is incomplete
+     * @throws IllegalStateException  If the parser is closed
+     */
+    public void endOfInput() {
+        if (stack[0] == CLOSED)
+            throw new IllegalStateException("Parser is closed");
+        
+        try {
+            if (partial == NUMBER)
+                number(-1);
+            if (partial != NONE || depth > 1 || stack[0] == EMPTY_DOCUMENT)
+                throw MalformedJsonException.eof(null);
+            emit(JsonToken.END_DOCUMENT);
+        } finally {
+            close();
+        }
+    }
+    
+    /**
+     * @return The last token that was reported, or null if nothing has been reported yet
+     */
+    public JsonToken current() {
+        return token;
+    }
+    
+    /**
+     * @return The name of the last object member that was read
+     */
+    public String currentName() {
+        return currentName;
+    }
+    
+    /**
+     * @return The value of the current {@link JsonToken#STRING}, {@link JsonToken#NUMBER},
+     * {@link JsonToken#BOOLEAN} or {@link JsonToken#NULL} token. A number is only available while
+     * it is being reported.
+     * @throws IllegalStateException If the current token is not a value
+     */
+    public JsonPrimitive currentValue() {
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER
+                && token != JsonToken.BOOLEAN && token != JsonToken.NULL)
+            throw new IllegalStateException("Current token " + token + " is not a value");
+        if (value == null)
+            value = JsonPrimitive.lazyNumber(sb.toString());
+        return value;
+    }
+    
+    /**
+     * @return The amount of bytes fed to the parser
+     */
+    public long getPosition() {
+        return position;
+    }
+    
+    private void close() {
+        stack[0] = CLOSED;
+        depth = 1;
+    }
+    
+    private void accept(int c) {
+        switch (partial) {
+            case NONE:
+                structural(c);
+                break;
+            case STRING:
+                string(c);
+                break;
+            case ESCAPE:
+                escape(c);
+                break;
+            case UNICODE:
+                int digit = JsonParser.hexDigit(c);
+                if (digit == -1)
+                    throw unexpected(c);
+                codePoint = codePoint << 4 | digit;
+                if (++read == 4) {
+                    sb.append((char) codePoint);
+                    partial = STRING;
+                }
+                break;
+            case UTF8:
+                continuation(c);
+                break;
+            case LITERAL:
+                if (c != literal.charAt(read))
+                    throw unexpected(c, literal.charAt(read));
+                if (++read == literal.length()) {
+                    partial = NONE;
+                    value = literal.equals("null") ? JsonPrimitive.NULL
+                            : new JsonPrimitive(literal.equals("true"));
+                    emit(value == JsonPrimitive.NULL ? JsonToken.NULL : JsonToken.BOOLEAN);
+                }
+                break;
+            default:
+                number(c);
+        }
+    }
+    
+    // a byte between tokens
+    private void structural(int c) {
+        if ((CHAR_FLAGS[c] & WHITESPACE) != 0)
+            return;
+        
+        switch (stack[depth - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                beginValue(c);
+                break;
+            case EMPTY_OBJECT:
+                if (c == '}') {
+                    pop(JsonToken.END_OBJECT);
+                } else {
+                    beginName(c);
+                }
+                break;
+            case NEXT_NAME:
+                beginName(c);
+                break;
+            case DANGLING_NAME:
+                if (c != ':')
+                    throw unexpected(c, ':');
+                stack[depth - 1] = MEMBER_VALUE;
+                break;
+            case MEMBER_VALUE:
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                beginValue(c);
+                break;
+            case NONEMPTY_OBJECT:
+                if (c == '}') {
+                    pop(JsonToken.END_OBJECT);
+                } else if (c == ',') {
+                    stack[depth - 1] = NEXT_NAME;
+                } else {
+                    throw unexpected(c);
+                }
+                break;
+            case EMPTY_ARRAY:
+                if (c == ']') {
+                    pop(JsonToken.END_ARRAY);
+                } else {
+                    stack[depth - 1] = NONEMPTY_ARRAY;
+                    beginValue(c);
+                }
+                break;
+            case NEXT_ELEMENT:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                beginValue(c);
+                break;
+            case NONEMPTY_ARRAY:
+                if (c == ']') {
+                    pop(JsonToken.END_ARRAY);
+                } else if (c == ',') {
+                    stack[depth - 1] = NEXT_ELEMENT;
+                } else {
+                    throw unexpected(c);
+                }
+                break;
+            default: // NONEMPTY_DOCUMENT
+                throw unexpected(c);
+        }
+    }
+    
+    private void beginName(int c) {
+        if (c != '"')
+            throw unexpected(c, '"');
+        beginString(true);
+    }
+    
+    private void beginValue(int c) {
+        switch (c) {
+            case '{':
+                push(EMPTY_OBJECT);
+                emit(JsonToken.BEGIN_OBJECT);
+                break;
+            case '[':
+                push(EMPTY_ARRAY);
+                emit(JsonToken.BEGIN_ARRAY);
+                break;
+            case '"':
+                beginString(false);
+                break;
+            case 't':
+                beginLiteral("true");
+                break;
+            case 'f':
+                beginLiteral("false");
+                break;
+            case 'n':
+                beginLiteral("null");
+                break;
+            default:
+                if (c != '-' && (c < '0' || c > '9'))
+                    throw unexpected(c);
+                sb.setLength(0);
+                sb.append((char) c);
+                numberPart = c == '-' ? MINUS : c == '0' ? ZERO : INTEGER;
+                partial = NUMBER;
+        }
+    }
+    
+    private void beginString(boolean name) {
+        this.name = name;
+        sb.setLength(0);
+        partial = STRING;
+    }
+    
+    private void beginLiteral(String literal) {
+        this.literal = literal;
+        read = 1;
+        partial = LITERAL;
+    }
+    
+    private void string(int c) {
+        byte flags = CHAR_FLAGS[c];
+        if ((flags & (STRING_SPECIAL | NON_ASCII)) == 0) {
+            sb.append((char) c);
+        } else if (flags == NON_ASCII) {
+            if ((c & 0xE0) == 0xC0) {
+                codePoint = c & 0x1F;
+                remaining = 1;
+                min = 0x80;
+            } else if ((c & 0xF0) == 0xE0) {
+                codePoint = c & 0x0F;
+                remaining = 2;
+                min = 0x800;
+            } else if ((c & 0xF8) == 0xF0) {
+                codePoint = c & 0x07;
+                remaining = 3;
+                min = 0x10000;
+            } else {
+                throw invalidUtf8();
+            }
+            partial = UTF8;
+        } else if (c == '"') {
+            partial = NONE;
+            if (name) {
+                currentName = keyCache == null ? sb.toString() : keyCache.get(sb, 0, sb.length());
+                stack[depth - 1] = DANGLING_NAME;
+                emit(JsonToken.NAME);
+            } else {
+                value = new JsonPrimitive(sb.toString());
+                emit(JsonToken.STRING);
+            }
+        } else if (c == '\\') {
+            partial = ESCAPE;
+        } else {
+            throw unexpected(c);
+        }
+    }
+    
+    private void continuation(int c) {
+        if ((c & 0xC0) != 0x80)
+            throw invalidUtf8();
+        codePoint = codePoint << 6 | c & 0x3F;
+        if (--remaining > 0)
+            return;
+        
+        // overlong encodings, surrogates and values past the unicode range
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE))
+            throw invalidUtf8();
+        sb.appendCodePoint(codePoint);
+        partial = STRING;
+    }
+    
+    private void escape(int c) {
+        partial = STRING;
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                sb.append((char) c);
+                break;
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            case 'u':
+                codePoint = 0;
+                read = 0;
+                partial = UNICODE;
+                break;
+            default:
+                throw unexpected(c);
+        }
+    }
+    
+    // validates a number while reading its text into sb. A number only ends at the byte after it,
+    // which is then read as the next token, or at the end of the input, which is -1.
+    private void number(int c) {
+        boolean digit = c >= '0' && c <= '9';
+        switch (numberPart) {
+            case MINUS:
+                if (!digit)
+                    throw unexpected(c);
+                numberPart = c == '0' ? ZERO : INTEGER;
+                break;
+            case INTEGER:
+                if (!digit && !beginFractionOrExponent(c))
+                    return;
+                break;
+            case ZERO:
+                if (!beginFractionOrExponent(c))
+                    return;
+                break;
+            case POINT:
+                if (!digit)
+                    throw unexpected(c);
+                numberPart = FRACTION;
+                break;
+            case FRACTION:
+                if (digit)
+                    break;
+                if (c != 'e' && c != 'E') {
+                    endNumber(c);
+                    return;
+                }
+                numberPart = EXPONENT;
+                break;
+            case EXPONENT:
+                if (c == '+' || c == '-') {
+                    numberPart = EXPONENT_SIGN;
+                } else if (digit) {
+                    numberPart = EXPONENT_DIGITS;
+                } else {
+                    throw unexpected(c);
+                }
+                break;
+            case EXPONENT_SIGN:
+                if (!digit)
+                    throw unexpected(c);
+                numberPart = EXPONENT_DIGITS;
+                break;
+            default: // EXPONENT_DIGITS
+                if (!digit) {
+                    endNumber(c);
+                    return;
+                }
+        }
+        sb.append((char) c);
+    }
+    
+    // after the integer part, either begins the fraction or exponent, or ends the number and
+    // returns false
+    private boolean beginFractionOrExponent(int c) {
+        if (c == '.') {
+            numberPart = POINT;
+        } else if (c == 'e' || c == 'E') {
+            numberPart = EXPONENT;
+        } else {
+            endNumber(c);
+            return false;
+        }
+        return true;
+    }
+    
+    private void endNumber(int c) {
+        partial = NONE;
+        value = null; // built from sb once it is asked for
+        emit(JsonToken.NUMBER);
+        if (c != -1)
+            structural(c);
+    }
+    
+    private void emit(JsonToken token) {
+        this.token = token;
+        listener.onToken(this, token);
+    }
+    
+    private void pop(JsonToken token) {
+        depth--;
+        emit(token);
+    }
+    
+    private void push(byte scope) {
+        if (depth == stack.length)
+            stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = scope;
+    }
+    
+    private MalformedJsonException unexpected(int c) {
+        if (c == -1)
+            return MalformedJsonException.eof(null);
+        return new MalformedJsonException(null, (char) c, col());
+    }
+    
+    private MalformedJsonException unexpected(int c, char expected) {
+        return new MalformedJsonException(null, (char) c, expected, col());
+    }
+    
+    private MalformedJsonException invalidUtf8() {
+        return new MalformedJsonException(null, "Invalid UTF-8 sequence at byte " + col());
+    }
+    
+    // index of the last byte that was read
+    private int col() {
+        return (int) Math.min(position - 1, Integer.MAX_VALUE);
+    }
+    
+    // builds the values at one depth from the tokens
+    private static final class TreeBuilder implements Listener {
+        TreeBuilder(int depth, Consumer<? super JsonElement> consumer) {
+            this.depth = depth;
+            this.consumer = consumer;
+        }
+        
+        private final int depth;
+        private final Consumer<? super JsonElement> consumer;
+        private final List<JsonElement> containers = new ArrayList<>(); // the ones being built
+        private int level; // containers opened by the parser
+        
+        @Override
+        public void onToken(JsonPushParser parser, JsonToken token) {
+            switch (token) {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    if (level++ >= depth) {
+                        JsonElement container = token == JsonToken.BEGIN_OBJECT
+                                ? new JsonObject() : new JsonArray();
+                        if (!containers.isEmpty())
+                            add(parser, container);
+                        containers.add(container);
+                    }
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    if (--level >= depth) {
+                        JsonElement container = containers.remove(containers.size() - 1);
+                        if (containers.isEmpty())
+                            consumer.accept(container);
+                    }
+                    break;
+                case NAME:
+                case END_DOCUMENT:
+                    break;
+                default:
+                    if (level < depth)
+                        break;
+                    if (containers.isEmpty()) {
+                        consumer.accept(parser.currentValue());
+                    } else {
+                        add(parser, parser.currentValue());
+                    }
+            }
+        }
+        
+        private void add(JsonPushParser parser, JsonElement element) {
+            JsonElement parent = containers.get(containers.size() - 1);
+            if (parent instanceof JsonArray) {
+                ((JsonArray) parent).add(element);
+                return;
+            }
+            
+            String key = parser.currentName();
+            JsonObject object = (JsonObject) parent;
+            if (object.get(key) != null)
+                throw new MalformedJsonException(null, "Duplicate keys '" + key + '\'');
+            object.set(key, element);
+        }
+    }
+}
@@ -17,6 +17,7 @@ package net.chococaker.jjason.reader;
 
 import net.chococaker.jjason.JsonArray;
 import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonNumberArray;
 import net.chococaker.jjason.JsonObject;
 import net.chococaker.jjason.JsonPrimitive;
 import net.chococaker.jjason.exception.MalformedJsonException;
@@ -32,27 +33,42 @@ import static java.lang.Character.isWhitespace;
 import static net.chococaker.jjason.util.JsonUtil.unescape;
 
 /**
- * Reads a {@link CharSequence} and parses it into a {@link T}.
+ * Reads a {@link CharSequence} or the tokens of a {@link JsonParser} and parses them into a
+ * {@link T}.
  *
  * @param <T> The type of JsonElement.
  * @see CharSequence
+ * @see JsonParser
  * @see JsonObject
  * @since 1.0
  */
 public abstract class JsonReader<T extends JsonElement> {
     public JsonReader(CharSequence json) {
-        this.json = json.toString();
-        this.iter = new JsonStringIterator(this.json);
+        this(JsonParser.of(json), json.toString());
+    }
+    
+    protected JsonReader(JsonParser parser) {
+        this(parser, null);
+    }
+    
+    // the deprecated members are only set up for readers of a CharSequence
+    @SuppressWarnings("deprecation")
+    private JsonReader(JsonParser parser, String json) {
+        this.parser = parser;
+        this.json = json;
+        this.iter = json == null ? null : new JsonStringIterator(json);
+        this.sb = json == null ? null : new StringBuilder();
     }
     
     // all tokens
-    protected static final char BLOCK_OPEN = '{';
-    protected static final char ARRAY_OPEN = '[';
-    protected static final char BLOCK_CLOSE = '}';
-    protected static final char ARRAY_CLOSE = ']';
-    protected static final char COLON = ':';
-    protected static final char COMMA = ',';
+    @Deprecated protected static final char BLOCK_OPEN = '{';
+    @Deprecated protected static final char ARRAY_OPEN = '[';
+    @Deprecated protected static final char BLOCK_CLOSE = '}';
+    @Deprecated protected static final char ARRAY_CLOSE = ']';
+    @Deprecated protected static final char COLON = ':';
+    @Deprecated protected static final char COMMA = ',';
     
+    @Deprecated
     protected static final Set<Character> TOKENS = Collections.unmodifiableSet(new HashSet<Character>() {{
         add(BLOCK_OPEN); add(BLOCK_CLOSE);
         add(ARRAY_OPEN); add(ARRAY_CLOSE);
@@ -64,12 +80,33 @@ public abstract class JsonReader<T extends JsonElement> {
         add('"'); // strings
     }});
     
-    protected static final String NULL_STRING = "null";
+    @Deprecated protected static final String NULL_STRING = "null";
     
+    protected final JsonParser parser;
+    private boolean numberArrays;
+    
+    /**
+     * The input, or null if this reader was created from a {@link JsonParser}.
+     *
+     * @deprecated Readers read through {@link #parser}.
+     */
+    @Deprecated
     protected final String json;
+    
+    /**
+     * An iterator over {@link #json}, or null if this reader was created from a
+     * {@link JsonParser}. The reader itself does not advance it.
+     *
+     * @deprecated Readers read through {@link #parser}.
+     */
+    @Deprecated
     protected final JsonStringIterator iter;
     
-    protected final StringBuilder sb = new StringBuilder();
+    /**
+     * @deprecated Only used by the deprecated methods reading from {@link #iter}.
+     */
+    @Deprecated
+    protected final StringBuilder sb;
     
     /**
      * @return A {@link JsonElement} parsed in accordance to
@@ -78,20 +115,175 @@ public abstract class JsonReader<T extends JsonElement> {
      */
     public abstract T read();
     
+    /**
+     * Makes the reader take object keys from a {@link KeyCache}, so that keys which repeat share
+     * one {@link String}.
+     *
+     * @param cache The cache, or null to stop using one
+     * @return This reader
+     * @since 1.1
+     */
+    public JsonReader<T> withKeyCache(KeyCache cache) {
+        parser.withKeyCache(cache);
+        return this;
+    }
+    
+    /**
+     * Makes the reader read nested arrays of numbers into a {@link JsonNumberArray}, which stores
+     * them in a primitive array instead of boxing each of them. An array is only read that way if
+     * its numbers all decode to one type and are written the way
+     * {@link net.chococaker.jjason.writer.JsonWriter} writes that type, so that the array is
+     * written back unchanged. Other arrays are read into a {@link JsonArray} of lazily parsed
+     * numbers, as they are by default.
+     * <p>
+     * As a {@link JsonNumberArray} is not a {@link JsonArray}, its elements are parsed when it is
+     * read and it is only converted by {@link JsonElement#getAsJsonArray()}.
+     *
+     * @param numberArrays Whether to read nested arrays of numbers into a {@link JsonNumberArray}
+     * @return This reader
+     * @since 1.1
+     */
+    public JsonReader<T> withNumberArrays(boolean numberArrays) {
+        this.numberArrays = numberArrays;
+        return this;
+    }
+    
     /**
      * @return A {@link JsonReader} for a {@link JsonArray}
      */
     public static JsonReader<JsonArray> arrayReader(String arrayJson) {
-        return new JsonArrayReader(arrayJson);
+        return new JsonArrayReader(JsonParser.of(arrayJson));
     }
     
     /**
      * @return A {@link JsonReader} for a {@link JsonObject}
      */
     public static JsonReader<JsonObject> objectReader(String objectJson) {
-        return new JsonObjectReader(objectJson);
+        return new JsonObjectReader(JsonParser.of(objectJson));
+    }
+    
+    /**
+     * @param parser The parser to read from. If it is not positioned on a
+     *               {@link JsonToken#BEGIN_ARRAY}, the next token is read first.
+     * @return A {@link JsonReader} for a {@link JsonArray}
+     */
+    public static JsonReader<JsonArray> arrayReader(JsonParser parser) {
+        return new JsonArrayReader(parser);
     }
     
+    /**
+     * @param parser The parser to read from. If it is not positioned on a
+     *               {@link JsonToken#BEGIN_OBJECT}, the next token is read first.
+     * @return A {@link JsonReader} for a {@link JsonObject}
+     */
+    public static JsonReader<JsonObject> objectReader(JsonParser parser) {
+        return new JsonObjectReader(parser);
+    }
+    
+    /**
+     * Creates a reader which validates and indexes the whole input in one pass, but only builds
+     * the values that are used. Members of the returned object are built once they are retrieved
+     * with {@link JsonObject#get(String)}, and arrays are built one level at a time. Unlike other
+     * readers, duplicate keys are not detected; the first one is used.
+     * <p>
+     * Members are built under the lock of their object, so lazy trees can be read from several
+     * threads like any other tree, while modifying them still needs external synchronization.
+     *
+     * @return A lazy {@link JsonReader} for a {@link JsonObject}
+     */
+    public static JsonReader<JsonObject> lazyObjectReader(String objectJson) {
+        return new LazyJsonReader<>(objectJson, JsonObject.class);
+    }
+    
+    /**
+     * @return A lazy {@link JsonReader} for a {@link JsonArray}
+     * @see #lazyObjectReader(String)
+     */
+    public static JsonReader<JsonArray> lazyArrayReader(String arrayJson) {
+        return new LazyJsonReader<>(arrayJson, JsonArray.class);
+    }
+    
+    /**
+     * Creates a reader for large arrays. A quick pre-scan, which only tracks strings and
+     * brackets, finds the elements of the array, which are then parsed in batches on the
+     * {@link java.util.concurrent.ForkJoinPool} of the calling task, or the common pool. Inputs
+     * shorter than 1 MiB chars, inputs that are not an array, and malformed inputs are read
+     * sequentially like {@link #arrayReader(String)} does, so errors are reported the same way.
+     * <p>
+     * A {@link KeyCache} set with {@link #withKeyCache(KeyCache)} is only used when reading
+     * sequentially, as it cannot be shared between threads.
+     *
+     * @return A parallel {@link JsonReader} for a {@link JsonArray}
+     * @since 1.1
+     */
+    public static JsonReader<JsonArray> parallelArrayReader(String arrayJson) {
+        return new ParallelArrayReader(arrayJson);
+    }
+    
+    // reads the value starting at the current token
+    protected JsonElement readValue() {
+        switch (parser.current()) {
+            case BEGIN_OBJECT:
+                return readObject();
+            case BEGIN_ARRAY:
+                return numberArrays ? readNestedArray() : readArray();
+            default:
+                return parser.currentValue();
+        }
+    }
+    
+    // arrays of numbers of one type are read into a JsonNumberArray, without boxing them
+    private JsonElement readNestedArray() {
+        JsonToken token = parser.next();
+        if (token != JsonToken.NUMBER) {
+            return readArray(new JsonArray(), token);
+        }
+        
+        NumberArrayBuilder numbers = new NumberArrayBuilder();
+        while (token == JsonToken.NUMBER && numbers.add(parser.numberText())) {
+            token = parser.next();
+        }
+        if (token == JsonToken.END_ARRAY) {
+            return numbers.build();
+        }
+        return readArray(numbers.toJsonArray(), token);
+    }
+    
+    protected JsonArray readArray() {
+        return readArray(new JsonArray(), parser.next());
+    }
+    
+    // reads the rest of an array, starting at the given current token
+    private JsonArray readArray(JsonArray array, JsonToken token) {
+        while (token != JsonToken.END_ARRAY) {
+            array.add(readValue());
+            token = parser.next();
+        }
+        
+        return array;
+    }
+    
+    protected JsonObject readObject() {
+        JsonObject jsonObject = new JsonObject();
+        while (parser.next() != JsonToken.END_OBJECT) {
+            String key = parser.currentName();
+            if (jsonObject.get(key) != null) {
+                throw parser.malformed("Duplicate keys '" + key + '\'');
+            }
+            
+            parser.next();
+            jsonObject.set(key, readValue());
+        }
+        
+        return jsonObject;
+    }
+    
+    /**
+     * Reads a boolean from {@link #iter}.
+     *
+     * @deprecated Readers read through {@link #parser}.
+     */
+    @Deprecated
     protected JsonPrimitive readBoolean() {
         boolean expectedBoolean = (iter.current() == 't'); // can only be true or false
         String booleanString = Boolean.toString(expectedBoolean);
@@ -110,6 +302,12 @@ public abstract class JsonReader<T extends JsonElement> {
         }
     }
     
+    /**
+     * Reads a number from {@link #iter}.
+     *
+     * @deprecated Readers read through {@link #parser}.
+     */
+    @Deprecated
     protected JsonPrimitive readNumber() {
         char c = iter.current();
         while (true) {
@@ -132,7 +330,7 @@ public abstract class JsonReader<T extends JsonElement> {
         
         String sbString = sb.toString();
         sb.setLength(0);
-        try { // TODO: improve this system!
+        try {
             int i = Integer.parseInt(sbString);
             return new JsonPrimitive(i);
         } catch (NumberFormatException ignored) {
@@ -161,6 +359,12 @@ public abstract class JsonReader<T extends JsonElement> {
         }
     }
     
+    /**
+     * Reads a string from {@link #iter}.
+     *
+     * @deprecated Readers read through {@link #parser}.
+     */
+    @Deprecated
     protected JsonPrimitive readString() {
         iter.next();
         
@@ -183,6 +387,12 @@ public abstract class JsonReader<T extends JsonElement> {
         }
     }
     
+    /**
+     * Reads a null from {@link #iter}.
+     *
+     * @deprecated Readers read through {@link #parser}.
+     */
+    @Deprecated
     protected JsonPrimitive readNull() {
         char c = iter.current();
         for (int i = 0; i < NULL_STRING.length(); i++) {
@@ -199,90 +409,12 @@ public abstract class JsonReader<T extends JsonElement> {
         return JsonPrimitive.NULL;
     }
     
-    protected JsonArray readArray() {
-        next();
-        JsonArray array = new JsonArray();
-        
-        char c = iter.current();
-        while (true) {
-            if (c == 't' || c == 'f') {
-                array.add(readBoolean());
-            } else if (c == 'n') {
-                array.add(readNull());
-            } else if (c == '"') {
-                array.add(readString());
-            } else if (c == ARRAY_OPEN) {
-                array.add(readArray());
-            } else if (c == BLOCK_OPEN) {
-                array.add(read());
-            } else {
-                // all invalid characters are handled here
-                // so no need for extra handling
-                array.add(readNumber());
-            }
-            
-            next();
-            c = iter.current();
-            if (c == ARRAY_CLOSE) {
-                return array;
-            } else if (c != COMMA) {
-                throw new MalformedJsonException(json, c, iter.getIndex());
-            }
-            next();
-            c = iter.current();
-        }
-    }
-    
-    protected JsonObject readObject() {
-        next();
-        JsonObject jsonObject = new JsonObject();
-        char c = iter.current();
-        
-        while (c != BLOCK_CLOSE) {
-            String key = (String) readString().get();
-            if (jsonObject.get(key) != null) {
-                throw new MalformedJsonException(json, "Duplicate keys '" + readString() + '\'');
-            }
-            next();
-            c = iter.current();
-            if (c != COLON) {
-                throw new MalformedJsonException(json, c, COLON, iter.getIndex());
-            }
-            next();
-            c = iter.current();
-            if (c == 't' || c == 'f') {
-                jsonObject.set(key, readBoolean());
-            } else if (c == 'n') {
-                jsonObject.set(key, readNull());
-            } else if (c == '"') {
-                jsonObject.set(key, readString());
-            } else if (c == ARRAY_OPEN) {
-                jsonObject.set(key, readArray());
-            } else if (c == BLOCK_OPEN) {
-                jsonObject.set(key, readObject());
-            } else {
-                // all invalid characters are handled here
-                // so no need for extra handling
-                jsonObject.set(key, readNumber());
-            }
-            
-            next();
-            c = iter.current();
-            
-            if (c == BLOCK_CLOSE) {
-                return jsonObject;
-            }
-            if (c != COMMA) {
-                throw new MalformedJsonException(json, c, iter.getIndex());
-            }
-            
-            next();
-        }
-        
-        return jsonObject;
-    }
-    
-    // go to next token/value starter
+    /**
+     * Moves {@link #iter} to the next token or value starter.
+     *
+     * @deprecated Readers read through {@link #parser}.
+     */
+    @Deprecated
     protected void next() {
         char c = iter.next();
         while (isWhitespace(c)) {
@@ -293,4 +425,23 @@ public abstract class JsonReader<T extends JsonElement> {
             throw new MalformedJsonException(json, c, iter.getIndex());
         }
     }
+    
+    // rejects anything but whitespace after the value if it is the whole document, values read
+    // from within a document are followed by the rest of it
+    void requireEnd() {
+        if (parser.isAtDocumentLevel())
+            parser.next();
+    }
+    
+    // reads the next token unless the parser is already at the expected one
+    protected void require(JsonToken expected) {
+        JsonToken token = parser.current();
+        if (token != expected) {
+            token = parser.next();
+            if (token != expected) {
+                throw parser.malformed("Unexpected " + token + ", expected " + expected
+                        + " at col " + (parser.getPosition() - 1));
+            }
+        }
+    }
 }
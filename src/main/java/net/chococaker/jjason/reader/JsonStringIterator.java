@@ -22,6 +22,10 @@ import java.text.StringCharacterIterator;
 
 // a StringCharacterIterator except it throws a MalformedJsonException
 // when next() is called instead of returning '\uFFFF' (EOF char)
+/**
+ * @deprecated The readers no longer read character by character; use a {@link JsonParser}.
+ */
+@Deprecated
 public class JsonStringIterator implements CharacterIterator {
     public JsonStringIterator(String json) {
         this(json, new StringCharacterIterator(json));
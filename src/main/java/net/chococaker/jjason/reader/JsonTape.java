@@ -0,0 +1,492 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import net.chococaker.jjason.util.TreeAccess;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static net.chococaker.jjason.util.JsonUtil.unescape;
+
+// Validates a whole document in one pass and records where each of its tokens is in a "tape",
+// from which values are only built when they are used.
+//
+// Each token takes one long: its type in the top byte and a payload below it. Containers hold the
+// index of the entry after their END, so that they can be skipped in one step. Strings and numbers
+// hold their start offset, and are followed by a second entry holding their end offset.
+final class JsonTape {
+    private JsonTape(String json, KeyCache keyCache, boolean numberArrays) {
+        this.json = json;
+        this.keyCache = keyCache;
+        this.numberArrays = numberArrays;
+        this.tape = new long[INITIAL_CAPACITY];
+    }
+    
+    // most documents are small, larger tapes double until the document fits
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private static final TreeAccess.ObjectAccess OBJECTS = TreeAccess.objects();
+    
+    private static final int TYPE_SHIFT = 56;
+    private static final long PAYLOAD = (1L << TYPE_SHIFT) - 1;
+    private static final long ESCAPED = 1L << TYPE_SHIFT - 1; // set on the end of escaped strings
+    
+    private static final int OBJECT = 1;
+    private static final int ARRAY = 2;
+    private static final int END = 3;
+    private static final int STRING = 4;
+    private static final int NUMBER = 5;
+    private static final int TRUE = 6;
+    private static final int FALSE = 7;
+    private static final int NULL = 8;
+    
+    private final String json;
+    private final KeyCache keyCache; // null if keys are not cached
+    private final boolean numberArrays;
+    private long[] tape;
+    private int size;
+    private int pos;
+    
+    /**
+     * @param keyCache     The cache to take object keys from once they are built, or null
+     * @param numberArrays Whether nested arrays of numbers are built into a JsonNumberArray
+     * @return The tape of the given document
+     * @throws MalformedJsonException If the document is not valid JSON
+     */
+    static JsonTape scan(String json, KeyCache keyCache, boolean numberArrays) {
+        JsonTape tape = new JsonTape(json, keyCache, numberArrays);
+        tape.scan();
+        return tape;
+    }
+    
+    /**
+     * @return The top-level value, built lazily
+     */
+    JsonElement root() {
+        return isArray() ? array(0, false) : element(0);
+    }
+    
+    boolean isObject() {
+        return type(0) == OBJECT;
+    }
+    
+    boolean isArray() {
+        return type(0) == ARRAY;
+    }
+    
+    private JsonElement element(int i) {
+        switch (type(i)) {
+            case OBJECT:
+                return object(i);
+            case ARRAY:
+                return array(i, true);
+            case STRING:
+                return new JsonPrimitive(string(i));
+            case NUMBER:
+                return JsonPrimitive.lazyNumber(json.substring(start(i), (int) tape[i + 1]));
+            case TRUE:
+                return new JsonPrimitive(true);
+            case FALSE:
+                return new JsonPrimitive(false);
+            default:
+                return JsonPrimitive.NULL;
+        }
+    }
+    
+    private JsonObject object(int i) {
+        return OBJECTS.lazy(new Members(i));
+    }
+    
+    // if enabled, nested arrays of numbers of one type become a JsonNumberArray
+    private JsonElement array(int i, boolean nested) {
+        if (nested && numberArrays && type(i + 1) == NUMBER) {
+            NumberArrayBuilder numbers = new NumberArrayBuilder();
+            int j = i + 1;
+            while (type(j) == NUMBER && numbers.add(json.subSequence(start(j), (int) tape[j + 1])))
+                j += 2;
+            if (type(j) == END)
+                return numbers.build();
+        }
+        
+        JsonArray array = new JsonArray();
+        for (int j = i + 1; type(j) != END; j = skip(j)) {
+            array.add(element(j));
+        }
+        return array;
+    }
+    
+    private String string(int i) {
+        long end = tape[i + 1];
+        int start = start(i);
+        if ((end & ESCAPED) == 0)
+            return json.substring(start, (int) end);
+        return unescape(json, start, (int) (end & ~ESCAPED));
+    }
+    
+    private String key(int i) {
+        long end = tape[i + 1];
+        if (keyCache == null || (end & ESCAPED) != 0)
+            return string(i);
+        // keys are built whenever members are used, possibly by several threads at once
+        synchronized (keyCache) {
+            return keyCache.get(json, start(i), (int) end);
+        }
+    }
+    
+    // compares a key on the tape without building it
+    private boolean keyEquals(int i, String key) {
+        long end = tape[i + 1];
+        if ((end & ESCAPED) != 0) {
+            return string(i).equals(key);
+        }
+        
+        int start = start(i);
+        return (int) end - start == key.length() && json.regionMatches(start, key, 0, key.length());
+    }
+    
+    private int type(int i) {
+        return (int) (tape[i] >>> TYPE_SHIFT);
+    }
+    
+    private int start(int i) {
+        return (int) (tape[i] & PAYLOAD);
+    }
+    
+    // index of the entry after the value at i
+    private int skip(int i) {
+        switch (type(i)) {
+            case OBJECT:
+            case ARRAY:
+                return (int) (tape[i] & PAYLOAD);
+            case STRING:
+            case NUMBER:
+                return i + 2;
+            default:
+                return i + 1;
+        }
+    }
+    
+    private void scan() {
+        int[] open = new int[16]; // tape indices of the open containers
+        int depth = 0;
+        
+        int c = nextNonWhitespace();
+        value:
+        while (true) {
+            switch (c) {
+                case '{':
+                case '[':
+                    if (depth == open.length)
+                        open = Arrays.copyOf(open, depth * 2);
+                    open[depth++] = size;
+                    add(c == '{' ? OBJECT : ARRAY, 0); // the end is filled in by close
+                    
+                    int first = nextNonWhitespace();
+                    if (first == (c == '{' ? '}' : ']')) {
+                        close(open[--depth]);
+                        break;
+                    }
+                    c = c == '{' ? readKey(first) : first;
+                    continue value;
+                case '"':
+                    readString();
+                    break;
+                case 't':
+                    readLiteral("true", TRUE);
+                    break;
+                case 'f':
+                    readLiteral("false", FALSE);
+                    break;
+                case 'n':
+                    readLiteral("null", NULL);
+                    break;
+                default:
+                    readNumber(c);
+                    break;
+            }
+            
+            // a value was read, continue with its container
+            while (true) {
+                if (depth == 0) {
+                    c = nextNonWhitespace();
+                    if (c != -1)
+                        throw unexpected(c);
+                    return;
+                }
+                
+                int container = open[depth - 1];
+                boolean object = type(container) == OBJECT;
+                c = nextNonWhitespace();
+                if (c == ',') {
+                    c = nextNonWhitespace();
+                    if (object)
+                        c = readKey(c);
+                    continue value;
+                }
+                
+                if (c != (object ? '}' : ']'))
+                    throw unexpected(c);
+                close(container);
+                depth--;
+            }
+        }
+    }
+    
+    // reads a key and its colon, returning the first char of the value
+    private int readKey(int c) {
+        if (c != '"')
+            throw unexpected(c, '"');
+        readString();
+        c = nextNonWhitespace();
+        if (c != ':')
+            throw unexpected(c, ':');
+        return nextNonWhitespace();
+    }
+    
+    private void readString() {
+        String json = this.json;
+        int start = pos;
+        boolean escaped = false;
+        while (true) {
+            if (pos == json.length())
+                throw MalformedJsonException.eof(json);
+            
+            char c = json.charAt(pos++);
+            if (c == '"')
+                break;
+            if (c < 0x20)
+                throw unexpected(c);
+            
+            if (c == '\\') {
+                escaped = true;
+                int e = read();
+                if (e == 'u') {
+                    for (int i = 0; i < 4; i++) {
+                        int h = read();
+                        if (JsonParser.hexDigit(h) == -1)
+                            throw unexpected(h);
+                    }
+                } else if ("\"\\/bfnrt".indexOf(e) == -1) {
+                    throw unexpected(e);
+                }
+            }
+        }
+        
+        add(STRING, start);
+        add(0, escaped ? pos - 1 | ESCAPED : pos - 1);
+    }
+    
+    private void readNumber(int c) {
+        int start = pos - 1;
+        if (c == '-')
+            c = read();
+        
+        if (c == '0') {
+            c = peek();
+        } else if (isDigit(c)) {
+            c = skipDigits();
+        } else {
+            throw unexpected(c);
+        }
+        
+        if (c == '.') {
+            pos++;
+            requireDigit();
+            c = skipDigits();
+        }
+        
+        if (c == 'e' || c == 'E') {
+            pos++;
+            c = peek();
+            if (c == '+' || c == '-')
+                pos++;
+            requireDigit();
+            skipDigits();
+        }
+        
+        add(NUMBER, start);
+        add(0, pos);
+    }
+    
+    private void requireDigit() {
+        int c = read();
+        if (!isDigit(c))
+            throw unexpected(c);
+    }
+    
+    // returns the char after the digits
+    private int skipDigits() {
+        int c;
+        while (isDigit(c = peek())) {
+            pos++;
+        }
+        return c;
+    }
+    
+    private void readLiteral(String literal, int type) {
+        int start = pos - 1;
+        for (int i = 1; i < literal.length(); i++) {
+            int c = read();
+            if (c != literal.charAt(i))
+                throw unexpected(c, literal.charAt(i));
+        }
+        add(type, start);
+    }
+    
+    private void close(int container) {
+        add(END, pos - 1);
+        tape[container] |= size;
+    }
+    
+    private void add(int type, long payload) {
+        if (size == tape.length)
+            tape = Arrays.copyOf(tape, size * 2);
+        tape[size++] = (long) type << TYPE_SHIFT | payload;
+    }
+    
+    private int nextNonWhitespace() {
+        String json = this.json;
+        while (pos < json.length()) {
+            char c = json.charAt(pos++);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+                return c;
+        }
+        return -1;
+    }
+    
+    private int read() {
+        return pos < json.length() ? json.charAt(pos++) : -1;
+    }
+    
+    private int peek() {
+        return pos < json.length() ? json.charAt(pos) : -1;
+    }
+    
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    private MalformedJsonException unexpected(int c) {
+        if (c == -1)
+            return MalformedJsonException.eof(json);
+        return new MalformedJsonException(json, (char) c, pos - 1);
+    }
+    
+    private MalformedJsonException unexpected(int c, char expected) {
+        if (c == -1)
+            return MalformedJsonException.eof(json);
+        return new MalformedJsonException(json, (char) c, expected, pos - 1);
+    }
+    
+    // the members of an object on the tape, the values of its entries are built once they are
+    // asked for
+    private final class Members extends AbstractMap<String, JsonElement> {
+        Members(int index) {
+            this.index = index;
+        }
+        
+        private final int index;
+        
+        @Override
+        public JsonElement get(Object key) {
+            if (!(key instanceof String))
+                return null;
+            for (int i = index + 1; type(i) != END; i = skip(i + 2)) {
+                if (keyEquals(i, (String) key))
+                    return element(i + 2);
+            }
+            return null;
+        }
+        
+        @Override
+        public Set<Entry<String, JsonElement>> entrySet() {
+            return new AbstractSet<Entry<String, JsonElement>>() {
+                @Override
+                public Iterator<Entry<String, JsonElement>> iterator() {
+                    return new MemberIterator(index + 1);
+                }
+                
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int i = index + 1; type(i) != END; i = skip(i + 2)) {
+                        size++;
+                    }
+                    return size;
+                }
+            };
+        }
+    }
+    
+    private final class MemberIterator implements Iterator<Map.Entry<String, JsonElement>> {
+        MemberIterator(int next) {
+            this.next = next;
+        }
+        
+        private int next;
+        
+        @Override
+        public boolean hasNext() {
+            return type(next) != END;
+        }
+        
+        @Override
+        public Map.Entry<String, JsonElement> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Member member = new Member(next);
+            next = skip(next + 2);
+            return member;
+        }
+    }
+    
+    private final class Member implements Map.Entry<String, JsonElement> {
+        Member(int index) {
+            this.index = index;
+        }
+        
+        private final int index;
+        private JsonElement value;
+        
+        @Override
+        public String getKey() {
+            return key(index);
+        }
+        
+        @Override
+        public JsonElement getValue() {
+            if (value == null)
+                value = element(index + 2);
+            return value;
+        }
+        
+        @Override
+        public JsonElement setValue(JsonElement value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
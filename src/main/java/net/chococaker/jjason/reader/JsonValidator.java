@@ -0,0 +1,359 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import java.util.Arrays;
+
+import static net.chococaker.jjason.reader.JsonParser.CHAR_FLAGS;
+import static net.chococaker.jjason.reader.JsonParser.NON_ASCII;
+import static net.chococaker.jjason.reader.JsonParser.STRING_SPECIAL;
+import static net.chococaker.jjason.reader.JsonParser.WHITESPACE;
+import static net.chococaker.jjason.reader.JsonParser.hexDigit;
+
+/**
+ * Checks whether an input is a valid JSON document without reading it. The grammar is the one of
+ * {@link JsonParser}, including the UTF-8 checks of byte input, but nothing is built: no
+ * {@link net.chococaker.jjason.JsonElement}s, no strings and no numbers. Only documents nested
+ * deeper than 64 levels allocate, to track the open containers.
+ * <p>
+ * Unlike {@link JsonReader}, duplicate keys are not detected, since that needs the keys to be
+ * built.
+ *
+ * @since 1.1
+ */
+public final class JsonValidator {
+    private JsonValidator() {
+    }
+    
+    /**
+     * Returned by the validate methods for valid input.
+     */
+    public static final int VALID = -1;
+    
+    // containers below this depth are tracked in the bits of a long
+    private static final int SHALLOW_DEPTH = 64;
+    
+    /**
+     * @return True if the given UTF-8 bytes are a valid JSON document
+     */
+    public static boolean isValid(byte[] json) {
+        return validate(json) == VALID;
+    }
+    
+    /**
+     * @return True if the given chars are a valid JSON document
+     */
+    public static boolean isValid(CharSequence json) {
+        return validate(json) == VALID;
+    }
+    
+    /**
+     * @return {@link #VALID}, or the index of the first byte at which the input is not valid JSON,
+     * which is the input's length if it ends too early
+     */
+    public static int validate(byte[] json) {
+        return validate(json, 0, json.length);
+    }
+    
+    /**
+     * @param offset The index of the first byte of the document
+     * @param length The amount of bytes of the document
+     * @return {@link #VALID}, or the index of the first invalid byte relative to the offset
+     * @see #validate(byte[])
+     */
+    public static int validate(byte[] json, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > json.length - length)
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+                    + ") out of bounds for length " + json.length);
+        
+        int p = validate(json, null, offset, offset + length);
+        return p == VALID ? VALID : p - offset;
+    }
+    
+    /**
+     * @return {@link #VALID}, or the index of the first char at which the input is not valid JSON,
+     * which is the input's length if it ends too early
+     */
+    public static int validate(CharSequence json) {
+        return validate(null, json, 0, json.length());
+    }
+    
+    // The methods below read either UTF-8 bytes or chars, and are passed null for the other one.
+    // Bytes are read as unsigned values, so that both are checked against the same tables and only
+    // the lead bytes of multi-byte sequences need checks of their own. Positions are absolute.
+    
+    // returns VALID or the index of the first invalid byte or char
+    private static int validate(byte[] bytes, CharSequence chars, int start, int end) {
+        long scopes = 0; // one bit per open container, set for objects
+        boolean[] deepScopes = null;
+        int depth = 0;
+        
+        int p = skipWhitespace(bytes, chars, start, end);
+        while (true) {
+            // p is at the start of a value
+            if (p == end)
+                return p;
+            
+            switch (at(bytes, chars, p)) {
+                case '{':
+                case '[':
+                    boolean object = at(bytes, chars, p) == '{';
+                    p = skipWhitespace(bytes, chars, p + 1, end);
+                    if (p < end && at(bytes, chars, p) == (object ? '}' : ']')) {
+                        p++;
+                        break;
+                    }
+                    
+                    if (depth < SHALLOW_DEPTH) {
+                        scopes = object ? scopes | 1L << depth : scopes & ~(1L << depth);
+                    } else {
+                        if (deepScopes == null) {
+                            deepScopes = new boolean[SHALLOW_DEPTH];
+                        } else if (depth - SHALLOW_DEPTH == deepScopes.length) {
+                            deepScopes = Arrays.copyOf(deepScopes, deepScopes.length * 2);
+                        }
+                        deepScopes[depth - SHALLOW_DEPTH] = object;
+                    }
+                    depth++;
+                    
+                    if (object && (p = skipKey(bytes, chars, p, end)) < 0)
+                        return ~p;
+                    continue;
+                case '"':
+                    p = skipString(bytes, chars, p + 1, end);
+                    break;
+                case 't':
+                    p = skipLiteral(bytes, chars, p, end, "true");
+                    break;
+                case 'f':
+                    p = skipLiteral(bytes, chars, p, end, "false");
+                    break;
+                case 'n':
+                    p = skipLiteral(bytes, chars, p, end, "null");
+                    break;
+                default:
+                    p = skipNumber(bytes, chars, p, end);
+            }
+            if (p < 0)
+                return ~p;
+            
+            // closes containers until one continues with a comma
+            while (true) {
+                p = skipWhitespace(bytes, chars, p, end);
+                if (depth == 0)
+                    return p == end ? VALID : p;
+                if (p == end)
+                    return p;
+                
+                boolean object = depth <= SHALLOW_DEPTH
+                        ? (scopes >>> depth - 1 & 1) != 0
+                        : deepScopes[depth - 1 - SHALLOW_DEPTH];
+                int c = at(bytes, chars, p);
+                if (c == ',') {
+                    p = skipWhitespace(bytes, chars, p + 1, end);
+                    if (object && (p = skipKey(bytes, chars, p, end)) < 0)
+                        return ~p;
+                    break;
+                }
+                if (c != (object ? '}' : ']'))
+                    return p;
+                depth--;
+                p++;
+            }
+        }
+    }
+    
+    private static int at(byte[] bytes, CharSequence chars, int p) {
+        return bytes != null ? bytes[p] & 0xFF : chars.charAt(p);
+    }
+    
+    // The skip methods below return the index after what they skipped, or the complement of the
+    // index of the first invalid byte or char.
+    
+    // the loops over runs of whitespace, plain string content and digits are written once for
+    // each input, so that they do not check which input they read at every byte or char
+    
+    private static int skipWhitespace(byte[] bytes, CharSequence chars, int p, int end) {
+        if (bytes != null) {
+            while (p < end && (CHAR_FLAGS[bytes[p] & 0xFF] & WHITESPACE) != 0)
+                p++;
+        } else {
+            char c;
+            while (p < end && (c = chars.charAt(p)) < 256 && (CHAR_FLAGS[c] & WHITESPACE) != 0)
+                p++;
+        }
+        return p;
+    }
+    
+    // skips a member name and its colon, up to the start of the value
+    private static int skipKey(byte[] bytes, CharSequence chars, int p, int end) {
+        if (p == end || at(bytes, chars, p) != '"')
+            return ~p;
+        if ((p = skipString(bytes, chars, p + 1, end)) < 0)
+            return p;
+        p = skipWhitespace(bytes, chars, p, end);
+        if (p == end || at(bytes, chars, p) != ':')
+            return ~p;
+        return skipWhitespace(bytes, chars, p + 1, end);
+    }
+    
+    // skips the rest of a string whose opening quote has been passed
+    private static int skipString(byte[] bytes, CharSequence chars, int p, int end) {
+        while (true) {
+            if (bytes != null) {
+                while (p < end && (CHAR_FLAGS[bytes[p] & 0xFF] & (STRING_SPECIAL | NON_ASCII)) == 0)
+                    p++;
+            } else {
+                char c;
+                while (p < end && ((c = chars.charAt(p)) >= 256
+                        || (CHAR_FLAGS[c] & (STRING_SPECIAL | NON_ASCII)) == 0))
+                    p++;
+            }
+            if (p == end)
+                return ~end;
+            
+            int c = at(bytes, chars, p);
+            if (c == '"') {
+                return p + 1;
+            } else if (c == '\\') {
+                if ((p = skipEscape(bytes, chars, p + 1, end)) < 0)
+                    return p;
+            } else if ((CHAR_FLAGS[c] & STRING_SPECIAL) == 0) {
+                // a char above 127, or the lead byte of a multi-byte sequence
+                if (bytes == null)
+                    p++;
+                else if ((p = skipMultiByte(bytes, p, end)) < 0)
+                    return p;
+            } else {
+                return ~p;
+            }
+        }
+    }
+    
+    private static int skipEscape(byte[] bytes, CharSequence chars, int p, int end) {
+        if (p == end)
+            return ~p;
+        switch (at(bytes, chars, p)) {
+            case '"':
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                return p + 1;
+            case 'u':
+                for (int i = p + 1; i < p + 5; i++) {
+                    if (i == end || hexDigit(at(bytes, chars, i)) == -1)
+                        return ~i;
+                }
+                return p + 5;
+            default:
+                return ~p;
+        }
+    }
+    
+    // the same checks as Utf8JsonParser.readMultiByte, reported at the lead byte, or at the end of
+    // the input if the sequence is cut off by it
+    private static int skipMultiByte(byte[] json, int p, int end) {
+        int b = json[p] & 0xFF;
+        int codePoint;
+        int length;
+        int min;
+        if ((b & 0xE0) == 0xC0) {
+            codePoint = b & 0x1F;
+            length = 1;
+            min = 0x80;
+        } else if ((b & 0xF0) == 0xE0) {
+            codePoint = b & 0x0F;
+            length = 2;
+            min = 0x800;
+        } else if ((b & 0xF8) == 0xF0) {
+            codePoint = b & 0x07;
+            length = 3;
+            min = 0x10000;
+        } else {
+            return ~p;
+        }
+        
+        for (int i = 1; i <= length; i++) {
+            if (p + i == end)
+                return ~end;
+            int c = json[p + i];
+            if ((c & 0xC0) != 0x80)
+                return ~p;
+            codePoint = codePoint << 6 | c & 0x3F;
+        }
+        
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE))
+            return ~p;
+        return p + length + 1;
+    }
+    
+    private static int skipLiteral(byte[] bytes, CharSequence chars, int p, int end,
+                                   String literal) {
+        for (int i = 0; i < literal.length(); i++, p++) {
+            if (p == end || at(bytes, chars, p) != literal.charAt(i))
+                return ~p;
+        }
+        return p;
+    }
+    
+    private static int skipNumber(byte[] bytes, CharSequence chars, int p, int end) {
+        if (at(bytes, chars, p) == '-')
+            p++;
+        if (p < end && at(bytes, chars, p) == '0') {
+            p++;
+        } else {
+            if (p == end || !isDigit(at(bytes, chars, p)))
+                return ~p;
+            p = skipDigits(bytes, chars, p + 1, end);
+        }
+        
+        if (p < end && at(bytes, chars, p) == '.') {
+            if (++p == end || !isDigit(at(bytes, chars, p)))
+                return ~p;
+            p = skipDigits(bytes, chars, p + 1, end);
+        }
+        
+        int c;
+        if (p < end && ((c = at(bytes, chars, p)) == 'e' || c == 'E')) {
+            if (++p < end && ((c = at(bytes, chars, p)) == '+' || c == '-'))
+                p++;
+            if (p == end || !isDigit(at(bytes, chars, p)))
+                return ~p;
+            p = skipDigits(bytes, chars, p + 1, end);
+        }
+        return p;
+    }
+    
+    private static int skipDigits(byte[] bytes, CharSequence chars, int p, int end) {
+        if (bytes != null) {
+            while (p < end && isDigit(bytes[p]))
+                p++;
+        } else {
+            while (p < end && isDigit(chars.charAt(p)))
+                p++;
+        }
+        return p;
+    }
+    
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded table of object keys, so that keys which repeat across objects and documents are read
+ * into one shared {@link String} whose hash is already computed. Keys are looked up by their raw
+ * chars or bytes, so a hit allocates nothing.
+ * <p>
+ * The table is direct-mapped: a key replaces whichever key occupied its slot before. Keys longer
+ * than {@link #MAX_KEY_LENGTH} are neither cached nor counted.
+ * <p>
+ * A cache can be shared by any number of readers, but is not thread-safe.
+ *
+ * @see JsonParser#withKeyCache(KeyCache)
+ * @see JsonReader#withKeyCache(KeyCache)
+ * @since 1.1
+ */
+public final class KeyCache {
+    /**
+     * Creates a cache with {@link #DEFAULT_CAPACITY} slots.
+     */
+    public KeyCache() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * @param capacity The number of keys that can be cached, rounded up to a power of two
+     */
+    public KeyCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        this.keys = new String[size];
+        this.mask = size - 1;
+    }
+    
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int MAX_KEY_LENGTH = 64;
+    
+    private final String[] keys;
+    private final int mask;
+    
+    private long hits;
+    private long misses;
+    
+    /**
+     * @return The number of keys that were found in the cache
+     */
+    public long hits() {
+        return hits;
+    }
+    
+    /**
+     * @return The number of keys that had to be built because they were not in the cache
+     */
+    public long misses() {
+        return misses;
+    }
+    
+    /**
+     * @return The number of slots of the cache
+     */
+    public int capacity() {
+        return keys.length;
+    }
+    
+    // each lookup hashes the raw key like String.hashCode() does, so that cached keys can be
+    // compared by their cached hash first
+    
+    String get(char[] buf, int start, int end) {
+        int length = end - start;
+        if (length > MAX_KEY_LENGTH)
+            return new String(buf, start, length);
+        
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + buf[i];
+        
+        int slot = slot(hash);
+        String key = keys[slot];
+        if (key != null && key.length() == length && key.hashCode() == hash) {
+            int i = 0;
+            while (i < length && key.charAt(i) == buf[start + i])
+                i++;
+            if (i == length) {
+                hits++;
+                return key;
+            }
+        }
+        
+        return put(slot, new String(buf, start, length));
+    }
+    
+    // the bytes have to be ASCII
+    String get(ByteBuffer buf, int start, int end) {
+        int length = end - start;
+        if (length > MAX_KEY_LENGTH)
+            return ascii(buf, start, length);
+        
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + buf.get(i);
+        
+        int slot = slot(hash);
+        String key = keys[slot];
+        if (key != null && key.length() == length && key.hashCode() == hash) {
+            int i = 0;
+            while (i < length && key.charAt(i) == buf.get(start + i))
+                i++;
+            if (i == length) {
+                hits++;
+                return key;
+            }
+        }
+        
+        return put(slot, ascii(buf, start, length));
+    }
+    
+    String get(CharSequence s, int start, int end) {
+        int length = end - start;
+        if (length > MAX_KEY_LENGTH)
+            return s.subSequence(start, end).toString();
+        
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + s.charAt(i);
+        
+        int slot = slot(hash);
+        String key = keys[slot];
+        if (key != null && key.length() == length && key.hashCode() == hash) {
+            int i = 0;
+            while (i < length && key.charAt(i) == s.charAt(start + i))
+                i++;
+            if (i == length) {
+                hits++;
+                return key;
+            }
+        }
+        
+        return put(slot, s.subSequence(start, end).toString());
+    }
+    
+    private static String ascii(ByteBuffer buf, int start, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) buf.get(start + i);
+        return new String(chars);
+    }
+    
+    private int slot(int hash) {
+        return (hash ^ hash >>> 16) & mask;
+    }
+    
+    private String put(int slot, String key) {
+        misses++;
+        key.hashCode(); // cached by the String
+        keys[slot] = key;
+        return key;
+    }
+}
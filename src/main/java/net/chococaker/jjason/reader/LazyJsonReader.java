@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.exception.MalformedJsonException;
+
+// builds values from a JsonTape only once they are used
+final class LazyJsonReader<T extends JsonElement> extends JsonReader<T> {
+    public LazyJsonReader(String json, Class<T> type) {
+        super((JsonParser) null);
+        this.json = json;
+        this.type = type;
+    }
+    
+    private final String json;
+    private final Class<T> type;
+    private KeyCache keyCache;
+    private boolean numberArrays;
+    
+    @Override
+    public JsonReader<T> withKeyCache(KeyCache cache) {
+        this.keyCache = cache;
+        return this;
+    }
+    
+    @Override
+    public JsonReader<T> withNumberArrays(boolean numberArrays) {
+        this.numberArrays = numberArrays;
+        return this;
+    }
+    
+    @Override
+    public T read() {
+        JsonTape tape = JsonTape.scan(json, keyCache, numberArrays);
+        if (type == JsonObject.class ? !tape.isObject() : !tape.isArray()) {
+            throw new MalformedJsonException(json, "Expected " + type.getSimpleName());
+        }
+        
+        return type.cast(tape.root());
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.exception.MalformedJsonException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static net.chococaker.jjason.reader.JsonParser.CHAR_FLAGS;
+import static net.chococaker.jjason.reader.JsonParser.WHITESPACE;
+
+/**
+ * Reads newline-delimited JSON (NDJSON or JSON Lines): UTF-8 input holding one JSON value per
+ * line. Blank lines are skipped.
+ * <p>
+ * The values are returned as a parallel {@link Stream}. The input is split into chunks at line
+ * boundaries, which are parsed by the {@link java.util.concurrent.ForkJoinPool} running the stream:
+ * the common pool, or the pool of the task that starts the terminal operation.
+ * <p>
+ * A malformed line ends the stream with a {@link MalformedJsonException} holding its line number,
+ * unless an error handler is set with {@link #withErrorHandler(Consumer)}. As chunks are parsed in
+ * parallel, this is the first error that was found rather than the one of the earliest line.
+ * Files stay open until the reader or one of its streams is closed.
+ *
+ * <pre>{@code
+ * try (Stream<JsonElement> lines = NdjsonReader.of(path).stream()) {
+ *     lines.forEach(line -> ...);
+ * }
+ * }</pre>
+ *
+ * @since 1.1
+ */
+public final class NdjsonReader implements Closeable {
+    private NdjsonReader(Input input) {
+        this(input, WINDOW_SIZE, BLOCK_SIZE);
+    }
+    
+    // the sizes are only changed by tests, to cross windows and blocks with little input
+    private NdjsonReader(Input input, int windowSize, int blockSize) {
+        this.input = input;
+        this.windowSize = windowSize;
+        this.blockSize = blockSize;
+        this.blockLines = new int[(int) ((input.length() + blockSize - 1) / blockSize)];
+        Arrays.fill(blockLines, -1);
+    }
+    
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    
+    private static final int WINDOW_SIZE = 1 << 24; // bytes of a file mapped at once
+    private static final int BLOCK_SIZE = 1 << 20; // bytes of input per entry of blockLines
+    
+    private final Input input;
+    private final int windowSize;
+    private final int blockSize;
+    // the number of newlines in each block, -1 until it is needed for an error
+    private final int[] blockLines;
+    
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private Consumer<? super MalformedJsonException> errorHandler; // null to throw
+    
+    /**
+     * @return A reader of the given UTF-8 bytes. The array is not copied.
+     */
+    public static NdjsonReader of(byte[] json) {
+        return of(ByteBuffer.wrap(json));
+    }
+    
+    /**
+     * @return A reader of the UTF-8 bytes between the buffer's position and limit. The buffer's
+     * content is not copied, and its position is left untouched.
+     */
+    public static NdjsonReader of(ByteBuffer json) {
+        return new NdjsonReader(new BufferInput(json.slice()));
+    }
+    
+    static NdjsonReader of(ByteBuffer json, int windowSize, int blockSize) {
+        return new NdjsonReader(new BufferInput(json.slice()), windowSize, blockSize);
+    }
+    
+    /**
+     * Reads a UTF-8 file through memory-mapped windows, so that no copy of it is made on the heap.
+     *
+     * @return A reader of the given file
+     * @throws IOException If the file could not be opened
+     */
+    public static NdjsonReader of(Path file) throws IOException {
+        return of(file, WINDOW_SIZE, BLOCK_SIZE);
+    }
+    
+    static NdjsonReader of(Path file, int windowSize, int blockSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new NdjsonReader(new FileInput(channel, channel.size()), windowSize, blockSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * @param chunkSize The amount of bytes below which the input is not split any further
+     * @return This reader
+     */
+    public NdjsonReader withChunkSize(int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+    
+    /**
+     * Makes the streams skip malformed lines, passing their errors to the handler instead of
+     * throwing them. The handler may be called from several threads at once.
+     *
+     * @param handler Called with the error of each malformed line, or null to throw errors again
+     * @return This reader
+     */
+    public NdjsonReader withErrorHandler(Consumer<? super MalformedJsonException> handler) {
+        this.errorHandler = handler;
+        return this;
+    }
+    
+    /**
+     * @return A parallel stream of the values, in the order of their lines
+     */
+    public Stream<JsonElement> stream() {
+        return stream(true);
+    }
+    
+    /**
+     * @return A parallel stream of the values which has no order, so that operations such as
+     * {@link Stream#limit(long)} and {@link Stream#findAny()} do not have to wait for earlier lines
+     */
+    public Stream<JsonElement> unorderedStream() {
+        return stream(false);
+    }
+    
+    /**
+     * Closes the file the reader reads from, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+    
+    private Stream<JsonElement> stream(boolean ordered) {
+        return StreamSupport.stream(new Chunk(0, input.length(), ordered), true)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+    
+    // the number of the line starting at the offset, counted through the blocks before it
+    private long lineNumber(long offset) throws IOException {
+        long line = 1;
+        int block = (int) (offset / blockSize);
+        for (int i = 0; i < block; i++) {
+            int count = blockLines[i];
+            if (count < 0) // racing threads store the same count
+                blockLines[i] = count = countNewlines((long) i * blockSize, blockSize);
+            line += count;
+        }
+        long blockStart = (long) block * blockSize;
+        return line + countNewlines(blockStart, (int) (offset - blockStart));
+    }
+    
+    private int countNewlines(long start, int length) throws IOException {
+        ByteBuffer buf = input.window(start, length);
+        int count = 0;
+        for (int i = 0, l = Math.min(length, buf.limit()); i < l; i++) {
+            if (buf.get(i) == '\n')
+                count++;
+        }
+        return count;
+    }
+    
+    // the lines between two line boundaries. It reads through a window of the input whose index 0
+    // is at windowStart.
+    private final class Chunk implements Spliterator<JsonElement> {
+        Chunk(long start, long end, boolean ordered) {
+            this.pos = start;
+            this.end = end;
+            this.ordered = ordered;
+        }
+        
+        private long pos;
+        private final long end;
+        private final boolean ordered;
+        
+        private ByteBuffer window;
+        private long windowStart;
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super JsonElement> action) {
+            try {
+                while (pos < end) {
+                    long lineStart = pos;
+                    long lineEnd = lineEnd(lineStart);
+                    pos = lineEnd + 1;
+                    
+                    JsonElement element = readLine(lineStart, lineEnd);
+                    if (element != null) {
+                        action.accept(element);
+                        return true;
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        // splits off the lines before the middle of the chunk
+        @Override
+        public Spliterator<JsonElement> trySplit() {
+            if (end - pos < 2L * chunkSize)
+                return null;
+            
+            try {
+                long boundary = lineEnd(pos + (end - pos) / 2) + 1;
+                if (boundary >= end)
+                    return null;
+                Chunk prefix = new Chunk(pos, boundary, ordered);
+                pos = boundary;
+                return prefix;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return end - pos; // in bytes rather than lines, which only has to be proportional
+        }
+        
+        @Override
+        public int characteristics() {
+            return (ordered ? ORDERED : 0) | NONNULL | IMMUTABLE;
+        }
+        
+        // the index of the newline at or after the offset, or the length of the input
+        private long lineEnd(long offset) throws IOException {
+            long length = input.length();
+            while (offset < length) {
+                if (window == null || offset < windowStart
+                        || offset >= windowStart + window.limit()) {
+                    window = input.window(offset, windowSize);
+                    windowStart = offset;
+                }
+                
+                ByteBuffer buf = window;
+                for (int i = (int) (offset - windowStart), l = buf.limit(); i < l; i++) {
+                    if (buf.get(i) == '\n')
+                        return windowStart + i;
+                }
+                offset = windowStart + buf.limit();
+            }
+            return length;
+        }
+        
+        // returns null for blank and, if they are handled, malformed lines
+        private JsonElement readLine(long start, long end) throws IOException {
+            long length = end - start;
+            if (length > Integer.MAX_VALUE)
+                return error(start, new MalformedJsonException(null, "Line too long"));
+            if (start < windowStart || end > windowStart + window.limit()) {
+                window = input.window(start, (int) Math.max(windowSize, length));
+                windowStart = start;
+            }
+            
+            int from = (int) (start - windowStart);
+            int to = (int) (end - windowStart);
+            ByteBuffer buf = window;
+            int i = from;
+            while (i < to && (CHAR_FLAGS[buf.get(i) & 0xFF] & WHITESPACE) != 0)
+                i++;
+            if (i == to)
+                return null;
+            
+            // set through Buffer, as ByteBuffer only overrides limit and position since Java 9
+            ByteBuffer line = buf.duplicate();
+            ((Buffer) line).limit(to).position(from);
+            try {
+                return new LineReader(new Utf8JsonParser(line, false)).read();
+            } catch (MalformedJsonException e) {
+                return error(start, e);
+            }
+        }
+        
+        private JsonElement error(long lineStart, MalformedJsonException e) throws IOException {
+            MalformedJsonException error = new MalformedJsonException(lineNumber(lineStart), e);
+            if (errorHandler == null)
+                throw error;
+            errorHandler.accept(error);
+            return null;
+        }
+    }
+    
+    // reads the only value of a line
+    private static final class LineReader extends JsonReader<JsonElement> {
+        LineReader(JsonParser parser) {
+            super(parser);
+        }
+        
+        @Override
+        public JsonElement read() {
+            parser.next();
+            JsonElement element = readValue();
+            parser.next(); // throws if anything but whitespace follows the value
+            return element;
+        }
+    }
+    
+    // the UTF-8 input
+    private interface Input extends Closeable {
+        long length();
+        
+        /**
+         * @return A buffer whose index 0 is at the offset, holding at least the given amount of
+         * bytes or the rest of the input
+         */
+        ByteBuffer window(long offset, int length) throws IOException;
+    }
+    
+    private static final class BufferInput implements Input {
+        BufferInput(ByteBuffer buf) {
+            this.buf = buf;
+        }
+        
+        private final ByteBuffer buf;
+        
+        @Override
+        public long length() {
+            return buf.limit();
+        }
+        
+        @Override
+        public ByteBuffer window(long offset, int length) {
+            ByteBuffer window = buf.duplicate();
+            ((Buffer) window).position((int) offset);
+            return window.slice();
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+    
+    private static final class FileInput implements Input {
+        FileInput(FileChannel channel, long length) {
+            this.channel = channel;
+            this.length = length;
+        }
+        
+        private final FileChannel channel;
+        private final long length;
+        
+        @Override
+        public long length() {
+            return length;
+        }
+        
+        @Override
+        public ByteBuffer window(long offset, int length) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(length, this.length - offset));
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
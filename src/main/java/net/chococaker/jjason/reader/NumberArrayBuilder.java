@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.JsonDoubleArray;
+import net.chococaker.jjason.JsonIntArray;
+import net.chococaker.jjason.JsonLongArray;
+import net.chococaker.jjason.JsonNumberArray;
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.util.JsonUtil;
+import net.chococaker.jjason.util.NumberWriter;
+
+import java.util.Arrays;
+
+// collects the numbers of an array as long as they all decode to the same primitive type, and are
+// written the way the writer writes them back, so that no number text is lost
+final class NumberArrayBuilder {
+    private static final int NONE = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    
+    private int type = NONE;
+    private long[] longs;
+    private double[] doubles;
+    private int size;
+    private final char[] written = new char[NumberWriter.MAX_DOUBLE_LENGTH];
+    
+    // returns false, without adding it, if the number does not fit the type of the array or would
+    // not be written back as the same text
+    boolean add(CharSequence number) {
+        Number n = JsonUtil.parseNumber(number);
+        if (n instanceof Integer || n instanceof Long) {
+            if (type == DOUBLE
+                    || !writesAs(NumberWriter.writeLong(n.longValue(), written, 0), number))
+                return false;
+            if (type == NONE)
+                longs = new long[16];
+            else if (size == longs.length)
+                longs = Arrays.copyOf(longs, size * 2);
+            
+            longs[size++] = n.longValue();
+            if (type != LONG)
+                type = n instanceof Integer ? INT : LONG;
+        } else if (n instanceof Double) {
+            if (type == INT || type == LONG
+                    || !writesAs(NumberWriter.writeDouble(n.doubleValue(), written, 0), number))
+                return false;
+            if (type == NONE)
+                doubles = new double[16];
+            else if (size == doubles.length)
+                doubles = Arrays.copyOf(doubles, size * 2);
+            
+            doubles[size++] = n.doubleValue();
+            type = DOUBLE;
+        } else {
+            return false;
+        }
+        
+        return true;
+    }
+    
+    // whether the first chars of written are the given text
+    private boolean writesAs(int length, CharSequence text) {
+        if (length != text.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (written[i] != text.charAt(i))
+                return false;
+        }
+        return true;
+    }
+    
+    JsonNumberArray build() {
+        switch (type) {
+            case INT:
+                int[] ints = new int[size];
+                for (int i = 0; i < size; i++)
+                    ints[i] = (int) longs[i];
+                return new JsonIntArray(ints);
+            case LONG:
+                return new JsonLongArray(Arrays.copyOf(longs, size));
+            default:
+                return new JsonDoubleArray(Arrays.copyOf(doubles, size));
+        }
+    }
+    
+    // for arrays that turned out to hold other values
+    JsonArray toJsonArray() {
+        JsonArray array = new JsonArray();
+        array.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            switch (type) {
+                case INT:
+                case LONG:
+                    long value = longs[i];
+                    array.add((int) value == value ? new JsonPrimitive((int) value)
+                            : new JsonPrimitive(value));
+                    break;
+                default:
+                    array.add(new JsonPrimitive(doubles[i]));
+                    break;
+            }
+        }
+        return array;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.exception.MalformedJsonException;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// reads a large array by finding the boundaries of its elements first, then parsing batches of
+// them in parallel. Inputs that are small or not shaped like an array are read sequentially.
+final class ParallelArrayReader extends JsonReader<JsonArray> {
+    public ParallelArrayReader(String json) {
+        super((JsonParser) null);
+        this.json = json;
+    }
+    
+    static final int MIN_PARALLEL_LENGTH = 1 << 20;
+    private static final int MIN_BATCH_LENGTH = 1 << 16;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+    
+    private final String json;
+    private KeyCache keyCache; // only used when reading sequentially, as it is not thread-safe
+    private boolean numberArrays;
+    
+    // the positions of the opening bracket, of the commas at depth 1 and of the closing bracket
+    private int[] separators;
+    private int count;
+    
+    @Override
+    public JsonReader<JsonArray> withKeyCache(KeyCache cache) {
+        this.keyCache = cache;
+        return this;
+    }
+    
+    @Override
+    public JsonReader<JsonArray> withNumberArrays(boolean numberArrays) {
+        this.numberArrays = numberArrays;
+        return this;
+    }
+    
+    @Override
+    public JsonArray read() {
+        if (json.length() >= MIN_PARALLEL_LENGTH && scan()) {
+            try {
+                JsonArray array = readParallel();
+                if (array != null)
+                    return array;
+            } catch (MalformedJsonException e) {
+                // read again sequentially, which reports the error with its position in the input
+            }
+        }
+        return new JsonArrayReader(JsonParser.of(json).withKeyCache(keyCache))
+                .withNumberArrays(numberArrays).read();
+    }
+    
+    // finds the separators, returning false if the input is not a single array. Only quotes,
+    // escapes and brackets are tracked, everything else is validated while parsing.
+    private boolean scan() {
+        String json = this.json;
+        char[] buf = new char[SCAN_BUFFER_SIZE];
+        separators = new int[64];
+        count = 0;
+        
+        int depth = 0;
+        boolean closed = false;
+        boolean inString = false;
+        boolean escaped = false;
+        for (int offset = 0, length = json.length(); offset < length; offset += buf.length) {
+            int n = Math.min(buf.length, length - offset);
+            json.getChars(offset, offset + n, buf, 0);
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                if (inString) {
+                    if (escaped)
+                        escaped = false;
+                    else if (c == '\\')
+                        escaped = true;
+                    else if (c == '"')
+                        inString = false;
+                    continue;
+                }
+                
+                if (closed) {
+                    if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+                        return false;
+                    continue;
+                }
+                
+                switch (c) {
+                    case '"':
+                        if (depth == 0)
+                            return false;
+                        inString = true;
+                        break;
+                    case '[':
+                        if (depth++ == 0)
+                            addSeparator(offset + i);
+                        break;
+                    case '{':
+                        if (depth++ == 0)
+                            return false;
+                        break;
+                    case ']':
+                    case '}':
+                        if (--depth == 0) {
+                            if (c == '}')
+                                return false;
+                            addSeparator(offset + i);
+                            closed = true;
+                        }
+                        break;
+                    case ',':
+                        if (depth == 1)
+                            addSeparator(offset + i);
+                        break;
+                    case ' ':
+                    case '\t':
+                    case '\n':
+                    case '\r':
+                        break;
+                    default:
+                        if (depth == 0)
+                            return false;
+                }
+            }
+        }
+        
+        return closed;
+    }
+    
+    private void addSeparator(int position) {
+        if (count == separators.length)
+            separators = Arrays.copyOf(separators, count * 2);
+        separators[count++] = position;
+    }
+    
+    // reads the batches, or returns null if an element is blank, which the sequential reader
+    // then reports
+    private JsonArray readParallel() {
+        int elements = count - 1;
+        if (elements == 1 && isBlank(separators[0] + 1, separators[1]))
+            return new JsonArray(); // []
+        
+        // a blank element, such as the one after a trailing comma, would be read as an empty batch
+        for (int i = 0; i < elements; i++) {
+            if (isBlank(separators[i] + 1, separators[i + 1]))
+                return null;
+        }
+        
+        // batches of consecutive elements, each at least minLength chars long
+        int minLength = Math.max(MIN_BATCH_LENGTH,
+                json.length() / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        int[] batches = new int[elements + 1]; // indices of the separators starting each batch
+        int batchCount = 0;
+        for (int i = 0; i < elements; i++) {
+            if (batchCount == 0 || separators[i] - separators[batches[batchCount - 1]] >= minLength)
+                batches[batchCount++] = i;
+        }
+        batches[batchCount] = elements;
+        
+        JsonArray[] parts = new JsonArray[batchCount];
+        new BatchTask(batches, parts, 0, batchCount).invoke();
+        
+        JsonArray array = new JsonArray();
+        array.ensureCapacity(elements);
+        for (JsonArray part : parts) {
+            array.addAll(part);
+        }
+        return array;
+    }
+    
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = json.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+                return false;
+        }
+        return true;
+    }
+    
+    // parses the batches from start to end, splitting them between tasks
+    private final class BatchTask extends RecursiveAction {
+        BatchTask(int[] batches, JsonArray[] parts, int start, int end) {
+            this.batches = batches;
+            this.parts = parts;
+            this.start = start;
+            this.end = end;
+        }
+        
+        private static final long serialVersionUID = 548123L;
+        
+        private final int[] batches;
+        private final JsonArray[] parts;
+        private final int start;
+        private final int end;
+        
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                int from = separators[batches[start]] + 1;
+                int to = separators[batches[end]];
+                parts[start] = new JsonArrayReader(JsonParser.of(new BatchReader(json, from, to),
+                        JsonParser.DEFAULT_BUFFER_SIZE)).withNumberArrays(numberArrays).read();
+                return;
+            }
+            
+            int middle = (start + end) >>> 1;
+            invokeAll(new BatchTask(batches, parts, start, middle),
+                    new BatchTask(batches, parts, middle, end));
+        }
+    }
+    
+    // reads the elements between two positions of the input as an array of their own
+    private static final class BatchReader extends Reader {
+        BatchReader(String json, int start, int end) {
+            this.json = json;
+            this.start = start;
+            this.length = end - start + 2;
+        }
+        
+        private final String json;
+        private final int start;
+        private final int length; // of the elements wrapped in brackets
+        private int pos;
+        
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == length)
+                return -1;
+            
+            int n = Math.min(len, length - pos);
+            int i = 0;
+            if (pos == 0)
+                cbuf[off + i++] = '[';
+            int copyEnd = Math.min(pos + n, length - 1);
+            if (pos + i < copyEnd)
+                json.getChars(start + pos + i - 1, start + copyEnd - 1, cbuf, off + i);
+            if (pos + n == length)
+                cbuf[off + n - 1] = ']';
+            pos += n;
+            return n;
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
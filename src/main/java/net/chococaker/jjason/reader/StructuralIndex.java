@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static net.chococaker.jjason.reader.BlockClassifier.BACKSLASHES;
+import static net.chococaker.jjason.reader.BlockClassifier.BLOCK_SIZE;
+import static net.chococaker.jjason.reader.BlockClassifier.OPERATORS;
+import static net.chococaker.jjason.reader.BlockClassifier.QUOTES;
+import static net.chococaker.jjason.reader.BlockClassifier.WHITESPACE;
+
+// The positions of the tokens of a UTF-8 document, found 64 bytes at a time before it is parsed,
+// in the way of simdjson's first stage. The positions are those of the operators outside strings,
+// of the opening and closing quotes of strings, and of the first byte of each other token. Anything
+// between a token and the next position is whitespace, unless the token is followed directly by
+// an unexpected byte.
+//
+// Nothing is validated here: the index of a malformed document is only guaranteed to agree with the
+// parser up to the first error, which the parser finds.
+final class StructuralIndex {
+    private StructuralIndex(int[] positions, int size, int limit) {
+        this.positions = positions;
+        this.size = size;
+        this.limit = limit;
+    }
+    
+    private static final BlockClassifier CLASSIFIER = BlockClassifier.create();
+    private static final long EVEN_BITS = 0x5555555555555555L;
+    
+    private final int[] positions;
+    private final int size;
+    private final int limit;
+    private int cursor; // the first position that has not been passed
+    
+    /**
+     * @return The index of the bytes between the buffer's position and limit, whose positions are
+     * absolute positions of the buffer
+     */
+    static StructuralIndex of(ByteBuffer json) {
+        ByteBuffer buf = json.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int start = buf.position();
+        int limit = buf.limit();
+        int[] positions = new int[Math.max(16, (limit - start) / 4)];
+        int size = 0;
+        
+        long[] masks = new long[4];
+        long prevEscaped = 0; // 1 if the first byte of the next block is escaped
+        long prevInString = 0; // all ones if the next block starts inside a string
+        long prevScalar = 0; // 1 if the last byte of the block was part of a scalar
+        for (int p = start; p < limit; p += BLOCK_SIZE) {
+            if (limit - p >= BLOCK_SIZE) {
+                CLASSIFIER.classify(buf, p, masks);
+            } else {
+                CLASSIFIER.classify(lastBlock(buf, p, limit), 0, masks);
+            }
+            
+            // escaped chars follow an odd-length run of backslashes
+            long backslashes = masks[BACKSLASHES];
+            long escaped;
+            if (backslashes == 0) {
+                escaped = prevEscaped;
+                prevEscaped = 0;
+            } else {
+                backslashes &= ~prevEscaped;
+                long followsEscape = backslashes << 1 | prevEscaped;
+                long oddStarts = backslashes & ~EVEN_BITS & ~followsEscape;
+                long evenStarts = oddStarts + backslashes; // clears runs starting on odd bits
+                prevEscaped = Long.compareUnsigned(evenStarts, backslashes) < 0 ? 1 : 0;
+                escaped = (EVEN_BITS ^ evenStarts << 1) & followsEscape;
+            }
+            
+            // set from each opening quote up to the byte before its closing quote
+            long quotes = masks[QUOTES] & ~escaped;
+            long inString = prefixXor(quotes) ^ prevInString;
+            prevInString = inString >> 63;
+            
+            long operators = masks[OPERATORS] & ~inString;
+            long scalars = ~(masks[OPERATORS] | masks[WHITESPACE] | quotes | inString);
+            long scalarStarts = scalars & ~(scalars << 1 | prevScalar);
+            prevScalar = scalars >>> 63;
+            
+            long tokens = operators | quotes | scalarStarts;
+            int count = Long.bitCount(tokens);
+            if (size + count > positions.length)
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, size + count));
+            for (; tokens != 0; tokens &= tokens - 1) {
+                positions[size++] = p + Long.numberOfTrailingZeros(tokens);
+            }
+        }
+        
+        return new StructuralIndex(positions, size, limit);
+    }
+    
+    /**
+     * @return The first position at or after the given one, or the limit if there is none.
+     * Positions before the given one are passed for good.
+     */
+    int next(int pos) {
+        int i = seek(pos);
+        return i == size ? limit : positions[i];
+    }
+    
+    /**
+     * Skips input until the given amount of brackets is closed and, if the input is inside a
+     * string, that string has ended, like {@link JsonParser#skipNested(int, boolean)}. Only the
+     * positions are looked at, so the contents of strings and scalars are passed in one step.
+     *
+     * @return The position after the skipped input, or -1 if the input ended first
+     */
+    int skipNested(ByteBuffer buf, int pos, int depth, boolean inString) {
+        int i = seek(pos);
+        if (inString) {
+            if (i == size)
+                return -1;
+            if (depth == 0) {
+                cursor = i + 1;
+                return positions[i] + 1;
+            }
+            i++;
+        }
+        
+        for (; i < size; i++) {
+            int p = positions[i];
+            byte c = buf.get(p);
+            if (c == '"') {
+                i++; // the closing quote
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                cursor = i + 1;
+                return p + 1;
+            }
+        }
+        
+        cursor = size;
+        return -1;
+    }
+    
+    private int seek(int pos) {
+        int i = cursor;
+        while (i < size && positions[i] < pos)
+            i++;
+        return cursor = i;
+    }
+    
+    // the last, partial block, padded with whitespace
+    private static ByteBuffer lastBlock(ByteBuffer buf, int p, int limit) {
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            block.put(i, p + i < limit ? buf.get(p + i) : (byte) ' ');
+        }
+        return block;
+    }
+    
+    // bit i of the result is the parity of the bits 0 to i of x
+    private static long prefixXor(long x) {
+        x ^= x << 1;
+        x ^= x << 2;
+        x ^= x << 4;
+        x ^= x << 8;
+        x ^= x << 16;
+        x ^= x << 32;
+        return x;
+    }
+}
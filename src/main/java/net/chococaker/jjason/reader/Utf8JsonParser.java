@@ -0,0 +1,349 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// a JsonParser reading UTF-8 bytes, only decoding the contents of strings
+final class Utf8JsonParser extends JsonParser {
+    Utf8JsonParser(ByteBuffer buf, boolean indexed) {
+        this(buf, null);
+        if (indexed)
+            this.index = StructuralIndex.of(buf);
+    }
+    
+    Utf8JsonParser(InputStream in, int bufferSize) {
+        this(ByteBuffer.allocate(0), new StreamSource(in, bufferSize));
+    }
+    
+    Utf8JsonParser(FileChannel channel, int windowSize) {
+        this(ByteBuffer.allocate(0), new MappedSource(channel, windowSize));
+    }
+    
+    private Utf8JsonParser(ByteBuffer buf, ByteSource source) {
+        super(null);
+        this.source = source;
+        this.buf = buf;
+        this.start = buf.position();
+        this.pos = start;
+        this.limit = buf.limit();
+    }
+    
+    private final ByteSource source; // null if the whole input is in buf
+    private ByteBuffer buf;
+    private int start; // position of buf when it was handed over
+    private int pos;
+    private int limit;
+    private long bufOffset; // position of buf[start] in the input
+    private StructuralIndex index; // null unless the whole input is in buf and was indexed
+    private byte[] bytes; // strings of buffers without an array are copied through it
+    
+    @Override
+    public long getPosition() {
+        return bufOffset + pos - start;
+    }
+    
+    @Override
+    int read() {
+        if (pos == limit && !fill())
+            return -1;
+        return buf.get(pos++) & 0xFF;
+    }
+    
+    @Override
+    int peek() {
+        if (pos == limit && !fill())
+            return -1;
+        return buf.get(pos) & 0xFF;
+    }
+    
+    @Override
+    void skip() {
+        pos++;
+    }
+    
+    @Override
+    int nextNonWhitespace() {
+        if (index != null) {
+            // only whitespace is skipped, or the byte after a token if that token is malformed
+            int p = index.next(pos);
+            if (p > pos && (CHAR_FLAGS[buf.get(pos) & 0xFF] & WHITESPACE) == 0)
+                p = pos;
+            if (p == limit) {
+                pos = limit;
+                return -1;
+            }
+            pos = p + 1;
+            return buf.get(p) & 0xFF;
+        }
+        
+        do {
+            ByteBuffer buf = this.buf;
+            for (int p = pos, l = limit; p < l; p++) {
+                int c = buf.get(p) & 0xFF;
+                if ((CHAR_FLAGS[c] & WHITESPACE) == 0) {
+                    pos = p + 1;
+                    return c;
+                }
+            }
+            pos = limit;
+        } while (fill());
+        
+        return -1;
+    }
+    
+    // ASCII strings without escapes that end within the buffer are copied from it directly,
+    // everything else is decoded into sb as it is read
+    @Override
+    String readString(KeyCache cache) {
+        ByteBuffer buf = this.buf;
+        int p = pos;
+        int l = limit;
+        while (p < l && (CHAR_FLAGS[buf.get(p) & 0xFF] & (STRING_SPECIAL | NON_ASCII)) == 0) {
+            p++;
+        }
+        if (p < l && buf.get(p) == '"') {
+            String s;
+            if (cache != null) {
+                s = cache.get(buf, pos, p);
+            } else if (buf.hasArray()) {
+                s = new String(buf.array(), buf.arrayOffset() + pos, p - pos,
+                        StandardCharsets.ISO_8859_1);
+            } else {
+                s = copyAscii(buf, pos, p);
+            }
+            pos = p + 1;
+            return s;
+        }
+        
+        sb.setLength(0);
+        for (; pos < p; pos++) {
+            sb.append((char) buf.get(pos));
+        }
+        while (true) {
+            int c = read();
+            byte flags = c == -1 ? STRING_SPECIAL : CHAR_FLAGS[c];
+            if ((flags & (STRING_SPECIAL | NON_ASCII)) == 0) {
+                sb.append((char) c);
+            } else if (flags == NON_ASCII) {
+                readMultiByte(c);
+            } else if (c == '"') {
+                break;
+            } else if (c == '\\') {
+                readEscape();
+            } else {
+                throw unexpected(c);
+            }
+        }
+        
+        return cache == null ? sb.toString() : cache.get(sb, 0, sb.length());
+    }
+    
+    // copies the bytes of direct and mapped buffers with one bulk get, which moves the position of
+    // buf: no one else uses it, as the parser reads a duplicate of the buffer it is given. The
+    // position is set through Buffer, as ByteBuffer's is new in Java 9.
+    private String copyAscii(ByteBuffer buf, int from, int to) {
+        int length = to - from;
+        byte[] bytes = this.bytes;
+        if (bytes == null || bytes.length < length)
+            this.bytes = bytes = new byte[Math.max(length, bytes == null ? 64 : bytes.length * 2)];
+        ((Buffer) buf).position(from);
+        buf.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+    
+    private void readMultiByte(int b) {
+        int codePoint;
+        int length;
+        int min;
+        if ((b & 0xE0) == 0xC0) {
+            codePoint = b & 0x1F;
+            length = 1;
+            min = 0x80;
+        } else if ((b & 0xF0) == 0xE0) {
+            codePoint = b & 0x0F;
+            length = 2;
+            min = 0x800;
+        } else if ((b & 0xF8) == 0xF0) {
+            codePoint = b & 0x07;
+            length = 3;
+            min = 0x10000;
+        } else {
+            throw invalidUtf8();
+        }
+        
+        for (int i = 0; i < length; i++) {
+            int c = read();
+            if ((c & 0xC0) != 0x80) // also catches -1
+                throw invalidUtf8();
+            codePoint = codePoint << 6 | c & 0x3F;
+        }
+        
+        // overlong encodings, surrogates and values past the unicode range
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE))
+            throw invalidUtf8();
+        
+        sb.appendCodePoint(codePoint);
+    }
+    
+    // non-ASCII bytes are negative, so they never match
+    @Override
+    void skipNested(int depth, boolean inString) {
+        if (index != null) {
+            int p = index.skipNested(buf, pos, depth, inString);
+            if (p == -1) {
+                pos = limit;
+                throw unexpected(-1);
+            }
+            pos = p;
+            return;
+        }
+        
+        boolean escaped = false;
+        do {
+            ByteBuffer buf = this.buf;
+            for (int p = pos, l = limit; p < l; p++) {
+                byte c = buf.get(p);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                        if (depth == 0) {
+                            pos = p + 1;
+                            return;
+                        }
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    pos = p + 1;
+                    return;
+                }
+            }
+            pos = limit;
+        } while (fill());
+        
+        throw unexpected(-1);
+    }
+    
+    @Override
+    void closeInput() throws IOException {
+        if (source != null)
+            source.close();
+    }
+    
+    private boolean fill() {
+        if (source == null)
+            return false;
+        
+        try {
+            ByteBuffer next;
+            do {
+                next = source.next();
+                if (next == null)
+                    return false;
+            } while (!next.hasRemaining());
+            
+            bufOffset += limit - start;
+            buf = next;
+            start = next.position();
+            pos = start;
+            limit = next.limit();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private RuntimeException invalidUtf8() {
+        return malformed("Invalid UTF-8 sequence at byte " + col());
+    }
+    
+    // supplies the input one buffer at a time
+    interface ByteSource {
+        /**
+         * @return The next part of the input, or null at its end. The previously returned buffer
+         * is no longer used once this is called.
+         */
+        ByteBuffer next() throws IOException;
+        
+        void close() throws IOException;
+    }
+    
+    private static final class StreamSource implements ByteSource {
+        StreamSource(InputStream in, int bufferSize) {
+            if (bufferSize < 1)
+                throw new IllegalArgumentException("Buffer size must be positive");
+            this.in = in;
+            this.buf = new byte[bufferSize];
+        }
+        
+        private final InputStream in;
+        private final byte[] buf;
+        
+        @Override
+        public ByteBuffer next() throws IOException {
+            int n = in.read(buf);
+            return n == -1 ? null : ByteBuffer.wrap(buf, 0, n);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+    
+    // maps the file one window at a time, leaving the I/O to the page cache
+    private static final class MappedSource implements ByteSource {
+        MappedSource(FileChannel channel, int windowSize) {
+            this.channel = channel;
+            this.windowSize = windowSize;
+        }
+        
+        private final FileChannel channel;
+        private final int windowSize;
+        private long offset;
+        
+        @Override
+        public ByteBuffer next() throws IOException {
+            long size = channel.size() - offset;
+            if (size <= 0)
+                return null;
+            
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(size, windowSize));
+            offset += window.limit();
+            return window;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
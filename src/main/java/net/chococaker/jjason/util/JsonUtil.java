@@ -19,7 +19,9 @@ import net.chococaker.jjason.JsonElement;
 import net.chococaker.jjason.JsonPrimitive;
 import net.chococaker.jjason.exception.MalformedJsonException;
 
-import java.text.StringCharacterIterator;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
 
 /**
  * JSON utility methods.
@@ -30,60 +32,115 @@ public final class JsonUtil {
     private JsonUtil() {
     }
     
+    // the character after the backslash for ASCII characters that have to be escaped, 0 if none
+    private static final char[] ESCAPES = new char[0x80];
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+    }
+    
     /**
      * Escapes an ordinary String into a string that can be contained by quotation marks in JSON.
+     * Control characters and all non-ASCII characters are written as <code>&#92;u</code>
+     * escapes.
      * <p>
      * Ex. [breakline] -> \n
      *
      * @param s The unescaped string
-     * @return The escaped string
+     * @return The escaped string, or s itself if nothing had to be escaped
      */
     public static String escape(String s) {
-        StringBuilder returned = new StringBuilder();
+        int length = s.length();
+        int i = 0;
+        while (i < length && escapeOf(s.charAt(i)) == 0) {
+            i++;
+        }
+        if (i == length) {
+            return s;
+        }
         
-        for (char c : s.toCharArray()) {
-            switch (c) {
-                case '\n':
-                    returned.append("\\n");
-                    break;
-                case '\t':
-                    returned.append("\\t");
-                    break;
-                case '\b':
-                    returned.append("\\b");
-                    break;
-                case '\f':
-                    returned.append("\\f");
-                    break;
-                case '\"':
-                    returned.append("\\\"");
-                    break;
-                case '\\':
-                    returned.append("\\\\");
-                    break;
-                
-                default:
-                    if (isUnicode(c)) {
-                        if (c <= 0xf) {
-                            returned.append("\\u000");
-                        } else if (c <= 0xff) {
-                            returned.append("\\u00");
-                        } else if (c <= 0xfff) {
-                            returned.append("\\u0");
-                        } else {
-                            returned.append("\\u");
-                        }
-                        returned.append(Integer.toHexString(c));
-                    } else {
-                        returned.append(c);
-                    }
-                    break;
+        char[] out = new char[length + (length >> 2) + 16];
+        s.getChars(0, i, out, 0);
+        int pos = i;
+        int start = i;
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            char escape = escapeOf(c);
+            if (escape == 0) {
+                continue;
+            }
+            
+            int run = i - start;
+            if (out.length - pos < run + 6) {
+                out = Arrays.copyOf(out, Math.max(out.length * 2, pos + run + 6));
             }
+            s.getChars(start, i, out, pos);
+            pos += run;
+            pos = writeEscape(c, escape, out, pos);
+            start = i + 1;
         }
         
-        return returned.toString();
+        int run = length - start;
+        if (out.length - pos < run) {
+            out = Arrays.copyOf(out, pos + run);
+        }
+        s.getChars(start, length, out, pos);
+        return new String(out, 0, pos + run);
     }
     
+    /**
+     * @param c A character of a string
+     * @return The character that follows the backslash when c is escaped, which is
+     * <code>'u'</code> for <code>&#92;u</code> escapes, or 0 if c does not need escaping
+     * @since 1.1
+     */
+    public static char escapeOf(char c) {
+        return c < 0x80 ? ESCAPES[c] : 'u';
+    }
+    
+    /**
+     * Writes the escape of a character.
+     *
+     * @param c      The character
+     * @param escape The result of {@link #escapeOf(char)} for the character
+     * @param out    The destination, with room for at least 6 characters
+     * @param pos    The position to write at
+     * @return The position after the escape
+     * @since 1.1
+     */
+    public static int writeEscape(char c, char escape, char[] out, int pos) {
+        out[pos++] = '\\';
+        out[pos++] = escape;
+        if (escape == 'u') {
+            out[pos++] = HEX_DIGITS[c >>> 12];
+            out[pos++] = HEX_DIGITS[(c >>> 8) & 0xf];
+            out[pos++] = HEX_DIGITS[(c >>> 4) & 0xf];
+            out[pos++] = HEX_DIGITS[c & 0xf];
+        }
+        return pos;
+    }
+    
+    // limits of the number fast paths
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MAX_DOUBLE_DIGITS = 17;
+    private static final int MAX_EXACT_POWER = 22;
+    private static final int MAX_EXPONENT = 100_000_000;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
     private static final byte UNICODE_LENGTH = 4; // the length of the actual part escaped unicode part
     
     /**
@@ -96,70 +153,197 @@ public final class JsonUtil {
      * @throws IllegalArgumentException When an unexpected character or escape is encountered
      */
     public static String unescape(String s) {
-        StringCharacterIterator iter = new StringCharacterIterator(s);
-        
-        StringBuilder sb = new StringBuilder();
-        
-        while (iter.getIndex() < iter.getEndIndex()) {
-            char c = iter.current();
-            requireNonDone(s, c);
-            
-            if (c == '\n') {
-                throw new IllegalArgumentException("Unexpected breakline in string");
+        return unescape(s, 0, s.length());
+    }
+    
+    /**
+     * Converts part of a string from an escaped JSON string to a normal Java string, in a single
+     * pass. Parts without escapes are returned as a substring.
+     *
+     * @param s     The string containing the escaped string
+     * @param start The index of the first char of the escaped string
+     * @param end   The index after the last char of the escaped string
+     * @return The unescaped string
+     * @throws IllegalArgumentException When an unexpected character or escape is encountered
+     * @since 1.1
+     */
+    public static String unescape(String s, int start, int end) {
+        StringBuilder sb = null;
+        int run = start; // the first char that has not been copied to sb yet
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < 0x20) {
+                throw new IllegalArgumentException("Unexpected control character in string");
+            }
+            if (c != '\\') {
+                continue;
             }
             
-            if (isUnicode(c)) {
-                throw new IllegalArgumentException("Unexpected unicode in string '" + s + "'");
+            if (sb == null) {
+                sb = new StringBuilder(end - start);
+            }
+            sb.append(s, run, i);
+            if (++i == end) {
+                throw MalformedJsonException.eof(s);
             }
             
-            if (c == '\\') {
-                c = iter.next();
-                requireNonDone(s, c);
-                switch (c) {
-                    case '\\':
-                    case '"':
-                    case '\'':
-                    case '/':
-                        break;
-                    
-                    case 'b':
-                        c = '\b';
-                        break;
-                    case 'f':
-                        c = '\f';
-                        break;
-                    case 'n':
-                        c = '\n';
-                        break;
-                    case 'r':
-                        c = '\r';
-                        break;
-                    case 't':
-                        c = '\t';
-                        break;
-                    
-                    case 'u': // unicode
-                        StringBuilder unicodePart = new StringBuilder();
-                        for (int i = 0; i < UNICODE_LENGTH; i++) {
-                            char next = iter.next();
-                            requireNonDone(s, next);
-                            unicodePart.append(next);
+            c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                case '"':
+                case '\'':
+                case '/':
+                    break;
+                
+                case 'b':
+                    c = '\b';
+                    break;
+                case 'f':
+                    c = '\f';
+                    break;
+                case 'n':
+                    c = '\n';
+                    break;
+                case 'r':
+                    c = '\r';
+                    break;
+                case 't':
+                    c = '\t';
+                    break;
+                
+                case 'u': // unicode
+                    if (end - i <= UNICODE_LENGTH) {
+                        throw MalformedJsonException.eof(s);
+                    }
+                    int value = 0;
+                    for (int j = 0; j < UNICODE_LENGTH; j++) {
+                        int digit = Character.digit(s.charAt(++i), 16);
+                        if (digit == -1 || s.charAt(i) >= 0x80) {
+                            throw new IllegalArgumentException("Unexpected hex digit '" + s.charAt(i) + "' at index " + i);
                         }
-                        
-                        c = (char) Integer.parseInt(unicodePart.toString(), 16);
-                        break;
-                    
-                    default: {
-                        throw new IllegalArgumentException("Unexpected escape for char '" + c + "' at index " + iter.getIndex());
+                        value = value << 4 | digit;
                     }
+                    c = (char) value;
+                    break;
+                
+                default: {
+                    throw new IllegalArgumentException("Unexpected escape for char '" + c + "' at index " + i);
                 }
             }
             
             sb.append(c);
-            iter.next();
+            run = i + 1;
         }
         
-        return sb.toString();
+        if (sb == null) {
+            return s.substring(start, end);
+        }
+        return sb.append(s, run, end).toString();
+    }
+    
+    /**
+     * Parses a JSON number in a single pass, into the narrowest type that holds it exactly: an
+     * {@link Integer}, {@link Long}, {@link Double}, {@link BigInteger} or {@link BigDecimal}.
+     *
+     * @param s The number, as specified by RFC 8259
+     * @return The parsed number
+     * @throws NumberFormatException If the text is not a JSON number
+     */
+    public static Number parseNumber(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        boolean negative = length > 0 && s.charAt(0) == '-';
+        if (negative)
+            i++;
+        if (i == length || !isDigit(s.charAt(i)))
+            throw invalidNumber(s);
+        
+        long mantissa = 0;
+        int digits = 0; // significant digits, without leading zeros
+        int exponent = 0;
+        boolean floating = false;
+        
+        char c = s.charAt(i++);
+        if (c != '0') {
+            mantissa = c - '0';
+            digits = 1;
+            while (i < length && isDigit(c = s.charAt(i))) {
+                i++;
+                if (digits++ < MAX_LONG_DIGITS)
+                    mantissa = mantissa * 10 + c - '0';
+            }
+        }
+        
+        if (i < length && s.charAt(i) == '.') {
+            floating = true;
+            if (++i == length || !isDigit(s.charAt(i)))
+                throw invalidNumber(s);
+            
+            while (i < length && isDigit(c = s.charAt(i))) {
+                i++;
+                if ((digits > 0 || c != '0') && digits++ < MAX_LONG_DIGITS)
+                    mantissa = mantissa * 10 + c - '0';
+                exponent--;
+            }
+        }
+        
+        if (i < length && ((c = s.charAt(i)) == 'e' || c == 'E')) {
+            floating = true;
+            boolean negativeExponent = false;
+            if (++i < length && ((c = s.charAt(i)) == '+' || c == '-')) {
+                negativeExponent = c == '-';
+                i++;
+            }
+            if (i == length || !isDigit(s.charAt(i)))
+                throw invalidNumber(s);
+            
+            int e = 0;
+            while (i < length && isDigit(c = s.charAt(i))) {
+                i++;
+                if (e < MAX_EXPONENT)
+                    e = e * 10 + c - '0';
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        
+        if (i != length)
+            throw invalidNumber(s);
+        
+        if (!floating) {
+            if (digits <= MAX_LONG_DIGITS) {
+                long l = negative ? -mantissa : mantissa;
+                return l == (int) l ? (Number) (int) l : (Number) l;
+            }
+            
+            BigInteger bigInteger = new BigInteger(s.toString());
+            return bigInteger.bitLength() < Long.SIZE ? bigInteger.longValue() : bigInteger;
+        }
+        
+        // exact when both the mantissa and the power of ten are exact doubles
+        if (digits <= MAX_EXACT_DIGITS
+                && exponent >= -MAX_EXACT_POWER && exponent <= MAX_EXACT_POWER) {
+            double d = exponent < 0
+                    ? mantissa / POWERS_OF_TEN[-exponent]
+                    : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -d : d;
+        }
+        
+        // out of the range of BigDecimal, the double is infinite or zero
+        if (exponent <= -MAX_EXPONENT || exponent >= MAX_EXPONENT)
+            return Double.parseDouble(s.toString());
+        
+        BigDecimal bigDecimal = new BigDecimal(s.toString());
+        double approximation = bigDecimal.doubleValue();
+        if (Double.isInfinite(approximation) || (approximation == 0 && mantissa != 0))
+            return bigDecimal;
+        
+        // up to 15 digits always survive a double, up to 17 only if the double prints back as the
+        // same number, and more precise text only if it is the exact value of the double
+        if (digits <= MAX_DOUBLE_DIGITS
+                ? new BigDecimal(Double.toString(approximation)).compareTo(bigDecimal) == 0
+                : new BigDecimal(approximation).compareTo(bigDecimal) == 0)
+            return approximation;
+        return bigDecimal;
     }
     
     /**
@@ -169,13 +353,11 @@ public final class JsonUtil {
         return element == null ? JsonPrimitive.NULL : element;
     }
     
-    // prevent unexpected errors when encountering end-of-file
-    private static void requireNonDone(String json, char c) {
-        if (c == StringCharacterIterator.DONE)
-            throw MalformedJsonException.eof(json);
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
     
-    private static boolean isUnicode(char c) {
-        return Character.UnicodeBlock.of(c) != Character.UnicodeBlock.BASIC_LATIN;
+    private static NumberFormatException invalidNumber(CharSequence s) {
+        return new NumberFormatException("Invalid JSON number '" + s + "'");
     }
 }
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.util;
+
+import java.math.BigInteger;
+
+/**
+ * Writes numbers straight into a char buffer, without creating intermediate {@link String}s.
+ * <p>
+ * Doubles are written in the shortest form that parses back to the same value, using the
+ * <a href="https://github.com/c4f7fcce9cb06515/Schubfach">Schubfach</a> algorithm, in the format
+ * of {@link Double#toString(double)}.
+ *
+ * @since 1.1
+ */
+public final class NumberWriter {
+    private NumberWriter() {
+    }
+    
+    public static final int MAX_INT_LENGTH = 11;
+    public static final int MAX_LONG_LENGTH = 20;
+    public static final int MAX_DOUBLE_LENGTH = 24;
+    
+    // the tens and ones of 0-99, so that two digits are written per division
+    private static final char[] DIGIT_TENS = new char[100];
+    private static final char[] DIGIT_ONES = new char[100];
+    
+    // double layout
+    private static final int P = 53;
+    private static final int W = 11;
+    private static final int Q_MIN = -1074;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final int H = 17;
+    private static final long C_MIN = 1L << P - 1;
+    private static final long C_TINY = 3;
+    private static final int BQ_MASK = (1 << W) - 1;
+    private static final long T_MASK = (1L << P - 1) - 1;
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final int MASK_28 = (1 << 28) - 1;
+    
+    private static final long[] POWERS_OF_TEN = new long[H + 1];
+    
+    // 126-bit approximations of 10^-k for K_MIN <= k <= K_MAX, split into the high and low 63
+    // bits. Computed once instead of being shipped as a table.
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) * 2];
+    
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_TENS[i] = (char) ('0' + i / 10);
+            DIGIT_ONES[i] = (char) ('0' + i % 10);
+        }
+        
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= H; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+        
+        BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            // g = floor(10^-k 2^-r) + 1, with r such that 2^125 <= 10^-k 2^-r < 2^126
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger pow = BigInteger.TEN.pow(-k);
+                int r = pow.bitLength() - 126;
+                g = r >= 0 ? pow.shiftRight(r) : pow.shiftLeft(-r);
+            } else {
+                BigInteger pow = BigInteger.TEN.pow(k);
+                g = BigInteger.ONE.shiftLeft(125 + pow.bitLength()).divide(pow);
+            }
+            g = g.add(BigInteger.ONE);
+            
+            G[k - K_MIN << 1] = g.shiftRight(63).longValue();
+            G[k - K_MIN << 1 | 1] = g.and(mask63).longValue();
+        }
+    }
+    
+    /**
+     * Writes an int, taking at most {@link #MAX_INT_LENGTH} chars.
+     *
+     * @return The position after the last written char
+     */
+    public static int writeInt(int i, char[] buf, int pos) {
+        if (i == Integer.MIN_VALUE) {
+            return writeLong(i, buf, pos);
+        }
+        
+        if (i < 0) {
+            buf[pos++] = '-';
+            i = -i;
+        }
+        
+        int end = pos + intLength(i);
+        int p = end;
+        while (i >= 100) {
+            int q = i / 100;
+            int r = i - q * 100;
+            i = q;
+            buf[--p] = DIGIT_ONES[r];
+            buf[--p] = DIGIT_TENS[r];
+        }
+        
+        buf[--p] = DIGIT_ONES[i];
+        if (i >= 10) {
+            buf[--p] = DIGIT_TENS[i];
+        }
+        
+        return end;
+    }
+    
+    /**
+     * Writes a long, taking at most {@link #MAX_LONG_LENGTH} chars.
+     *
+     * @return The position after the last written char
+     */
+    public static int writeLong(long l, char[] buf, int pos) {
+        if (l == (int) l && l != Integer.MIN_VALUE) {
+            return writeInt((int) l, buf, pos);
+        }
+        
+        // digits are written from negative values, which also hold Long.MIN_VALUE
+        if (l < 0) {
+            buf[pos++] = '-';
+        } else {
+            l = -l;
+        }
+        
+        int end = pos + negativeLongLength(l);
+        int p = end;
+        while (l <= -100) {
+            long q = l / 100;
+            int r = (int) (q * 100 - l);
+            l = q;
+            buf[--p] = DIGIT_ONES[r];
+            buf[--p] = DIGIT_TENS[r];
+        }
+        
+        int i = (int) -l;
+        buf[--p] = DIGIT_ONES[i];
+        if (i >= 10) {
+            buf[--p] = DIGIT_TENS[i];
+        }
+        
+        return end;
+    }
+    
+    /**
+     * Writes a double in the shortest form that parses back to the same value, taking at most
+     * {@link #MAX_DOUBLE_LENGTH} chars. The format is the same as {@link Double#toString(double)}.
+     *
+     * @return The position after the last written char
+     */
+    public static int writeDouble(double d, char[] buf, int pos) {
+        long bits = Double.doubleToRawLongBits(d);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> P - 1) & BQ_MASK;
+        if (bq == BQ_MASK) {
+            return writeString(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", buf, pos);
+        }
+        
+        if (bits < 0) {
+            buf[pos++] = '-';
+        }
+        
+        if (bq != 0) {
+            // normal value
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            // integers are written as is
+            if (0 < mq & mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return toChars(f, 0, buf, pos);
+                }
+            }
+            return toDecimal(-mq, c, 0, buf, pos);
+        }
+        
+        if (t != 0) {
+            // subnormal value
+            return t < C_TINY
+                    ? toDecimal(Q_MIN, 10 * t, -1, buf, pos)
+                    : toDecimal(Q_MIN, t, 0, buf, pos);
+        }
+        
+        return writeString("0.0", buf, pos);
+    }
+    
+    // finds the shortest decimal f 10^e in the rounding interval of c 2^q
+    private static int toDecimal(int q, long c, int dk, char[] buf, int pos) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        
+        long g1 = G[k - K_MIN << 1];
+        long g0 = G[k - K_MIN << 1 | 1];
+        
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+        
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit less first
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k, buf, pos);
+            }
+        }
+        
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk, buf, pos);
+        }
+        
+        // both are in the interval, pick the closest one, or the even one on ties
+        long cmp = vb - (s + t << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, pos);
+    }
+    
+    // rounds g 2^-126 cp to odd
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+    
+    // writes f 10^e, where f has at most 17 digits
+    private static int toChars(long f, int e, char[] buf, int pos) {
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POWERS_OF_TEN[len]) {
+            len++;
+        }
+        
+        // scale f to exactly 17 digits, so that f 10^e = 0.f 10^(e + len)
+        f *= POWERS_OF_TEN[H - len];
+        e += len;
+        
+        // split f into its first digit h, the next 8 digits m and the last 8 digits l
+        long hm = multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - 100_000_000L * hm);
+        int h = (int) (hm * 1_441_151_881L >>> 57);
+        int m = (int) (hm - 100_000_000 * h);
+        
+        if (0 < e && e <= 7) {
+            // plain format without leading zeroes
+            buf[pos++] = (char) ('0' + h);
+            int y = y(m);
+            int i = 1;
+            for (; i < e; i++) {
+                int t = 10 * y;
+                buf[pos++] = (char) ('0' + (t >>> 28));
+                y = t & MASK_28;
+            }
+            buf[pos++] = '.';
+            for (; i <= 8; i++) {
+                int t = 10 * y;
+                buf[pos++] = (char) ('0' + (t >>> 28));
+                y = t & MASK_28;
+            }
+            return lowDigits(l, buf, pos);
+        }
+        
+        if (-3 < e && e <= 0) {
+            // plain format with leading zeroes
+            buf[pos++] = '0';
+            buf[pos++] = '.';
+            for (; e < 0; e++) {
+                buf[pos++] = '0';
+            }
+            buf[pos++] = (char) ('0' + h);
+            pos = write8Digits(m, buf, pos);
+            return lowDigits(l, buf, pos);
+        }
+        
+        // computerized scientific notation
+        buf[pos++] = (char) ('0' + h);
+        buf[pos++] = '.';
+        pos = write8Digits(m, buf, pos);
+        pos = lowDigits(l, buf, pos);
+        
+        buf[pos++] = 'E';
+        e--;
+        if (e < 0) {
+            buf[pos++] = '-';
+            e = -e;
+        }
+        if (e >= 100) {
+            int d = e * 1_311 >>> 17; // e / 100
+            buf[pos++] = (char) ('0' + d);
+            e -= 100 * d;
+            buf[pos++] = DIGIT_TENS[e];
+        } else if (e >= 10) {
+            buf[pos++] = DIGIT_TENS[e];
+        }
+        buf[pos++] = DIGIT_ONES[e];
+        return pos;
+    }
+    
+    // writes the last 8 digits and removes trailing zeroes, except the one right after the '.'
+    private static int lowDigits(int l, char[] buf, int pos) {
+        if (l != 0) {
+            pos = write8Digits(l, buf, pos);
+        }
+        while (buf[pos - 1] == '0') {
+            pos--;
+        }
+        if (buf[pos - 1] == '.') {
+            pos++;
+        }
+        return pos;
+    }
+    
+    // writes exactly 8 digits from left to right, without divisions
+    private static int write8Digits(int m, char[] buf, int pos) {
+        int y = y(m);
+        for (int i = 0; i < 8; i++) {
+            int t = 10 * y;
+            buf[pos++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return pos;
+    }
+    
+    // floor((a + 1) 2^28 / 10^8) - 1
+    private static int y(int a) {
+        return (int) (multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+    
+    // floor(log10(2^e))
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+    
+    // floor(log10(3/4 2^e))
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+    
+    // floor(log2(10^e))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+    
+    // the high 64 bits of the 128-bit product, same as Math.multiplyHigh on Java 9+
+    private static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+    
+    private static int intLength(int i) {
+        int length = 1;
+        for (int limit = 10; i >= limit && length < 10; limit *= 10) {
+            length++;
+        }
+        return length;
+    }
+    
+    // length of a negative long, without its sign
+    private static int negativeLongLength(long l) {
+        int length = 1;
+        for (long limit = -10; l <= limit && length < 19; limit *= 10) {
+            length++;
+        }
+        return length;
+    }
+    
+    private static int writeString(String s, char[] buf, int pos) {
+        s.getChars(0, s.length(), buf, pos);
+        return pos + s.length();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.util;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+
+import java.util.Map;
+
+/**
+ * Gives the readers of JJason access to package-private parts of the tree classes. This is not
+ * part of the API, and may change or disappear in any release.
+ *
+ * @since 1.1
+ */
+public final class TreeAccess {
+    private TreeAccess() {
+    }
+    
+    private static volatile ObjectAccess objects;
+    
+    /**
+     * The package-private factories of {@link JsonObject}.
+     */
+    public interface ObjectAccess {
+        /**
+         * @param source The members of the object, whose get builds a single member and whose
+         *               entries build their value once it is asked for
+         * @return An object whose members are only built once they are used
+         */
+        JsonObject lazy(Map<String, JsonElement> source);
+    }
+    
+    /**
+     * Called by {@link JsonObject} when it is initialized.
+     *
+     * @throws IllegalStateException If the access was set before
+     */
+    public static void setObjectAccess(ObjectAccess access) {
+        if (objects != null)
+            throw new IllegalStateException("Object access is already set");
+        objects = access;
+    }
+    
+    /**
+     * @return The access to {@link JsonObject}, which is set once the class is initialized
+     */
+    public static ObjectAccess objects() {
+        ObjectAccess access = objects;
+        if (access == null) {
+            new JsonObject(); // initializes the class, which sets the access
+            access = objects;
+        }
+        return access;
+    }
+}
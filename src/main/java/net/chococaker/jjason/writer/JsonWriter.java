@@ -0,0 +1,376 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.writer;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.util.JsonUtil;
+import net.chococaker.jjason.util.NumberWriter;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Writes compact JSON into an {@link Appendable} or a UTF-8 {@link OutputStream} through a single
+ * reusable buffer, so trees of any size are written without building intermediate strings.
+ * <p>
+ * Commas and colons are inserted automatically, but the order of calls is not validated: writing
+ * a value where a name is expected produces invalid JSON.
+ *
+ * <pre>{@code
+ * try (JsonWriter writer = JsonWriter.of(response.getOutputStream())) {
+ *     writer.beginObject()
+ *             .name("id").value(42)
+ *             .name("tags").write(tags)
+ *             .endObject();
+ * }
+ * }</pre>
+ *
+ * @since 1.1
+ */
+public final class JsonWriter implements Flushable, Closeable {
+    private JsonWriter(Appendable out, OutputStream stream) {
+        this.out = out;
+        this.stream = stream;
+        this.bytes = stream == null ? null : new byte[BUFFER_SIZE * 3];
+    }
+    
+    private static final int BUFFER_SIZE = 8192;
+    
+    // exactly one of out and stream is set
+    private final Appendable out;
+    private final OutputStream stream;
+    private final byte[] bytes; // the UTF-8 encoding buffer for stream
+    
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    // whether the next name or value has to be preceded by a comma
+    private boolean comma;
+    
+    /**
+     * Creates a writer which appends to a {@link Writer}, a {@link StringBuilder} or any other
+     * {@link Appendable}. Output is buffered until {@link #flush()} is called.
+     *
+     * @param out The destination of the JSON text
+     * @return A new writer
+     */
+    public static JsonWriter of(Appendable out) {
+        return new JsonWriter(out, null);
+    }
+    
+    /**
+     * Creates a writer which encodes its output as UTF-8. Output is buffered until
+     * {@link #flush()} is called.
+     *
+     * @param out The destination of the JSON text
+     * @return A new writer
+     */
+    public static JsonWriter of(OutputStream out) {
+        return new JsonWriter(null, out);
+    }
+    
+    /**
+     * @param element The element to serialize
+     * @return The compact JSON text of the element
+     */
+    public static String toString(JsonElement element) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            JsonWriter writer = of(sb);
+            element.writeTo(writer);
+            writer.flushBuffer(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder does not throw
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Writes a whole tree as the next value.
+     *
+     * @param element The element to write
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     * @throws StackOverflowError When the element contains a reference to itself
+     */
+    public JsonWriter write(JsonElement element) throws IOException {
+        element.writeTo(this);
+        return this;
+    }
+    
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+    
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+    
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+    
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+    
+    /**
+     * Writes the name of the next member of an object.
+     *
+     * @param name The unescaped name
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public JsonWriter name(String name) throws IOException {
+        beforeValue();
+        string(name);
+        put(':');
+        comma = false;
+        return this;
+    }
+    
+    /**
+     * @param value The unescaped string, or null
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) throws IOException {
+        return rawValue(value ? "true" : "false");
+    }
+    
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        require(NumberWriter.MAX_LONG_LENGTH);
+        pos = NumberWriter.writeLong(value, buf, pos);
+        return this;
+    }
+    
+    /**
+     * Writes a double in the shortest form that reads back as the same value. NaN and infinities
+     * are written like {@link Double#toString(double)} does, which is not valid JSON.
+     *
+     * @param value The number
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public JsonWriter value(double value) throws IOException {
+        beforeValue();
+        require(NumberWriter.MAX_DOUBLE_LENGTH);
+        pos = NumberWriter.writeDouble(value, buf, pos);
+        return this;
+    }
+    
+    public JsonWriter nullValue() throws IOException {
+        return rawValue("null");
+    }
+    
+    /**
+     * Writes text which already is valid JSON, such as the original text of a number, as the next
+     * value. The text is not checked.
+     *
+     * @param json The JSON text
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public JsonWriter rawValue(CharSequence json) throws IOException {
+        beforeValue();
+        append(json);
+        return this;
+    }
+    
+    /**
+     * Writes all buffered output to the destination and flushes it, if it is {@link Flushable}.
+     *
+     * @throws IOException If the destination could not be written to
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer(true);
+        if (stream != null) {
+            stream.flush();
+        } else if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+    
+    /**
+     * Flushes the writer and closes the destination, if it is {@link Closeable}.
+     *
+     * @throws IOException If the destination could not be written to or closed
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (stream != null) {
+            stream.close();
+        } else if (out instanceof Closeable) {
+            ((Closeable) out).close();
+        }
+    }
+    
+    private JsonWriter open(char c) throws IOException {
+        beforeValue();
+        put(c);
+        comma = false;
+        return this;
+    }
+    
+    private JsonWriter close(char c) throws IOException {
+        put(c);
+        comma = true;
+        return this;
+    }
+    
+    private void beforeValue() throws IOException {
+        if (comma) {
+            put(',');
+        }
+        comma = true;
+    }
+    
+    // writes a quoted string, copying runs that need no escaping at once
+    private void string(String s) throws IOException {
+        put('"');
+        int length = s.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            char escape = JsonUtil.escapeOf(c);
+            if (escape == 0) {
+                continue;
+            }
+            
+            append(s, start, i);
+            require(6);
+            pos = JsonUtil.writeEscape(c, escape, buf, pos);
+            start = i + 1;
+        }
+        append(s, start, length);
+        put('"');
+    }
+    
+    private void put(char c) throws IOException {
+        if (pos == buf.length) {
+            flushBuffer();
+        }
+        buf[pos++] = c;
+    }
+    
+    private void append(CharSequence s) throws IOException {
+        append(s, 0, s.length());
+    }
+    
+    private void append(CharSequence s, int start, int end) throws IOException {
+        while (start < end) {
+            if (pos == buf.length) {
+                flushBuffer();
+            }
+            int count = Math.min(end - start, buf.length - pos);
+            if (s instanceof String) {
+                ((String) s).getChars(start, start + count, buf, pos);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    buf[pos + i] = s.charAt(start + i);
+                }
+            }
+            pos += count;
+            start += count;
+        }
+    }
+    
+    // makes room for a token which must not be split across flushes
+    private void require(int length) throws IOException {
+        if (buf.length - pos < length) {
+            flushBuffer();
+        }
+    }
+    
+    private void flushBuffer() throws IOException {
+        flushBuffer(false);
+    }
+    
+    private void flushBuffer(boolean complete) throws IOException {
+        if (pos == 0) {
+            return;
+        }
+        
+        if (stream != null) {
+            encode(complete);
+        } else if (out instanceof Writer) {
+            ((Writer) out).write(buf, 0, pos);
+            pos = 0;
+        } else if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(buf, 0, pos);
+            pos = 0;
+        } else {
+            out.append(CharBuffer.wrap(buf, 0, pos));
+            pos = 0;
+        }
+    }
+    
+    // encodes the buffer as UTF-8. Unless the output is complete, a trailing high surrogate is
+    // kept until its pair arrives.
+    private void encode(boolean complete) throws IOException {
+        int end = pos;
+        if (!complete && Character.isHighSurrogate(buf[end - 1])) {
+            end--;
+        }
+        
+        byte[] bytes = this.bytes;
+        int n = 0;
+        for (int i = 0; i < end; i++) {
+            char c = buf[i];
+            if (c < 0x80) {
+                bytes[n++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[n++] = (byte) (0xc0 | c >> 6);
+                bytes[n++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(buf[i + 1])) {
+                int cp = Character.toCodePoint(c, buf[++i]);
+                bytes[n++] = (byte) (0xf0 | cp >> 18);
+                bytes[n++] = (byte) (0x80 | cp >> 12 & 0x3f);
+                bytes[n++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                bytes[n++] = (byte) (0x80 | cp & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                bytes[n++] = '?'; // unpaired, like String.getBytes
+            } else {
+                bytes[n++] = (byte) (0xe0 | c >> 12);
+                bytes[n++] = (byte) (0x80 | c >> 6 & 0x3f);
+                bytes[n++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        stream.write(bytes, 0, n);
+        
+        pos -= end;
+        if (pos > 0) {
+            buf[0] = buf[end];
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+
+// A BlockClassifier comparing a whole vector of bytes at once, with the widest species of the CPU
+// that fits a block. Only loaded through BlockClassifier.create(), which falls back to SWAR when
+// the jdk.incubator.vector module is not added.
+final class VectorBlockClassifier extends BlockClassifier {
+    VectorBlockClassifier() {
+        if (SPECIES.length() < 16)
+            throw new LinkageError("Vectors of " + SPECIES.length() + " bytes are too narrow");
+    }
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() > 64
+            ? ByteVector.SPECIES_512 : ByteVector.SPECIES_PREFERRED;
+
+    // only heap buffers are loaded into vectors, others are classified with SWAR
+    @Override
+    void classify(ByteBuffer buf, int p, long[] masks) {
+        if (!buf.hasArray()) {
+            super.classify(buf, p, masks);
+            return;
+        }
+
+        byte[] array = buf.array();
+        int offset = buf.arrayOffset() + p;
+        long quotes = 0;
+        long backslashes = 0;
+        long operators = 0;
+        long whitespace = 0;
+        for (int i = 0; i < BLOCK_SIZE; i += SPECIES.length()) {
+            ByteVector v = ByteVector.fromArray(SPECIES, array, offset + i);
+            ByteVector lower = v.or((byte) 0x20); // folds '[' into '{' and ']' into '}'
+            quotes |= v.eq((byte) '"').toLong() << i;
+            backslashes |= v.eq((byte) '\\').toLong() << i;
+            operators |= lower.eq((byte) '{').or(lower.eq((byte) '}'))
+                    .or(v.eq((byte) ':')).or(v.eq((byte) ',')).toLong() << i;
+            whitespace |= v.eq((byte) ' ').or(v.eq((byte) '\t'))
+                    .or(v.eq((byte) '\n')).or(v.eq((byte) '\r')).toLong() << i;
+        }
+
+        masks[QUOTES] = quotes;
+        masks[BACKSLASHES] = backslashes;
+        masks[OPERATORS] = operators;
+        masks[WHITESPACE] = whitespace;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonArrayTest {
+    @Test
+    void addsArraysEqualToItself() {
+        JsonArray array = new JsonArray(Arrays.asList(new JsonPrimitive(1), new JsonPrimitive(2)));
+        array.addAll(array.clone());
+        array.addAll(0, new JsonArray(array));
+        assertEquals(8, array.size());
+    }
+    
+    @Test
+    void rejectsItself() {
+        JsonArray array = new JsonArray(Arrays.asList(new JsonPrimitive(1)));
+        assertThrows(IllegalArgumentException.class, () -> array.addAll(array));
+        assertThrows(IllegalArgumentException.class, () -> array.addAll(0, array));
+        assertEquals(1, array.size());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPrimitiveTest {
+    @Test
+    void convertsWholeNumbersExactly() {
+        assertEquals(7, new JsonPrimitive(7L).getAsInt());
+        assertEquals(-3, JsonPrimitive.lazyNumber("-3.0").getAsInt());
+        assertEquals(100, JsonPrimitive.lazyNumber("1e2").getAsLong());
+        assertEquals(Integer.MIN_VALUE, JsonPrimitive.lazyNumber("-2147483648").getAsInt());
+        assertEquals(Long.MAX_VALUE, new JsonPrimitive(BigInteger.valueOf(Long.MAX_VALUE))
+                .getAsLong());
+        assertEquals(3000000000L, new JsonPrimitive(new BigDecimal("3000000000.000"))
+                .getAsLong());
+    }
+    
+    @Test
+    void rejectsNumbersThatWouldBeTruncatedOrWrapped() {
+        assertThrows(IllegalStateException.class,
+                () -> JsonPrimitive.lazyNumber("3000000000").getAsInt());
+        assertThrows(IllegalStateException.class,
+                () -> JsonPrimitive.lazyNumber("1.5").getAsLong());
+        assertThrows(IllegalStateException.class,
+                () -> JsonPrimitive.lazyNumber("1.5").getAsInt());
+        assertThrows(IllegalStateException.class,
+                () -> JsonPrimitive.lazyNumber("9223372036854775808").getAsLong());
+        assertThrows(IllegalStateException.class,
+                () -> JsonPrimitive.lazyNumber("1e19").getAsLong());
+        assertThrows(IllegalStateException.class,
+                () -> JsonPrimitive.lazyNumber("1e400").getAsLong());
+        assertThrows(IllegalStateException.class, () -> new JsonPrimitive("1").getAsInt());
+        
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> JsonPrimitive.lazyNumber("3000000000").getAsInt());
+        assertEquals("Number 3000000000 is not an int", e.getMessage());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemberMapTest {
+    private static MemberMap filled(int size) {
+        MemberMap map = new MemberMap();
+        for (int i = 0; i < size; i++) {
+            map.put("k" + i, new JsonPrimitive(i));
+        }
+        return map;
+    }
+    
+    @Test
+    void movesToHashTableAfterMaxCompactSize() {
+        MemberMap map = filled(MemberMap.MAX_COMPACT_SIZE);
+        assertTrue(map.isCompact());
+        map.put("k0", new JsonPrimitive(-1)); // replacing does not grow the map
+        assertTrue(map.isCompact());
+        
+        map.put("new", JsonPrimitive.NULL);
+        assertFalse(map.isCompact());
+        assertEquals(MemberMap.MAX_COMPACT_SIZE + 1, map.size());
+        assertEquals(-1, map.get("k0").getAsJsonPrimitive().getAsInt());
+        assertEquals(JsonPrimitive.NULL, map.get("new"));
+        assertNull(map.get("k" + MemberMap.MAX_COMPACT_SIZE));
+    }
+    
+    @Test
+    void keepsInsertionOrder() {
+        List<String> expected = new ArrayList<>();
+        MemberMap map = new MemberMap();
+        for (int i = 0; i < MemberMap.MAX_COMPACT_SIZE * 2; i++) {
+            String key = "k" + (i * 7919 % 31);
+            map.put(key, new JsonPrimitive(i));
+            expected.add(key);
+            assertEquals(expected, new ArrayList<>(map.keySet()), "size " + map.size());
+        }
+        
+        MemberMap small = filled(4);
+        small.remove("k1");
+        small.put("k1", JsonPrimitive.NULL);
+        small.put("k0", JsonPrimitive.NULL);
+        List<String> keys = new ArrayList<>(small.keySet());
+        assertEquals(4, keys.size());
+        assertEquals("k1", keys.get(3));
+        assertEquals("k0", keys.get(0));
+    }
+    
+    @Test
+    void iteratorFailsFastOnPromotion() {
+        MemberMap map = filled(MemberMap.MAX_COMPACT_SIZE);
+        Iterator<Map.Entry<String, JsonElement>> it = map.entrySet().iterator();
+        it.next();
+        map.put("new", JsonPrimitive.NULL);
+        assertFalse(map.isCompact());
+        assertTrue(it.hasNext());
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+    
+    @Test
+    void iteratorFailsFastOnRemovalThroughTheMap() {
+        MemberMap map = filled(4);
+        Iterator<Map.Entry<String, JsonElement>> it = map.entrySet().iterator();
+        it.next();
+        map.remove("k3");
+        assertThrows(ConcurrentModificationException.class, it::next);
+        
+        Iterator<String> keys = map.keySet().iterator();
+        keys.next();
+        map.clear();
+        assertThrows(ConcurrentModificationException.class, keys::next);
+    }
+    
+    @Test
+    void iteratorAllowsItsOwnRemovalsAndReplacements() {
+        MemberMap map = filled(4);
+        Iterator<Map.Entry<String, JsonElement>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonElement> entry = it.next();
+            int i = entry.getValue().getAsJsonPrimitive().getAsInt();
+            if (i % 2 == 0) {
+                it.remove();
+                assertThrows(IllegalStateException.class, it::remove);
+            } else {
+                map.put(entry.getKey(), new JsonPrimitive(i * 10));
+            }
+        }
+        assertEquals(2, map.size());
+        assertEquals(10, map.get("k1").getAsJsonPrimitive().getAsInt());
+        assertEquals(30, map.get("k3").getAsJsonPrimitive().getAsInt());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason;
+
+import net.chococaker.jjason.reader.JsonReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentJsonTest {
+    private static final String JSON =
+            "{\"z\":1,\"a\":{\"y\":[true,{\"k\":\"v\"}],\"b\":null},\"m\":[]}";
+    
+    private static JsonObject read(String json) {
+        return JsonReader.objectReader(json).read();
+    }
+    
+    @Test
+    void keepsInsertionOrder() {
+        PersistentJsonObject frozen = read(JSON).freeze();
+        assertEquals(JSON, frozen.toString());
+        assertEquals(JSON, frozen.toJsonObject().toString());
+        
+        StringBuilder keys = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            keys.append(i == 0 ? "{" : ",").append("\"k").append(i * 7919 % 2000).append("\":")
+                    .append(i);
+        }
+        String large = keys.append('}').toString();
+        assertEquals(large, read(large).freeze().toString());
+    }
+    
+    @Test
+    void keepsThePlaceOfReplacedMembers() {
+        PersistentJsonObject object = read(JSON).freeze()
+                .with("a", new JsonPrimitive(2))
+                .without("z")
+                .with("z", new JsonPrimitive(3))
+                .with("n", JsonPrimitive.NULL);
+        
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> member : object) {
+            keys.add(member.getKey());
+        }
+        assertEquals(Arrays.asList("a", "m", "z", "n"), keys);
+        assertEquals("{\"a\":2,\"m\":[],\"z\":3,\"n\":null}", object.toString());
+    }
+    
+    @Test
+    void keepsCollidingKeys() {
+        // "Aa" and "BB" have the same hash code
+        PersistentJsonObject object = PersistentJsonObject.empty()
+                .with("BB", new JsonPrimitive(1))
+                .with("Aa", new JsonPrimitive(2))
+                .with("BB", new JsonPrimitive(3));
+        assertEquals("{\"BB\":3,\"Aa\":2}", object.toString());
+        assertEquals("{\"Aa\":2}", object.without("BB").toString());
+    }
+    
+    @Test
+    void navigatesFrozenTrees() {
+        JsonElement frozen = read(JSON).freeze();
+        assertTrue(frozen.isJsonObject());
+        assertFalse(frozen.isJsonArray());
+        
+        PersistentJsonObject a = frozen.getAsPersistentJsonObject().getAsPersistentJsonObject("a");
+        assertTrue(a.get("y").isJsonArray());
+        assertEquals("v", a.getAsPersistentJsonArray("y").getAsPersistentJsonObject(1)
+                .getAsJsonPrimitive("k").getAsString());
+        assertTrue(a.getAsPersistentJsonArray("y").getAsJsonPrimitive(0).getAsBoolean());
+        
+        // the mutable views are copies
+        JsonObject copy = frozen.getAsJsonObject();
+        assertEquals(read(JSON), copy);
+        copy.set("z", new JsonPrimitive(5));
+        assertEquals(1, frozen.getAsPersistentJsonObject().getAsJsonPrimitive("z").getAsInt());
+        JsonArray array = a.get("y").getAsJsonArray();
+        array.clear();
+        assertEquals(2, a.getAsPersistentJsonArray("y").size());
+    }
+    
+    @Test
+    void comparesByContent() {
+        PersistentJsonObject object = read(JSON).freeze();
+        PersistentJsonObject reordered =
+                read("{\"m\":[],\"a\":{\"b\":null,\"y\":[true,{\"k\":\"v\"}]},\"z\":1}").freeze();
+        assertEquals(object, reordered);
+        assertEquals(object.hashCode(), reordered.hashCode());
+        assertNotEquals(object, object.with("z", new JsonPrimitive(2)));
+    }
+    
+    @Test
+    void cachesZeroHashCodes() {
+        // "0".hashCode() is 48, the same as the hash code of a JsonPrimitive of 17
+        PersistentJsonObject object = PersistentJsonObject.empty().with("0", new JsonPrimitive(17));
+        assertEquals(0, object.hashCode());
+        assertEquals(0, object.hashCode());
+        assertEquals(0, PersistentJsonObject.empty().hashCode());
+    }
+    
+    @Test
+    void survivesSerialization() throws IOException, ClassNotFoundException {
+        PersistentJsonObject object = read(JSON).freeze().with("n", new JsonPrimitive(4));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in =
+                     new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            PersistentJsonObject copy = (PersistentJsonObject) in.readObject();
+            assertEquals(object, copy);
+            assertEquals(object.toString(), copy.toString());
+            String json = object.toString();
+            assertEquals(json.substring(0, json.length() - 1) + ",\"o\":0}",
+                    copy.with("o", new JsonPrimitive(0)).toString());
+        }
+    }
+}
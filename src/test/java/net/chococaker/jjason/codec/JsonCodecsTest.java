@@ -0,0 +1,157 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.codec;
+
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import net.chococaker.jjason.reader.JsonParser;
+import net.chococaker.jjason.writer.JsonWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JsonCodecsTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void readsWholeNumbersInRange() {
+        assertEquals(Integer.MAX_VALUE, (int) JsonCodecs.INTEGER.read(JsonParser.of("2147483647")));
+        assertEquals(-3, JsonCodecs.readInt(JsonParser.of("-3.0")));
+        assertEquals(100, JsonCodecs.readInt(JsonParser.of("1e2")));
+        assertEquals(Long.MIN_VALUE, JsonCodecs.readLong(JsonParser.of("-9223372036854775808")));
+        assertEquals(Short.MIN_VALUE, JsonCodecs.readShort(JsonParser.of("-32768")));
+        assertEquals(Byte.MAX_VALUE, (byte) JsonCodecs.BYTE.read(JsonParser.of("127")));
+        assertEquals(new BigInteger("123456789012345678901234567890"),
+                JsonCodecs.BIG_INTEGER.read(JsonParser.of("1234567890123456789012345678.9e2")));
+        assertNull(JsonCodecs.INTEGER.read(JsonParser.of("null")));
+    }
+    
+    @Test
+    void rejectsNumbersOutOfRange() {
+        assertMalformed(() -> JsonCodecs.readInt(JsonParser.of("3000000000")));
+        assertMalformed(() -> JsonCodecs.readInt(JsonParser.of("-2147483649")));
+        assertMalformed(() -> JsonCodecs.INTEGER.read(JsonParser.of("3000000000.7")));
+        assertMalformed(() -> JsonCodecs.readLong(JsonParser.of("9223372036854775808")));
+        assertMalformed(() -> JsonCodecs.LONG.read(JsonParser.of("1e400")));
+        assertMalformed(() -> JsonCodecs.readShort(JsonParser.of("32768")));
+        assertMalformed(() -> JsonCodecs.SHORT.read(JsonParser.of("-32769")));
+        assertMalformed(() -> JsonCodecs.readByte(JsonParser.of("128")));
+        assertMalformed(() -> JsonCodecs.BYTE.read(JsonParser.of("-129")));
+    }
+    
+    @Test
+    void rejectsFractions() {
+        assertMalformed(() -> JsonCodecs.readInt(JsonParser.of("1.5")));
+        assertMalformed(() -> JsonCodecs.readLong(JsonParser.of("1e-1")));
+        assertMalformed(() -> JsonCodecs.LONG.read(JsonParser.of("12345678901234567.89")));
+        assertMalformed(() -> JsonCodecs.readShort(JsonParser.of("0.5")));
+        assertMalformed(() -> JsonCodecs.BYTE.read(JsonParser.of("-0.1")));
+        assertMalformed(() -> JsonCodecs.BIG_INTEGER.read(JsonParser.of("2.5")));
+        assertMalformed(() -> JsonCodecs.BIG_INTEGER.read(
+                JsonParser.of("123456789012345678901234567890.1")));
+    }
+    
+    @Test
+    void reportsTheNumberAndColumn() {
+        JsonParser parser = JsonParser.of("[1, 1.5]");
+        parser.next();
+        parser.next();
+        assertEquals(1, JsonCodecs.readInt(parser));
+        parser.next();
+        MalformedJsonException e = assertThrows(MalformedJsonException.class,
+                () -> JsonCodecs.readInt(parser));
+        assertEquals("Number 1.5 is not an int at col 6", e.getMessage());
+    }
+    
+    @Test
+    void bindsCheckedPrimitives() {
+        JsonCodec<Small> codec = JsonBinder.codec(Small.class);
+        Small small = codec.read(JsonParser.of("{\"s\":-300,\"b\":12}"));
+        assertEquals(-300, small.s);
+        assertEquals(12, small.b);
+        assertMalformed(() -> codec.read(JsonParser.of("{\"s\":40000,\"b\":0}")));
+        assertMalformed(() -> codec.read(JsonParser.of("{\"s\":0,\"b\":300}")));
+        assertMalformed(() -> codec.read(JsonParser.of("{\"s\":0,\"b\":1.5}")));
+    }
+    
+    @Test
+    void readsNullAsElement() {
+        assertSame(JsonPrimitive.NULL, JsonCodecs.ELEMENT.read(JsonParser.of("null")));
+        assertSame(JsonPrimitive.NULL,
+                JsonCodecs.element(JsonPrimitive.class).read(JsonParser.of("null")));
+        assertNull(JsonCodecs.element(JsonObject.class).read(JsonParser.of("null")));
+    }
+    
+    @Test
+    void bindsRecordsInComponentOrder() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null && Arrays.stream(SourceVersion.values())
+                .anyMatch(v -> v.name().equals("RELEASE_16")), "records need Java 16");
+        
+        // the tests are compiled for Java 8, so the record is compiled here
+        Path source = Files.write(dir.resolve("Point.java"), ("public record Point(String name,"
+                + " @net.chococaker.jjason.codec.JsonName(\"z\") int y, double x) {}")
+                .getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, compiler.run(null, null, null, "-classpath",
+                System.getProperty("java.class.path"), "-d", dir.toString(), source.toString()));
+        
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()},
+                getClass().getClassLoader())) {
+            @SuppressWarnings("unchecked")
+            JsonCodec<Object> codec = (JsonCodec<Object>) JsonBinder.codec(
+                    loader.loadClass("Point"));
+            Object point = codec.read(JsonParser.of("{\"x\": 1.5, \"name\": \"p\", \"z\": 2}"));
+            assertEquals("Point[name=p, y=2, x=1.5]", point.toString());
+            assertEquals("{\"name\":\"p\",\"z\":2,\"x\":1.5}", write(codec, point));
+            assertEquals("Point[name=null, y=0, x=0.0]",
+                    codec.read(JsonParser.of("{}")).toString());
+        }
+    }
+    
+    private static String write(JsonCodec<Object> codec, Object value) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        JsonWriter writer = JsonWriter.of(sb);
+        codec.write(writer, value);
+        writer.flush();
+        return sb.toString();
+    }
+    
+    private static void assertMalformed(Executable read) {
+        assertThrows(MalformedJsonException.class, read);
+    }
+    
+    static final class Small {
+        short s;
+        byte b;
+    }
+}
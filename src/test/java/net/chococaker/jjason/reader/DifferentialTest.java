@@ -0,0 +1,206 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// reads random documents through every path that builds a tree, and expects the same tree from
+// each, or an error from each
+class DifferentialTest {
+    private static final String[] STRING_PARTS = {
+            "a", "Z", " ", "é", "ß", "€", "日本", "😀", "\\\"", "\\\\", "\\/", "\\b", "\\f", "\\n",
+            "\\r", "\\t", "\\u0041", "\\u00e9", "\\u20ac", "\\ud83d\\ude00", ",", "]", "}", ":"
+    };
+    
+    private static final String[] NUMBERS = {
+            "0", "-0", "7", "-42", "2147483648", "-9223372036854775808", "9223372036854775808",
+            "123456789012345678901234567890", "0.5", "-12.25", "1e5", "1E+2", "-2.5e-3", "0.0001",
+            "3.141592653589793", "0.30000000000000004", "1.0E10", "4.9e-324", "1e400"
+    };
+    
+    private static final String WHITESPACE = " \n\t\r";
+    private static final String MUTATIONS = "{}[]\",:\\ 0-1e.tn\u0001";
+    
+    private static final List<Function<String, JsonArray>> PATHS = new ArrayList<>();
+    
+    static {
+        PATHS.add(json -> JsonReader.arrayReader(JsonParser.of(json)).read());
+        PATHS.add(json -> JsonReader.arrayReader(JsonParser.of(new StringReader(json), 7)).read());
+        PATHS.add(json -> JsonReader.arrayReader(JsonParser.of(utf8(json))).read());
+        PATHS.add(json -> JsonReader.arrayReader(JsonParser.indexed(utf8(json))).read());
+        PATHS.add(json -> JsonReader.lazyArrayReader(json).read());
+        PATHS.add(json -> JsonReader.parallelArrayReader(json).read());
+        PATHS.add(json -> JsonReader.arrayReader(json).withNumberArrays(true).read());
+        PATHS.add(DifferentialTest::push);
+    }
+    
+    private static byte[] utf8(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    // feeds the input in chunks of 1 to 16 bytes
+    private static JsonArray push(String json) {
+        List<JsonElement> documents = new ArrayList<>();
+        JsonPushParser parser = JsonPushParser.of(0, documents::add);
+        byte[] bytes = utf8(json);
+        Random random = new Random(json.length());
+        for (int p = 0; p < bytes.length; ) {
+            int length = Math.min(bytes.length - p, 1 + random.nextInt(16));
+            parser.feed(ByteBuffer.wrap(bytes, p, length));
+            p += length;
+        }
+        parser.endOfInput();
+        assertEquals(1, documents.size());
+        return documents.get(0).getAsJsonArray();
+    }
+    
+    private static void whitespace(Random random, StringBuilder json) {
+        while (random.nextInt(4) == 0) {
+            json.append(WHITESPACE.charAt(random.nextInt(WHITESPACE.length())));
+        }
+    }
+    
+    private static void string(Random random, StringBuilder json) {
+        json.append('"');
+        for (int i = random.nextInt(6); i > 0; i--) {
+            json.append(STRING_PARTS[random.nextInt(STRING_PARTS.length)]);
+        }
+        json.append('"');
+    }
+    
+    private static void value(Random random, StringBuilder json, int depth) {
+        whitespace(random, json);
+        switch (random.nextInt(depth < 4 ? 7 : 4)) {
+            case 0:
+                string(random, json);
+                break;
+            case 1:
+            case 2:
+                json.append(NUMBERS[random.nextInt(NUMBERS.length)]);
+                break;
+            case 3:
+                json.append(random.nextBoolean() ? "true"
+                        : random.nextBoolean() ? "false" : "null");
+                break;
+            case 4:
+            case 5:
+                array(random, json, depth + 1);
+                break;
+            default:
+                json.append('{');
+                // keys have the same length, so that deleting or inserting a char cannot make
+                // them equal
+                for (int i = random.nextInt(5) - 1; i >= 0; i--) {
+                    whitespace(random, json);
+                    json.append("\"k").append((char) ('a' + i)).append('"');
+                    whitespace(random, json);
+                    json.append(':');
+                    value(random, json, depth + 1);
+                    if (i > 0)
+                        json.append(',');
+                }
+                whitespace(random, json);
+                json.append('}');
+        }
+        whitespace(random, json);
+    }
+    
+    private static void array(Random random, StringBuilder json, int depth) {
+        json.append('[');
+        for (int i = random.nextInt(6) - 1; i >= 0; i--) {
+            value(random, json, depth);
+            if (i > 0)
+                json.append(',');
+        }
+        json.append(']');
+    }
+    
+    private static String document(Random random) {
+        StringBuilder json = new StringBuilder();
+        whitespace(random, json);
+        array(random, json, 0);
+        whitespace(random, json);
+        return json.toString();
+    }
+    
+    private static void assertAgree(String json) {
+        JsonArray expected;
+        try {
+            expected = PATHS.get(0).apply(json);
+        } catch (MalformedJsonException e) {
+            for (int i = 1; i < PATHS.size(); i++) {
+                Function<String, JsonArray> path = PATHS.get(i);
+                assertThrows(MalformedJsonException.class, () -> path.apply(json),
+                        "path " + i + ": " + json);
+            }
+            return;
+        }
+        for (int i = 1; i < PATHS.size(); i++) {
+            assertEquals(expected, PATHS.get(i).apply(json), "path " + i + ": " + json);
+        }
+    }
+    
+    @Test
+    void readsRandomDocumentsAlike() {
+        Random random = new Random(548123);
+        for (int i = 0; i < 2000; i++) {
+            assertAgree(document(random));
+        }
+    }
+    
+    @Test
+    void rejectsBrokenDocumentsAlike() {
+        Random random = new Random(548123);
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder json = new StringBuilder(document(random));
+            int at = random.nextInt(json.length() + 1);
+            // a surrogate pair is not split, which would leave a char UTF-8 cannot encode
+            if (at > 0 && at < json.length() && Character.isLowSurrogate(json.charAt(at)))
+                at--;
+            if (random.nextBoolean() && at < json.length()) {
+                json.delete(at, json.offsetByCodePoints(at, 1));
+            } else {
+                json.insert(at, MUTATIONS.charAt(random.nextInt(MUTATIONS.length())));
+            }
+            assertAgree(json.toString());
+        }
+    }
+    
+    @Test
+    void readsLargeArraysAlike() {
+        Random random = new Random(548123);
+        StringBuilder json = new StringBuilder("[");
+        while (json.length() < ParallelArrayReader.MIN_PARALLEL_LENGTH + 1000) {
+            if (json.length() > 1)
+                json.append(',');
+            value(random, json, 0);
+        }
+        assertAgree(json.append(']').toString());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonExtractorTest {
+    private static final String JSON = "{\"a\":[[1,[2]],{\"x\":[3]},\"s]\",4,{\"p\":5},[]],"
+            + "\"b\":{\"c\":true,\"d\":[{\"e\":null}]},\"z\":7}";
+    
+    private static List<JsonElement> values(Object... values) {
+        List<JsonElement> list = new ArrayList<>();
+        for (Object value : values) {
+            list.add(value instanceof Integer ? new JsonPrimitive((Integer) value)
+                    : value == null ? JsonPrimitive.NULL : new JsonPrimitive((Boolean) value));
+        }
+        return list;
+    }
+    
+    @Test
+    void extractsFixedPaths() {
+        Map<String, List<JsonElement>> found =
+                JsonExtractor.of("/a/4/p", "/b/d/0/e", "/z", "/a/9", "/q").extract(JSON);
+        assertEquals(values(5), found.get("/a/4/p"));
+        assertEquals(values((Object) null), found.get("/b/d/0/e"));
+        assertEquals(values(7), found.get("/z"));
+        assertEquals(Collections.emptyList(), found.getOrDefault("/a/9", Collections.emptyList()));
+        assertEquals(Collections.emptyList(), found.getOrDefault("/q", Collections.emptyList()));
+    }
+    
+    @Test
+    void extractsWildcards() {
+        Map<String, List<JsonElement>> found =
+                JsonExtractor.of("/a/*/x/0", "/a/*/p", "/b/*").extract(JSON);
+        assertEquals(values(3), found.get("/a/*/x/0"));
+        assertEquals(values(5), found.get("/a/*/p"));
+        assertEquals(2, found.get("/b/*").size());
+    }
+    
+    @Test
+    void extractsTheSameFromEveryParser() {
+        JsonExtractor extractor = JsonExtractor.of("/a/1/x", "/a/*/p", "/b/d", "/z");
+        Map<String, List<JsonElement>> expected = extractor.extract(JSON);
+        byte[] utf8 = JSON.getBytes(StandardCharsets.UTF_8);
+        for (JsonParser parser : Arrays.asList(JsonParser.of(utf8), JsonParser.indexed(utf8))) {
+            List<String> paths = new ArrayList<>();
+            extractor.extract(parser, (path, value) -> {
+                paths.add(path);
+                assertTrue(expected.get(path).contains(value), path);
+            });
+            assertEquals(4, paths.size());
+        }
+    }
+    
+    @Test
+    void skipChildrenValidates() {
+        JsonParser parser = JsonParser.of("[[1,2],[1,tru],3]");
+        parser.next();
+        parser.next();
+        parser.skipChildren();
+        assertEquals(JsonToken.END_ARRAY, parser.current());
+        assertEquals(JsonToken.BEGIN_ARRAY, parser.next());
+        assertThrows(MalformedJsonException.class, parser::skipChildren);
+    }
+    
+    @Test
+    void skipValueStopsAtTheEndOfTheArray() {
+        JsonParser parser = JsonParser.of("[[1],{},\"]\"]");
+        parser.next();
+        parser.skipValue();
+        assertEquals(JsonToken.END_ARRAY, parser.current());
+        parser.skipValue();
+        assertEquals(JsonToken.END_OBJECT, parser.current());
+        parser.skipValue();
+        assertEquals(JsonToken.STRING, parser.current());
+        parser.skipValue();
+        assertEquals(JsonToken.END_ARRAY, parser.current());
+        assertEquals(JsonToken.END_DOCUMENT, parser.next());
+    }
+    
+    @Test
+    void skipValueOnlyKeepsLiterals() {
+        JsonParser parser = JsonParser.of("[-1.5e3,true,12]");
+        parser.next();
+        parser.skipValue();
+        assertEquals(JsonToken.NUMBER, parser.current());
+        assertThrows(IllegalStateException.class, parser::currentValue);
+        assertThrows(IllegalStateException.class, parser::currentNumber);
+        parser.skipValue();
+        assertEquals(true, parser.currentValue().getAsBoolean());
+        assertEquals(JsonToken.NUMBER, parser.next());
+        assertEquals(12, parser.currentValue().getAsInt());
+        
+        for (String json : new String[]{"[1.]", "[-]", "[1e]", "[01]"}) {
+            JsonParser malformed = JsonParser.of(json);
+            malformed.next();
+            assertThrows(MalformedJsonException.class, () -> {
+                malformed.skipValue();
+                malformed.next();
+            }, json);
+        }
+    }
+}
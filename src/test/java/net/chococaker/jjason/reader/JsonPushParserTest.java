@@ -0,0 +1,139 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPushParserTest {
+    private static final String[] VALID = {
+            "{\"a\\u00e9b\":\"x\\\\\\\"\\n\\u0041\\ud83d\\ude00\",\"ü\":\"é€😀日本\",\"\":[]}",
+            "[0,-0,1.5e10,-2E-3,1e+2,0.0,12345678901234567890,-9223372036854775808,3.25]",
+            "[true,false,null,\"\",{},[],{\"k\":[{}]}]",
+            " -12.5e3 ", "0", "7", "\"\\/\\b\\f\\r\\t\"", "\"ß\u07ff\u0800\uffff\"", "null",
+            "{ \"x\" : [ 1 , { \"y\" : \"z\" } ] }\n"
+    };
+    
+    private static final String[] INVALID = {
+            "", "{", "[1,]", "{\"a\":1,}", "[01]", "[1.]", "[1e]", "[-]", "[tru]", "\"\\x\"",
+            "\"\\u12g4\"", "[1]]", "{} x", "[\"\u0001\"]", "{1:2}", "[1 2]", "\"é", "[1e+]"
+    };
+    
+    // the tokens of the pull parser, with their names and values
+    private static List<String> pull(byte[] json) {
+        JsonParser parser = JsonParser.of(json);
+        List<String> tokens = new ArrayList<>();
+        JsonToken token;
+        do {
+            token = parser.next();
+            tokens.add(describe(token, token == JsonToken.NAME ? parser.currentName() : null,
+                    isValue(token) ? parser.currentValue() : null));
+        } while (token != JsonToken.END_DOCUMENT);
+        return tokens;
+    }
+    
+    // the tokens of a push parser fed the input in chunks ending at the given offsets
+    private static List<String> push(byte[] json, int... splits) {
+        List<String> tokens = new ArrayList<>();
+        JsonPushParser parser = JsonPushParser.of((p, token) -> tokens.add(describe(token,
+                token == JsonToken.NAME ? p.currentName() : null,
+                isValue(token) ? p.currentValue() : null)));
+        int start = 0;
+        for (int split : splits) {
+            parser.feed(ByteBuffer.wrap(json, start, split - start));
+            start = split;
+        }
+        parser.feed(ByteBuffer.wrap(json, start, json.length - start));
+        parser.endOfInput();
+        return tokens;
+    }
+    
+    private static boolean isValue(JsonToken token) {
+        return token == JsonToken.STRING || token == JsonToken.NUMBER
+                || token == JsonToken.BOOLEAN || token == JsonToken.NULL;
+    }
+    
+    private static String describe(JsonToken token, String name, Object value) {
+        if (name != null)
+            return token + " " + name;
+        if (token == JsonToken.NUMBER)
+            return token + " " + ((JsonPrimitive) value).getAsBigDecimal();
+        if (token == JsonToken.STRING)
+            return token + " " + ((JsonPrimitive) value).getAsString();
+        return value != null ? token + " " + value : token.toString();
+    }
+    
+    @Test
+    void agreesWithThePullParserAtEverySplit() {
+        for (String json : VALID) {
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            List<String> expected = pull(utf8);
+            assertEquals(expected, push(utf8), json);
+            for (int split = 0; split <= utf8.length; split++) {
+                assertEquals(expected, push(utf8, split), json + " split at " + split);
+            }
+        }
+    }
+    
+    @Test
+    void agreesWithThePullParserByteByByte() {
+        for (String json : VALID) {
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            int[] splits = new int[utf8.length];
+            for (int i = 0; i < splits.length; i++) {
+                splits[i] = i;
+            }
+            assertEquals(pull(utf8), push(utf8, splits), json);
+        }
+    }
+    
+    @Test
+    void rejectsWhatThePullParserRejectsAtEverySplit() {
+        for (String json : INVALID) {
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            assertThrows(MalformedJsonException.class, () -> pull(utf8), json);
+            for (int split = 0; split <= utf8.length; split++) {
+                int at = split;
+                assertThrows(MalformedJsonException.class, () -> push(utf8, at),
+                        json + " split at " + at);
+            }
+        }
+    }
+    
+    @Test
+    void rejectsTruncatedUtf8AtEverySplit() {
+        byte[] utf8 = "[\"😀\"]".getBytes(StandardCharsets.UTF_8);
+        // keeps the lead byte and up to two of the three continuation bytes of the emoji
+        for (int kept = 1; kept < 4; kept++) {
+            byte[] truncated = new byte[2 + kept + 2];
+            System.arraycopy(utf8, 0, truncated, 0, 2 + kept);
+            System.arraycopy(utf8, 6, truncated, 2 + kept, 2);
+            assertThrows(MalformedJsonException.class, () -> pull(truncated));
+            for (int split = 0; split <= truncated.length; split++) {
+                int at = split;
+                assertThrows(MalformedJsonException.class, () -> push(truncated, at));
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonReaderTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void readsObjectsAndArrays() {
+        JsonObject object = JsonReader.objectReader(" {\"a\": [1, \"x\", true, null], \"b\": {}} ")
+                .read();
+        JsonArray a = object.get("a").getAsJsonArray();
+        assertEquals(4, a.size());
+        assertEquals(1, a.getAsJsonPrimitive(0).getAsInt());
+        assertEquals("x", a.getAsJsonPrimitive(1).getAsString());
+        assertEquals(JsonPrimitive.NULL, a.get(3));
+        assertEquals(new JsonObject(), object.getAsJsonObject("b"));
+    }
+    
+    @Test
+    void rejectsTrailingContent() {
+        for (String json : new String[]{"[1]]", "[1] x", "[]rue]", "[] []", "[1],"}) {
+            assertThrows(MalformedJsonException.class, () -> JsonReader.arrayReader(json).read(),
+                    json);
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            assertThrows(MalformedJsonException.class,
+                    () -> JsonReader.arrayReader(JsonParser.of(utf8)).read(), json);
+        }
+        for (String json : new String[]{"{}}", "{} x", "{\"a\":1}]", "{}{}"}) {
+            assertThrows(MalformedJsonException.class, () -> JsonReader.objectReader(json).read(),
+                    json);
+        }
+    }
+    
+    @Test
+    void allowsTrailingWhitespace() {
+        assertEquals(1, JsonReader.arrayReader("[1] \n\t\r").read().size());
+        assertEquals(0, JsonReader.objectReader("{}\n").read().keySet().size());
+    }
+    
+    @Test
+    void readsNestedValuesFromParser() {
+        JsonParser parser = JsonParser.of("{\"car\": {\"gas\": 1}, \"next\": [2]}");
+        parser.next();
+        assertEquals(JsonToken.NAME, parser.next());
+        JsonObject car = JsonReader.objectReader(parser).read();
+        assertEquals(1, car.getAsJsonPrimitive("gas").getAsInt());
+        assertEquals(JsonToken.NAME, parser.next());
+        assertEquals("next", parser.currentName());
+    }
+    
+    @Test
+    void rejectsDuplicateKeys() {
+        assertThrows(MalformedJsonException.class,
+                () -> JsonReader.objectReader("{\"a\":1,\"a\":2}").read());
+    }
+    
+    @Test
+    @SuppressWarnings("deprecation")
+    void keepsSubclassesReadingCharSequences() {
+        JsonReader<JsonArray> reader = new JsonReader<JsonArray>("[1, [2]]") {
+            @Override
+            public JsonArray read() {
+                require(JsonToken.BEGIN_ARRAY);
+                return readArray();
+            }
+        };
+        assertEquals(2, reader.read().size());
+        
+        JsonReader<JsonElement> legacy = new JsonReader<JsonElement>("12 ") {
+            @Override
+            public JsonElement read() {
+                return iter.current() == '"' ? readString() : readNumber();
+            }
+        };
+        assertEquals(12, legacy.read().getAsJsonPrimitive().getAsInt());
+        assertEquals("12 ", legacy.json);
+    }
+    
+    @Test
+    void readsStringsOfEveryKindOfBuffer() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            sb.append("{\"key").append(i % 7).append("\": \"value ").append(i)
+                    .append(i % 3 == 0 ? "\\n\\u00e9" : "").append(i % 5 == 0 ? "é€" : "")
+                    .append("\"},");
+        }
+        String json = sb.append("\"").append(new String(new char[500]).replace('\0', 'x'))
+                .append("\"]").toString();
+        JsonArray expected = JsonReader.arrayReader(json).read();
+        
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length);
+        direct.put(utf8).flip();
+        Path file = Files.write(dir.resolve("strings.json"), utf8);
+        for (JsonParser parser : new JsonParser[]{JsonParser.of(utf8), JsonParser.of(direct),
+                JsonParser.of(file), JsonParser.of(file, 16)}) {
+            try {
+                assertEquals(expected, JsonReader.arrayReader(parser).read());
+            } finally {
+                parser.close();
+            }
+        }
+        assertEquals(0, direct.position());
+    }
+}
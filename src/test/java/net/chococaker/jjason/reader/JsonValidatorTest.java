@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.exception.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonValidatorTest {
+    private static final String[] VALID = {
+            "{}", " [ ] ", "0", "-0.5e+10", "\"\\u00e9\\n\"", "\"é€😀\"",
+            "[1,[2,{\"a\":[]}],null]",
+            "{\"a\":true,\"b\":false,\"c\":{\"d\":\"\\\"\"}}", "\t\r\n1\n"
+    };
+    
+    private static final String[] INVALID = {
+            "", " ", "{", "[1,]", "{\"a\"}", "{\"a\":1,}", "01", "1.", "1e", "-", "tru", "nul",
+            "\"a", "\"\\x\"", "\"\\u12g4\"", "[1]]", "{} x", "[\"\u0001\"]", "{1:2}", "[1 2]"
+    };
+    
+    private static boolean parses(JsonParser parser) {
+        try {
+            while (parser.next() != JsonToken.END_DOCUMENT) {
+                if (parser.current() == JsonToken.STRING || parser.current() == JsonToken.NUMBER)
+                    parser.currentValue();
+            }
+            return true;
+        } catch (MalformedJsonException e) {
+            return false;
+        }
+    }
+    
+    @Test
+    void agreesWithTheParser() {
+        for (String json : VALID) {
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            assertTrue(parses(JsonParser.of(json)), json);
+            assertTrue(parses(JsonParser.of(utf8)), json);
+            assertTrue(JsonValidator.isValid(json), json);
+            assertTrue(JsonValidator.isValid(new StringBuilder(json)), json);
+            assertTrue(JsonValidator.isValid(utf8), json);
+        }
+        for (String json : INVALID) {
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            assertFalse(parses(JsonParser.of(json)), json);
+            assertFalse(parses(JsonParser.of(utf8)), json);
+            assertFalse(JsonValidator.isValid(json), json);
+            assertFalse(JsonValidator.isValid(new StringBuilder(json)), json);
+            assertFalse(JsonValidator.isValid(utf8), json);
+        }
+    }
+    
+    @Test
+    void reportsTheFirstInvalidIndex() {
+        assertEquals(JsonValidator.VALID, JsonValidator.validate("[1, 2]"));
+        assertEquals(3, JsonValidator.validate("[1,]"));
+        assertEquals(4, JsonValidator.validate("[1] x"));
+        assertEquals(5, JsonValidator.validate("{\"a\":"));
+        assertEquals(2, JsonValidator.validate("\"a"));
+        assertEquals(3, JsonValidator.validate(new StringBuilder("[1,]")));
+        
+        byte[] bytes = "  [1,]x".getBytes(StandardCharsets.UTF_8);
+        assertEquals(3, JsonValidator.validate(bytes, 2, 4));
+        assertEquals(JsonValidator.VALID, JsonValidator.validate("  [1]x".getBytes(StandardCharsets.UTF_8), 2, 3));
+    }
+    
+    @Test
+    void checksUtf8() {
+        // overlong, surrogate, out of range and broken sequences are reported at their first byte
+        assertEquals(1, JsonValidator.validate(new byte[]{'"', (byte) 0xC0, (byte) 0x80, '"'}));
+        assertEquals(1, JsonValidator.validate(
+                new byte[]{'"', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"'}));
+        assertEquals(1, JsonValidator.validate(
+                new byte[]{'"', (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80, '"'}));
+        assertEquals(1, JsonValidator.validate(new byte[]{'"', (byte) 0x80, '"'}));
+        assertEquals(1, JsonValidator.validate(
+                new byte[]{'"', (byte) 0xE2, 'a', (byte) 0x82, '"'}));
+        
+        // sequences cut off by the end of the input are reported at its length
+        assertEquals(3, JsonValidator.validate(new byte[]{'"', (byte) 0xE2, (byte) 0x82}));
+        assertEquals(2, JsonValidator.validate(new byte[]{'"', (byte) 0xF0}));
+        assertEquals(3, JsonValidator.validate(new byte[]{' ', '"', (byte) 0xE2, (byte) 0x82},
+                1, 3));
+    }
+}
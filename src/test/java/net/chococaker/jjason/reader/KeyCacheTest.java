@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyCacheTest {
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+    
+    @Test
+    void countsHitsAndMisses() {
+        KeyCache cache = new KeyCache();
+        String first = cache.get("name", 0, 4);
+        assertEquals("name", first);
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+        
+        assertSame(first, cache.get("{\"name\"}", 2, 6));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+    
+    @Test
+    void roundsCapacityUp() {
+        assertEquals(KeyCache.DEFAULT_CAPACITY, new KeyCache().capacity());
+        assertEquals(1, new KeyCache(1).capacity());
+        assertEquals(4, new KeyCache(3).capacity());
+        assertEquals(64, new KeyCache(64).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new KeyCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new KeyCache((1 << 30) + 1));
+    }
+    
+    @Test
+    void evictsTheKeyOfASlot() {
+        KeyCache cache = new KeyCache(1);
+        String a = cache.get(new char[]{'a'}, 0, 1);
+        String b = cache.get("b", 0, 1);
+        assertSame(b, cache.get("b", 0, 1));
+        String again = cache.get(new char[]{'a'}, 0, 1);
+        assertEquals(a, again);
+        assertNotSame(a, again);
+        assertEquals(1, cache.hits());
+        assertEquals(3, cache.misses());
+        
+        // keys with the same length and hash only share a slot
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals("BB", cache.get("BB", 0, 2));
+        assertEquals("Aa", cache.get("Aa", 0, 2));
+        assertEquals(5, cache.misses());
+    }
+    
+    @Test
+    void bypassesLongKeys() {
+        KeyCache cache = new KeyCache();
+        String longest = repeat('k', KeyCache.MAX_KEY_LENGTH);
+        assertSame(cache.get(longest, 0, longest.length()),
+                cache.get(longest.toCharArray(), 0, longest.length()));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        
+        String tooLong = longest + 'k';
+        char[] chars = tooLong.toCharArray();
+        ByteBuffer bytes = ByteBuffer.wrap(tooLong.getBytes(StandardCharsets.US_ASCII));
+        String first = cache.get(chars, 0, chars.length);
+        assertEquals(tooLong, first);
+        assertNotSame(first, cache.get(chars, 0, chars.length));
+        assertEquals(tooLong, cache.get(bytes, 0, chars.length));
+        assertEquals(tooLong, cache.get(new StringBuilder(tooLong), 0, chars.length));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+    
+    @Test
+    void sharesKeysBetweenOverloads() {
+        KeyCache cache = new KeyCache();
+        String text = "xx\"key\"";
+        byte[] ascii = text.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer direct = ByteBuffer.allocateDirect(ascii.length);
+        direct.put(ascii).clear();
+        
+        String key = cache.get(text.toCharArray(), 3, 6);
+        assertEquals("key", key);
+        assertSame(key, cache.get(ByteBuffer.wrap(ascii), 3, 6));
+        assertSame(key, cache.get(direct, 3, 6));
+        assertSame(key, cache.get(new StringBuilder(text), 3, 6));
+        assertSame(key, cache.get(text, 3, 6));
+        assertEquals(4, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+    
+    @Test
+    void sharesKeysBetweenParsers() {
+        KeyCache cache = new KeyCache();
+        String json = "[{\"id\": 1, \"tags\": []}, {\"id\": 2, \"tags\": []}]";
+        List<String> keys = new ArrayList<>();
+        for (JsonParser parser : new JsonParser[]{JsonParser.of(json),
+                JsonParser.of(json.getBytes(StandardCharsets.UTF_8))}) {
+            JsonArray array = JsonReader.arrayReader(parser.withKeyCache(cache)).read();
+            for (int i = 0; i < array.size(); i++) {
+                keys.addAll(array.get(i).getAsJsonObject().keySet());
+            }
+        }
+        
+        assertEquals(8, keys.size());
+        for (int i = 2; i < keys.size(); i++) {
+            assertSame(keys.get(i % 2), keys.get(i));
+        }
+        assertEquals(2, cache.misses());
+        assertEquals(6, cache.hits());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonObject;
+import net.chococaker.jjason.JsonPrimitive;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyJsonReaderTest {
+    private static final String JSON = "{\"a\":{\"x\":1},\"b\":[true,null],\"c\":\"s\\u0074r\",\"a\":2}";
+    
+    @Test
+    void readsLikeTheEagerReader() {
+        JsonObject lazy = JsonReader.lazyObjectReader(JSON.replace(",\"a\":2", "")).read();
+        JsonObject eager = JsonReader.objectReader(JsonParser.of(JSON.replace(",\"a\":2", "")))
+                .read();
+        assertEquals(eager, lazy);
+        assertEquals(eager.toString(), lazy.toString());
+    }
+    
+    @Test
+    void keepsTheFirstOfDuplicateKeys() {
+        JsonObject object = JsonReader.lazyObjectReader(JSON).read();
+        assertTrue(object.get("a").isJsonObject());
+        assertEquals(3, object.keySet().size());
+    }
+    
+    @Test
+    void keepsMembersBuiltBeforeTheRest() {
+        JsonObject object = JsonReader.lazyObjectReader(JSON).read();
+        JsonElement a = object.get("a");
+        JsonElement b = object.get("b");
+        object.set("c", new JsonPrimitive(3));
+        
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> member : object) {
+            keys.add(member.getKey());
+        }
+        assertEquals(Arrays.asList("a", "b", "c"), keys);
+        assertSame(a, object.get("a"));
+        assertSame(b, object.get("b"));
+        assertEquals(3, object.getAsJsonPrimitive("c").getAsInt());
+    }
+    
+    @Test
+    void readsDocumentsLargerThanTheInitialTape() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"i\":").append(i).append('}');
+        }
+        JsonArray array = JsonReader.lazyArrayReader(json.append(']').toString()).read();
+        assertEquals(10000, array.size());
+        assertEquals(9999, array.get(9999).getAsJsonObject().getAsJsonPrimitive("i").getAsInt());
+    }
+    
+    @Test
+    void rejectsInvalidDocuments() {
+        assertThrows(MalformedJsonException.class,
+                () -> JsonReader.lazyObjectReader("{\"a\":}").read());
+        assertThrows(MalformedJsonException.class,
+                () -> JsonReader.lazyObjectReader("[]").read());
+    }
+    
+    @Test
+    void doesNotPublishTheLazyHook() {
+        for (Constructor<?> constructor : JsonObject.class.getConstructors()) {
+            for (Class<?> parameter : constructor.getParameterTypes()) {
+                assertTrue(parameter == Map.class, constructor::toString);
+            }
+        }
+        for (Class<?> nested : JsonObject.class.getDeclaredClasses()) {
+            assertFalse(Modifier.isPublic(nested.getModifiers()), nested::toString);
+        }
+    }
+    
+    @Test
+    void buildsMembersSafelyFromSeveralThreads() throws Exception {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":{\"i\":")
+                    .append(i).append('}');
+        }
+        String text = json.append('}').toString();
+        JsonObject expected = JsonReader.objectReader(JsonParser.of(text)).read();
+        
+        for (int round = 0; round < 20; round++) {
+            JsonObject lazy = JsonReader.lazyObjectReader(text).withKeyCache(new KeyCache()).read();
+            Thread[] threads = new Thread[4];
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            for (int t = 0; t < threads.length; t++) {
+                int offset = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            int k = (i * 7 + offset * 500) % 2000;
+                            JsonObject member = lazy.getAsJsonObject("k" + k);
+                            assertEquals(k, member.getAsJsonPrimitive("i").getAsInt());
+                        }
+                        assertEquals(2000, lazy.keySet().size());
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertNull(failure.get());
+            assertEquals(expected, lazy);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonReaderTest {
+    private static final int LINES = 300;
+    
+    @TempDir
+    Path dir;
+    
+    // lines of different lengths, some blank, some ending with CRLF, and the given ones malformed
+    private static byte[] lines(List<Integer> malformed) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            if (malformed.contains(i)) {
+                sb.append("{\"n\": ").append(i);
+            } else if (i % 7 == 3) {
+                sb.append(i % 2 == 0 ? "" : " \t");
+            } else {
+                sb.append("{\"n\": ").append(i).append(", \"pad\": \"");
+                for (int j = 0; j < i % 40; j++) {
+                    sb.append('x');
+                }
+                sb.append("\"}");
+            }
+            sb.append(i % 11 == 0 ? "\r\n" : "\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static List<Integer> expected(List<Integer> malformed) {
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            if (i % 7 != 3 && !malformed.contains(i))
+                numbers.add(i);
+        }
+        return numbers;
+    }
+    
+    private static List<Integer> numbers(NdjsonReader reader) {
+        try (Stream<JsonElement> stream = reader.stream()) {
+            return stream.map(e -> e.getAsJsonObject().getAsJsonPrimitive("n").getAsInt())
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    @Test
+    void readsLinesInOrder() {
+        byte[] json = lines(Collections.emptyList());
+        assertEquals(expected(Collections.emptyList()), numbers(NdjsonReader.of(json)));
+        assertEquals(expected(Collections.emptyList()),
+                numbers(NdjsonReader.of(json).withChunkSize(64)));
+    }
+    
+    @Test
+    void readsUnorderedLines() {
+        byte[] json = lines(Collections.emptyList());
+        try (Stream<JsonElement> stream = NdjsonReader.of(json).withChunkSize(64)
+                .unorderedStream()) {
+            List<Integer> numbers = stream
+                    .map(e -> e.getAsJsonObject().getAsJsonPrimitive("n").getAsInt())
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertEquals(expected(Collections.emptyList()), numbers);
+        }
+    }
+    
+    @Test
+    void readsLinesAcrossWindows() throws IOException {
+        byte[] json = lines(Collections.emptyList());
+        Path file = Files.write(dir.resolve("lines.ndjson"), json);
+        for (int windowSize : new int[]{1, 8, 33, 1 << 16}) {
+            try (NdjsonReader reader = NdjsonReader.of(file, windowSize, 16)) {
+                assertEquals(expected(Collections.emptyList()),
+                        numbers(reader.withChunkSize(50)), "window " + windowSize);
+            }
+            
+            ByteBuffer direct = ByteBuffer.allocateDirect(json.length + 2);
+            direct.put((byte) '\n').put(json).flip();
+            direct.position(1);
+            assertEquals(expected(Collections.emptyList()),
+                    numbers(NdjsonReader.of(direct, windowSize, 16).withChunkSize(50)),
+                    "window " + windowSize);
+            assertEquals(1, direct.position());
+        }
+    }
+    
+    @Test
+    void readsMappedFiles() throws IOException {
+        Path file = Files.write(dir.resolve("small.ndjson"),
+                "1\r\n\r\n[true]\n\"a\"".getBytes(StandardCharsets.UTF_8));
+        try (NdjsonReader reader = NdjsonReader.of(file);
+             Stream<JsonElement> stream = reader.stream()) {
+            assertEquals(Arrays.asList("1", "[true]", "\"a\""),
+                    stream.map(JsonElement::toString).collect(Collectors.toList()));
+        }
+    }
+    
+    @Test
+    void numbersMalformedLines() throws IOException {
+        List<Integer> malformed = Arrays.asList(0, 5, 37, 150, LINES - 1);
+        byte[] json = lines(malformed);
+        Path file = Files.write(dir.resolve("malformed.ndjson"), json);
+        
+        for (int blockSize : new int[]{1, 16, 1000, 1 << 20}) {
+            ConcurrentLinkedQueue<MalformedJsonException> errors = new ConcurrentLinkedQueue<>();
+            try (NdjsonReader reader = NdjsonReader.of(file, 64, blockSize)) {
+                assertEquals(expected(malformed),
+                        numbers(reader.withChunkSize(100).withErrorHandler(errors::add)));
+            }
+            
+            TreeSet<Long> lines = new TreeSet<>();
+            for (MalformedJsonException e : errors) {
+                lines.add(e.getLine());
+            }
+            assertEquals(new TreeSet<>(Arrays.asList(1L, 6L, 38L, 151L, (long) LINES)), lines,
+                    "block " + blockSize);
+        }
+    }
+    
+    @Test
+    void throwsMalformedLinesWithoutHandler() {
+        byte[] json = lines(Collections.singletonList(42));
+        MalformedJsonException e = assertThrows(MalformedJsonException.class,
+                () -> numbers(NdjsonReader.of(ByteBuffer.wrap(json), 8, 16)));
+        assertEquals(43, e.getLine());
+        
+        assertThrows(MalformedJsonException.class,
+                () -> numbers(NdjsonReader.of("1 2\n".getBytes(StandardCharsets.UTF_8))));
+    }
+}
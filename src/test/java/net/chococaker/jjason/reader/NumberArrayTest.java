@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.JsonDoubleArray;
+import net.chococaker.jjason.JsonElement;
+import net.chococaker.jjason.JsonIntArray;
+import net.chococaker.jjason.JsonLongArray;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumberArrayTest {
+    private static final String JSON = "[[1,2],[3,4000000000],[0.5,-2.0],[1E+2,1],[1.50],[-0],"
+            + "[9007199254740993.0],[1,\"a\"]]";
+    
+    private static JsonArray read(String json, boolean numberArrays) {
+        return JsonReader.arrayReader(JsonParser.of(json)).withNumberArrays(numberArrays).read();
+    }
+    
+    @Test
+    void readsJsonArraysByDefault() {
+        for (JsonElement element : read(JSON, false)) {
+            assertInstanceOf(JsonArray.class, element);
+        }
+        for (JsonElement element : JsonReader.lazyArrayReader(JSON).read()) {
+            assertInstanceOf(JsonArray.class, element);
+        }
+        for (JsonElement element : JsonReader.parallelArrayReader(JSON).read()) {
+            assertInstanceOf(JsonArray.class, element);
+        }
+    }
+    
+    @Test
+    void readsNumberArraysIfEnabled() {
+        check(json -> read(json, true));
+        check(json -> JsonReader.lazyArrayReader(json).withNumberArrays(true).read());
+        check(json -> JsonReader.parallelArrayReader(json).withNumberArrays(true).read());
+    }
+    
+    private static void check(Function<String, JsonArray> reader) {
+        JsonArray array = reader.apply(JSON);
+        assertInstanceOf(JsonIntArray.class, array.get(0));
+        assertInstanceOf(JsonLongArray.class, array.get(1));
+        assertInstanceOf(JsonDoubleArray.class, array.get(2));
+        // numbers that would not be written back as they were read stay in a JsonArray
+        assertInstanceOf(JsonArray.class, array.get(3));
+        assertInstanceOf(JsonArray.class, array.get(4));
+        assertInstanceOf(JsonArray.class, array.get(5));
+        assertInstanceOf(JsonArray.class, array.get(6));
+        assertInstanceOf(JsonArray.class, array.get(7));
+        
+        assertEquals(JSON, array.toString());
+        assertEquals(new BigDecimal("9007199254740993.0"),
+                array.get(6).getAsJsonArray().getAsJsonPrimitive(0).getAsBigDecimal());
+        assertEquals(100, array.get(3).getAsJsonArray().getAsJsonPrimitive(0).getAsInt());
+    }
+    
+    @Test
+    void convertsNumbersExactly() {
+        JsonArray array = read("[[1,4000000000],[-2.0,0.5]]", true);
+        JsonLongArray longs = (JsonLongArray) array.get(0);
+        JsonDoubleArray doubles = (JsonDoubleArray) array.get(1);
+        assertEquals(1, longs.getInt(0));
+        assertEquals(4000000000L, longs.getLong(1));
+        assertThrows(IllegalStateException.class, () -> longs.getInt(1));
+        assertThrows(IllegalStateException.class, longs::toIntArray);
+        assertEquals(-2, doubles.getInt(0));
+        assertEquals(-2, doubles.getLong(0));
+        assertThrows(IllegalStateException.class, () -> doubles.getInt(1));
+        assertThrows(IllegalStateException.class, () -> doubles.getLong(1));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.reader;
+
+import net.chococaker.jjason.JsonArray;
+import net.chococaker.jjason.exception.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelArrayReaderTest {
+    private static String repeat(String element, int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append(element);
+        }
+        return json.append(']').toString();
+    }
+    
+    @Test
+    void readsIdenticalRecords() {
+        String json = repeat("{\"a\":1,\"b\":\"xxxxxxx\"}", 200000);
+        assertTrue(json.length() >= ParallelArrayReader.MIN_PARALLEL_LENGTH);
+        
+        JsonArray array = JsonReader.parallelArrayReader(json).read();
+        assertEquals(200000, array.size());
+        assertEquals(JsonReader.arrayReader(json).read(), array);
+    }
+    
+    @Test
+    void readsLikeTheSequentialReader() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 100000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"i\":").append(i)
+                    .append(",\"s\":\"a,]\\\"b\",\"n\":[").append(i % 7).append(",{}]}");
+        }
+        String text = json.append(" ]").toString();
+        assertTrue(text.length() >= ParallelArrayReader.MIN_PARALLEL_LENGTH);
+        assertEquals(JsonReader.arrayReader(text).read(),
+                JsonReader.parallelArrayReader(text).read());
+    }
+    
+    @Test
+    void reportsErrorsLikeTheSequentialReader() {
+        String json = repeat("{\"a\":1,\"b\":\"xxxxxxx\"}", 200000);
+        int middle = json.length() / 2;
+        String broken = json.substring(0, middle) + "x" + json.substring(middle);
+        MalformedJsonException sequential = assertThrows(MalformedJsonException.class,
+                () -> JsonReader.arrayReader(broken).read());
+        MalformedJsonException parallel = assertThrows(MalformedJsonException.class,
+                () -> JsonReader.parallelArrayReader(broken).read());
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+    
+    @Test
+    void rejectsBlankElements() {
+        StringBuilder big = new StringBuilder();
+        while (big.length() < 2000000) {
+            big.append("xxxxxxxxxx");
+        }
+        String[] inputs = {
+                "[\"" + big + "\",]", "[\"" + big + "\", ]", "[,\"" + big + "\"]",
+                "[\"" + big + "\",,1]", "[1, \n,\"" + big + "\"]"
+        };
+        for (String json : inputs) {
+            assertTrue(json.length() >= ParallelArrayReader.MIN_PARALLEL_LENGTH);
+            MalformedJsonException sequential = assertThrows(MalformedJsonException.class,
+                    () -> JsonReader.arrayReader(json).read());
+            MalformedJsonException parallel = assertThrows(MalformedJsonException.class,
+                    () -> JsonReader.parallelArrayReader(json).read());
+            assertEquals(sequential.getMessage(), parallel.getMessage());
+        }
+    }
+    
+    @Test
+    void readsEmptyArrays() {
+        StringBuilder json = new StringBuilder("[");
+        while (json.length() < ParallelArrayReader.MIN_PARALLEL_LENGTH) {
+            json.append("        ");
+        }
+        assertEquals(0, JsonReader.parallelArrayReader(json.append(']').toString()).read().size());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023 chococaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.chococaker.jjason.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonUtilTest {
+    @Test
+    void parsesIntegersIntoNarrowestType() {
+        assertEquals(0, JsonUtil.parseNumber("0"));
+        assertEquals(-2147483648, JsonUtil.parseNumber("-2147483648"));
+        assertEquals(2147483648L, JsonUtil.parseNumber("2147483648"));
+        assertEquals(Long.MIN_VALUE, JsonUtil.parseNumber("-9223372036854775808"));
+        assertEquals(new BigInteger("9223372036854775808"),
+                JsonUtil.parseNumber("9223372036854775808"));
+    }
+    
+    @Test
+    void keepsDecimalsAsDoublesOnlyIfExact() {
+        assertEquals(0.1, JsonUtil.parseNumber("0.1"));
+        assertEquals(1.5e300, JsonUtil.parseNumber("1.5e300"));
+        assertEquals(0.30000000000000004, JsonUtil.parseNumber("0.30000000000000004"));
+        assertEquals(1.0, JsonUtil.parseNumber("1.00000000000000000000"));
+        assertEquals(-0.0, JsonUtil.parseNumber("-0.0"));
+        
+        assertEquals(new BigDecimal("9007199254740993.0"),
+                JsonUtil.parseNumber("9007199254740993.0"));
+        assertEquals(new BigDecimal("0.10000000000000001"),
+                JsonUtil.parseNumber("0.10000000000000001"));
+        assertEquals(new BigDecimal("3.14159265358979323846"),
+                JsonUtil.parseNumber("3.14159265358979323846"));
+        assertEquals(new BigDecimal("1e-400"), JsonUtil.parseNumber("1e-400"));
+    }
+    
+    @Test
+    void agreesWithBigDecimal() {
+        String[] numbers = {"12.5", "-7e-3", "123456789.123456", "1.7976931348623157e308",
+                "4.9e-324", "9007199254740992.5", "12345678901234567", "1E+2"};
+        for (String number : numbers) {
+            Number parsed = JsonUtil.parseNumber(number);
+            BigDecimal value = parsed instanceof BigDecimal ? (BigDecimal) parsed
+                    : parsed instanceof Double ? new BigDecimal(Double.toString((Double) parsed))
+                    : new BigDecimal(parsed.toString());
+            assertEquals(0, value.compareTo(new BigDecimal(number)), number);
+        }
+    }
+    
+    @Test
+    void rejectsInvalidNumbers() {
+        for (String number : new String[]{"", "-", "01x", "1.", ".5", "1e", "1e+", "+1", "1.5.2"}) {
+            assertThrows(NumberFormatException.class, () -> JsonUtil.parseNumber(number), number);
+        }
+    }
+}